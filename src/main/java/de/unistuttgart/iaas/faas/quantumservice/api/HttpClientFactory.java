@@ -0,0 +1,137 @@
+package de.unistuttgart.iaas.faas.quantumservice.api;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.HttpClientProperties;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.ssl.SSLContexts;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * This class creates RestTemplates that are backed by a pool of keep-alive connections. All pools share one TLS
+ * context, so TLS sessions are resumed when new connections to a known host are opened. The number of leased, pending
+ * and available connections of every pool is exposed as metrics.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HttpClientFactory {
+
+    private final MeterRegistry meterRegistry;
+
+    private final SSLConnectionSocketFactory sslSocketFactory = new SSLConnectionSocketFactory(SSLContexts.createSystemDefault());
+
+    private static final String POOL_METRICS_PREFIX = "httpcomponents.httpclient.pool";
+    private static final String POOL_METRICS_TAG = "httpclient";
+
+    // Connection pools by the RestTemplate that uses them
+    private final Map<RestTemplate, Pool> pools = new ConcurrentHashMap<>();
+
+    /**
+     * This method creates a RestTemplate with its own connection pool.
+     *
+     * @param name Name of the pool that is used for its metrics
+     * @param pool Settings of the pool
+     * @return restTemplate
+     */
+    public RestTemplate create(String name, HttpClientProperties.Pool pool) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", sslSocketFactory)
+                .build());
+        connectionManager.setMaxTotal(pool.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(pool.getMaxConnectionsPerRoute());
+        connectionManager.setValidateAfterInactivity(pool.getValidateAfterInactivity());
+        connectionManager.setDefaultSocketConfig(SocketConfig.custom()
+                .setSoTimeout(pool.getReadTimeout())
+                .setSoKeepAlive(true)
+                .build());
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name).bindTo(meterRegistry);
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(pool.getConnectTimeout())
+                        .setSocketTimeout(pool.getReadTimeout())
+                        .setConnectionRequestTimeout(pool.getPoolAcquireTimeout())
+                        .build())
+                .setKeepAliveStrategy((response, context) -> {
+                    long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return keepAlive > 0 ? keepAlive : pool.getKeepAlive();
+                })
+                // Connections are not bound to a user, so every pooled connection can be reused
+                .disableConnectionState()
+                .evictExpiredConnections()
+                .evictIdleConnections(pool.getKeepAlive(), TimeUnit.MILLISECONDS)
+                .build();
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        pools.put(restTemplate, new Pool(name, httpClient));
+        log.debug("Created HTTP connection pool '{}'", name);
+        return restTemplate;
+    }
+
+    /**
+     * This method closes the connection pool of a RestTemplate that is no longer used and removes the metrics of the
+     * pool.
+     *
+     * @param restTemplate RestTemplate created by this factory
+     */
+    public void close(RestTemplate restTemplate) {
+        Pool pool = pools.remove(restTemplate);
+        if (pool == null) {
+            return;
+        }
+        try {
+            pool.httpClient.close();
+        } catch (IOException e) {
+            log.warn("Could not close HTTP connection pool '{}'", pool.name, e);
+        }
+        for (Meter meter : meterRegistry.getMeters()) {
+            if (meter.getId().getName().startsWith(POOL_METRICS_PREFIX) && pool.name.equals(meter.getId().getTag(POOL_METRICS_TAG))) {
+                meterRegistry.remove(meter);
+            }
+        }
+    }
+
+    /**
+     * This method closes all connection pools.
+     */
+    @PreDestroy
+    public void closeAll() {
+        pools.keySet().forEach(this::close);
+    }
+
+    /**
+     * This class contains the HTTP client of a connection pool and the name its metrics are tagged with.
+     */
+    private static class Pool {
+        private final String name;
+        private final CloseableHttpClient httpClient;
+
+        private Pool(String name, CloseableHttpClient httpClient) {
+            this.name = name;
+            this.httpClient = httpClient;
+        }
+    }
+}
@@ -1,21 +1,21 @@
 package de.unistuttgart.iaas.faas.quantumservice.api;
 
-import java.io.IOException;
-import java.net.URL;
-import java.nio.charset.Charset;
+import java.net.URI;
 import java.util.Arrays;
 import java.util.List;
 
 import de.unistuttgart.iaas.faas.quantumservice.configuration.IBMQProperties;
 import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.Hub;
 import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.IBMQJob;
+import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.IBMQJobFilter;
 import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.JobDownloadUrl;
 import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.QueueStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.IOUtils;
 import org.json.JSONObject;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -60,18 +60,64 @@ public class IBMQClient {
     }
 
     /**
-     * This method returns the job result of a completed IBM Quantum job.
+     * This method returns one page of the IBM Quantum Jobs of a project that match the given filter. This allows to
+     * retrieve the state of many jobs with a single request.
      *
-     * @return jobResult Job-Result as a JSONObject
+     * @param hub Hub of the project
+     * @param group Group of the project
+     * @param project Project the jobs belong to
+     * @param filter Filter containing job ids, statuses, minimal creation date and pagination
+     * @return ibmqJobs IBM Quantum Jobs of the requested page
      */
-    public JSONObject getJobResult(String hub, String group, String project, String jobId) {
+    public List<IBMQJob> getJobs(String hub, String group, String project, IBMQJobFilter filter) {
+        String path = "/Network/" + hub + "/Groups/" + group + "/Projects/" + project + "/Jobs";
+        // The query parameters are expanded as URI variables, so that all reserved characters of the JSON-Filter and
+        // the token, e.g. '+', are encoded and the filter is not interpreted as an URI template
+        URI uri = UriComponentsBuilder.fromHttpUrl(ibmqProperties.getApiHost() + path)
+                .queryParam("access_token", "{accessToken}")
+                .queryParam("filter", "{filter}")
+                .encode()
+                .buildAndExpand(ibmqProperties.getAccessToken(), createFilter(filter).toString())
+                .toUri();
+        return Arrays.asList(restTemplate.getForEntity(uri, IBMQJob[].class).getBody());
+    }
+
+    /**
+     * This method downloads the job result of a completed IBM Quantum job. The result is not buffered in memory,
+     * instead the response stream is passed to the given extractor.
+     *
+     * @param extractor Extractor that consumes the streamed Job-Result
+     * @return extractedResult Value returned by the extractor
+     */
+    public <T> T downloadJobResult(String hub, String group, String project, String jobId, ResponseExtractor<T> extractor) {
         String path = "/Network/" + hub + "/Groups/" + group + "/Projects/" + project + "/Jobs/" + jobId + "/resultDownloadUrl";
         JobDownloadUrl downloadUrl = restTemplate.getForEntity(addTokenToUri(path), JobDownloadUrl.class).getBody();
-        try {
-            return new JSONObject(IOUtils.toString(new URL(downloadUrl.getUrl()), Charset.forName("UTF-8")));
-        } catch (IOException exception) {
-            return new JSONObject().put("url", downloadUrl.getUrl());
+        // The download URL is pre-signed and therefore used as it is without encoding it again
+        return restTemplate.execute(URI.create(downloadUrl.getUrl()), HttpMethod.GET, null, extractor);
+    }
+
+    /**
+     * This method creates the JSON-Filter that is understood by the jobs list endpoint of the IBMQ-API.
+     *
+     * @return filter JSON-Filter
+     */
+    private JSONObject createFilter(IBMQJobFilter filter) {
+        JSONObject where = new JSONObject();
+        if (filter.getIds() != null && !filter.getIds().isEmpty()) {
+            where.put("id", new JSONObject().put("inq", filter.getIds()));
+        }
+        if (filter.getStatuses() != null && !filter.getStatuses().isEmpty()) {
+            where.put("status", new JSONObject().put("inq", filter.getStatuses()));
+        }
+        if (filter.getCreatedAfter() != null) {
+            // The date is sent as an ISO-8601 instant in UTC, without an offset or a zone ID
+            where.put("creationDate", new JSONObject().put("gt", filter.getCreatedAfter().toInstant().toString()));
         }
+        return new JSONObject()
+                .put("where", where)
+                .put("order", "creationDate DESC")
+                .put("limit", filter.getLimit())
+                .put("skip", filter.getSkip());
     }
 
     /**
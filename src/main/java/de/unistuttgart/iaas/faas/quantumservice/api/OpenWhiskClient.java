@@ -1,5 +1,7 @@
 package de.unistuttgart.iaas.faas.quantumservice.api;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.openwhiskservice.OpenWhiskService;
@@ -15,6 +17,8 @@ import de.unistuttgart.iaas.faas.quantumservice.model.openwhisk.OpenWhiskRule;
 import de.unistuttgart.iaas.faas.quantumservice.model.openwhisk.OpenWhiskTrigger;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.json.JSONException;
+import org.json.JSONObject;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -23,7 +27,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.HttpServerErrorException;
 
 /**
  * This class contains methods that communicate with an OpenWhisk-Service.
@@ -33,7 +37,7 @@ import org.springframework.web.client.RestTemplate;
 @Slf4j
 public class OpenWhiskClient {
 
-    private final RestTemplate restTemplate;
+    private final OpenWhiskRestTemplates restTemplates;
 
     /**
      * This method deploys an QuantumApplication equivalent action to the given OpenWhisk-Service.
@@ -44,7 +48,7 @@ public class OpenWhiskClient {
         OpenWhiskAction openWhiskAction = createOpenWhiskAction(quantumApplication);
         String url = quantumApplication.getOpenWhiskService().getBaseUrl() + "/namespaces/" + quantumApplication.getOpenWhiskService().getNamespace() + "/actions/" + quantumApplication.getName() + "?overwrite=true";
         HttpEntity<OpenWhiskAction> entity = new HttpEntity<>(openWhiskAction, generateHeaders(quantumApplication.getOpenWhiskService()));
-        restTemplate.exchange(url, HttpMethod.PUT, entity, Object.class);
+        restTemplates.get(quantumApplication.getOpenWhiskService()).exchange(url, HttpMethod.PUT, entity, Object.class);
     }
 
     /**
@@ -56,7 +60,43 @@ public class OpenWhiskClient {
     public ActivationResult invokeAction(QuantumApplication quantumApplication, Object functionParameters) {
         String url = quantumApplication.getOpenWhiskService().getBaseUrl() + "/namespaces/" + quantumApplication.getOpenWhiskService().getNamespace() + "/actions/" + quantumApplication.getName();
         HttpEntity<Object> entity = new HttpEntity<>(functionParameters, generateHeaders(quantumApplication.getOpenWhiskService()));
-        return restTemplate.exchange(url, HttpMethod.POST, entity, ActivationResult.class).getBody();
+        return restTemplates.get(quantumApplication.getOpenWhiskService()).exchange(url, HttpMethod.POST, entity, ActivationResult.class).getBody();
+    }
+
+    /**
+     * This method invokes an Action blocking and waits for its activation. If the action does not finish within the
+     * timeout, the OpenWhisk-Service returns the Activation-ID only and the activation has to be polled later.
+     * Failed actions are treated the same way, so that they are completed by polling as well.
+     *
+     * @param quantumApplication quantumApplication that is related to the action that should be invoked
+     * @param functionParameters Parameters that should be passed to the action as input
+     * @param timeout Maximum time in milliseconds the OpenWhisk-Service waits for the activation
+     * @return openWhiskActivation Finished activation or an activation that only contains the Activation-ID
+     */
+    public OpenWhiskActivation invokeActionBlocking(QuantumApplication quantumApplication, Object functionParameters, long timeout) {
+        String url = quantumApplication.getOpenWhiskService().getBaseUrl() + "/namespaces/" + quantumApplication.getOpenWhiskService().getNamespace() + "/actions/" + quantumApplication.getName() + "?blocking=true&timeout=" + timeout;
+        HttpEntity<Object> entity = new HttpEntity<>(functionParameters, generateHeaders(quantumApplication.getOpenWhiskService()));
+        try {
+            ResponseEntity<OpenWhiskActivation> response = restTemplates.get(quantumApplication.getOpenWhiskService()).exchange(url, HttpMethod.POST, entity, OpenWhiskActivation.class);
+            if (response.getStatusCode() == HttpStatus.ACCEPTED) {
+                // The activation did not finish in time, only the Activation-ID is returned
+                response.getBody().setResponse(null);
+            }
+            return response.getBody();
+        } catch (HttpServerErrorException e) {
+            // Failed actions are returned with status 502 and contain the activation
+            if (e.getStatusCode() != HttpStatus.BAD_GATEWAY) {
+                throw e;
+            }
+            OpenWhiskActivation openWhiskActivation = new OpenWhiskActivation();
+            try {
+                openWhiskActivation.setActivationId(new JSONObject(e.getResponseBodyAsString()).getString("activationId"));
+            } catch (JSONException jsonException) {
+                // A gateway in front of the OpenWhisk-Service failed, so there is no activation
+                throw e;
+            }
+            return openWhiskActivation;
+        }
     }
 
     /**
@@ -67,7 +107,7 @@ public class OpenWhiskClient {
     public void removeActionFromFaas(QuantumApplication quantumApplication) {
         String url = quantumApplication.getOpenWhiskService().getBaseUrl() + "/namespaces/" + quantumApplication.getOpenWhiskService().getNamespace() + "/actions/" + quantumApplication.getName();
         HttpEntity<Object> entity = new HttpEntity<>(generateHeaders(quantumApplication.getOpenWhiskService()));
-        restTemplate.exchange(url, HttpMethod.DELETE, entity, Object.class);
+        restTemplates.get(quantumApplication.getOpenWhiskService()).exchange(url, HttpMethod.DELETE, entity, Object.class);
     }
 
     /**
@@ -79,7 +119,7 @@ public class OpenWhiskClient {
         OpenWhiskTrigger openWhiskTrigger = createOpenWhiskTrigger(eventTrigger);
         String url = eventTrigger.getOpenWhiskService().getBaseUrl() + "/namespaces/" + eventTrigger.getOpenWhiskService().getNamespace() + "/triggers/" + eventTrigger.getName() + "?overwrite=true";
         HttpEntity<OpenWhiskTrigger> entity = new HttpEntity<>(openWhiskTrigger, generateHeaders(eventTrigger.getOpenWhiskService()));
-        restTemplate.exchange(url, HttpMethod.PUT, entity, Object.class);
+        restTemplates.get(eventTrigger.getOpenWhiskService()).exchange(url, HttpMethod.PUT, entity, Object.class);
     }
 
     /**
@@ -90,7 +130,7 @@ public class OpenWhiskClient {
     public void removeTriggerFromFaas(EventTrigger eventTrigger) {
         String url = eventTrigger.getOpenWhiskService().getBaseUrl() + "/namespaces/" + eventTrigger.getOpenWhiskService().getNamespace() + "/triggers/" + eventTrigger.getName();
         HttpEntity<Object> entity = new HttpEntity<>(generateHeaders(eventTrigger.getOpenWhiskService()));
-        restTemplate.exchange(url, HttpMethod.DELETE, entity, Object.class);
+        restTemplates.get(eventTrigger.getOpenWhiskService()).exchange(url, HttpMethod.DELETE, entity, Object.class);
     }
 
     /**
@@ -101,7 +141,7 @@ public class OpenWhiskClient {
      */
     public ActivationResult fireTrigger(EventTrigger eventTrigger, Object functionParameters) {
         HttpEntity<Object> entity = new HttpEntity<>(functionParameters, generateHeaders(eventTrigger.getOpenWhiskService()));
-        ResponseEntity<ActivationResult> response = restTemplate.postForEntity(eventTrigger.getOpenWhiskService().getBaseUrl() + "/namespaces/" + eventTrigger.getOpenWhiskService().getNamespace() + "/triggers/" + eventTrigger.getName(), entity, ActivationResult.class);
+        ResponseEntity<ActivationResult> response = restTemplates.get(eventTrigger.getOpenWhiskService()).postForEntity(eventTrigger.getOpenWhiskService().getBaseUrl() + "/namespaces/" + eventTrigger.getOpenWhiskService().getNamespace() + "/triggers/" + eventTrigger.getName(), entity, ActivationResult.class);
         if (Objects.isNull(response.getBody())) {
             throw new OpenWhiskException("Trigger '" + eventTrigger.getName() + "' did not return any activation ID. Maybe there are no active rules for given trigger!");
         }
@@ -120,7 +160,7 @@ public class OpenWhiskClient {
         // Create or Update the Rule
         String url = quantumApplication.getOpenWhiskService().getBaseUrl() + "/namespaces/" + quantumApplication.getOpenWhiskService().getNamespace() + "/rules/" + eventTrigger.getName() + "-" + quantumApplication.getName();
         HttpEntity<OpenWhiskRule> entity = new HttpEntity<>(openWhiskRule, generateHeaders(quantumApplication.getOpenWhiskService()));
-        restTemplate.exchange(url + "?overwrite=true", HttpMethod.PUT, entity, Object.class);
+        restTemplates.get(quantumApplication.getOpenWhiskService()).exchange(url + "?overwrite=true", HttpMethod.PUT, entity, Object.class);
     }
 
     /**
@@ -132,7 +172,7 @@ public class OpenWhiskClient {
     public void removeRuleFromFaas(EventTrigger eventTrigger, QuantumApplication quantumApplication) {
         String url = quantumApplication.getOpenWhiskService().getBaseUrl() + "/namespaces/" + quantumApplication.getOpenWhiskService().getNamespace() + "/rules/" + eventTrigger.getName() + "-" + quantumApplication.getName();
         HttpEntity<Object> entity = new HttpEntity<>(generateHeaders(quantumApplication.getOpenWhiskService()));
-        restTemplate.exchange(url, HttpMethod.DELETE, entity, Object.class);
+        restTemplates.get(quantumApplication.getOpenWhiskService()).exchange(url, HttpMethod.DELETE, entity, Object.class);
     }
 
     /**
@@ -146,7 +186,7 @@ public class OpenWhiskClient {
         String url = openWhiskService.getBaseUrl() + "/namespaces/" + openWhiskService.getNamespace() + "/activations/" + activationId;
         HttpEntity<Object> entity = new HttpEntity<>(generateHeaders(openWhiskService));
         try {
-            return restTemplate.exchange(url, HttpMethod.GET, entity, OpenWhiskActivation.class).getBody();
+            return restTemplates.get(openWhiskService).exchange(url, HttpMethod.GET, entity, OpenWhiskActivation.class).getBody();
         } catch (HttpClientErrorException e) {
             if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
                 return null;
@@ -155,6 +195,22 @@ public class OpenWhiskClient {
         }
     }
 
+    /**
+     * This method lists the activations of the namespace of an OpenWhisk-Service including their full documents.
+     * The activations are ordered by their start time, starting with the newest one.
+     *
+     * @param openWhiskService Registered OpenWhisk-Service
+     * @param since Epoch milliseconds, only activations that started afterwards are listed
+     * @param limit Maximum number of activations per page
+     * @param skip Number of activations that are skipped
+     * @return openWhiskActivations Page of activations
+     */
+    public List<OpenWhiskActivation> listActivations(OpenWhiskService openWhiskService, long since, int limit, int skip) {
+        String url = openWhiskService.getBaseUrl() + "/namespaces/" + openWhiskService.getNamespace() + "/activations?docs=true&since=" + since + "&limit=" + limit + "&skip=" + skip;
+        HttpEntity<Object> entity = new HttpEntity<>(generateHeaders(openWhiskService));
+        return Arrays.asList(restTemplates.get(openWhiskService).exchange(url, HttpMethod.GET, entity, OpenWhiskActivation[].class).getBody());
+    }
+
     /**
      * This method generates headers needed for accessing the Endpoints of a OpenWhisk-Service.
      *
@@ -0,0 +1,69 @@
+package de.unistuttgart.iaas.faas.quantumservice.api;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.HttpClientProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.openwhiskservice.OpenWhiskService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * This class keeps a RestTemplate with its own connection pool for every OpenWhisk-Service, so that a slow
+ * OpenWhisk-Service can not occupy the connections that are used for the others or for the IBMQ-API.
+ */
+@Component
+@RequiredArgsConstructor
+public class OpenWhiskRestTemplates {
+
+    private final HttpClientFactory httpClientFactory;
+    private final HttpClientProperties properties;
+
+    // RestTemplates by the ID of their OpenWhisk-Service, modified while holding the lock of this
+    private final Map<UUID, RestTemplate> restTemplates = new ConcurrentHashMap<>();
+
+    // IDs of deleted OpenWhisk-Services, so that no new pool is created for requests that were still running
+    private final Set<UUID> removed = new HashSet<>();
+
+    /**
+     * This method returns the RestTemplate of the given OpenWhisk-Service.
+     *
+     * @param openWhiskService OpenWhisk-Service that is accessed
+     * @return restTemplate
+     * @throws NoSuchElementException Thrown if the OpenWhisk-Service was deleted
+     */
+    public RestTemplate get(OpenWhiskService openWhiskService) {
+        RestTemplate restTemplate = restTemplates.get(openWhiskService.getId());
+        if (restTemplate != null) {
+            return restTemplate;
+        }
+        synchronized (this) {
+            if (removed.contains(openWhiskService.getId())) {
+                throw new NoSuchElementException("OpenWhisk-Service '" + openWhiskService.getName() + "' was deleted!");
+            }
+            return restTemplates.computeIfAbsent(openWhiskService.getId(),
+                    id -> httpClientFactory.create("openwhisk-" + openWhiskService.getName(), properties.getOpenWhisk()));
+        }
+    }
+
+    /**
+     * This method closes the connection pool of a deleted OpenWhisk-Service.
+     *
+     * @param openWhiskService Deleted OpenWhisk-Service
+     */
+    public void remove(OpenWhiskService openWhiskService) {
+        RestTemplate restTemplate;
+        synchronized (this) {
+            removed.add(openWhiskService.getId());
+            restTemplate = restTemplates.remove(openWhiskService.getId());
+        }
+        if (restTemplate != null) {
+            httpClientFactory.close(restTemplate);
+        }
+    }
+}
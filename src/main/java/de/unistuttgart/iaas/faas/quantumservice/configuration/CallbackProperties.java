@@ -0,0 +1,35 @@
+package de.unistuttgart.iaas.faas.quantumservice.configuration;
+
+import java.util.Objects;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class represents an entity that is used for importing Environment-Variables for the activation callback
+ */
+@Configuration
+@ConfigurationProperties(prefix = "callback")
+@Getter
+@Setter
+public class CallbackProperties {
+
+    // Header that contains the secret of the action when it calls the callback URL
+    public static final String TOKEN_HEADER = "X-Callback-Token";
+
+    private String baseUrl;
+
+    /**
+     * This method returns the URL actions use to report their completion, or null if no base URL is configured.
+     *
+     * @return callbackUrl
+     */
+    public String getCallbackUrl() {
+        if (Objects.isNull(baseUrl) || baseUrl.isBlank()) {
+            return null;
+        }
+        return baseUrl.replaceAll("/+$", "") + "/script-executions/callback";
+    }
+}
@@ -0,0 +1,86 @@
+package de.unistuttgart.iaas.faas.quantumservice.configuration;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * This class is responsible for generating the worker pools that are used by the background checkers.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class CheckerConfiguration {
+
+    private final JobCheckerProperties jobCheckerProperties;
+    private final QueueSizeCheckerProperties queueSizeCheckerProperties;
+    private final ScriptExecutionCheckerProperties scriptExecutionCheckerProperties;
+    private final EventJournalProperties eventJournalProperties;
+
+    /**
+     * This method creates the bounded worker pool that is used by the JobChecker to poll the IBMQ-API.
+     * If the queue of the pool is full, the polling task is executed by the calling thread, which slows the sweep down
+     * instead of dropping jobs.
+     *
+     * @return jobCheckerExecutor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor jobCheckerExecutor() {
+        return createExecutor(jobCheckerProperties.getPoolSize(), jobCheckerProperties.getQueueCapacity(), "job-checker-");
+    }
+
+    /**
+     * This method creates the bounded worker pool that is used by the ScriptExecutionChecker to poll the activations
+     * of the OpenWhisk-Services.
+     *
+     * @return scriptExecutionCheckerExecutor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor scriptExecutionCheckerExecutor() {
+        return createExecutor(scriptExecutionCheckerProperties.getPoolSize(), scriptExecutionCheckerProperties.getQueueCapacity(), "script-execution-checker-");
+    }
+
+    /**
+     * This method creates the bounded worker pool that is used by the QueueSizeChecker to request the queue status of
+     * all devices in parallel.
+     *
+     * @return queueSizeCheckerExecutor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor queueSizeCheckerExecutor() {
+        return createExecutor(queueSizeCheckerProperties.getPoolSize(), queueSizeCheckerProperties.getQueueCapacity(), "queue-size-checker-");
+    }
+
+    /**
+     * This method creates the worker pool that is used by the EventJournalDispatcher to emit the events of its lanes
+     * in parallel. Every lane is submitted once per batch, so the pool never needs to queue more tasks than lanes.
+     *
+     * @return eventJournalDispatcherExecutor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor eventJournalDispatcherExecutor() {
+        return createExecutor(eventJournalProperties.getDispatchLanes(), eventJournalProperties.getDispatchLanes(), "event-journal-dispatcher-");
+    }
+
+    /**
+     * This method creates a bounded worker pool. If the queue of the pool is full, a task is executed by the calling
+     * thread, so that the caller is slowed down instead of tasks being dropped. Queued tasks are finished on shutdown.
+     *
+     * @param poolSize Number of worker threads
+     * @param queueCapacity Number of tasks that can be queued
+     * @param threadNamePrefix Prefix of the names of the worker threads
+     * @return executor
+     */
+    private ThreadPoolTaskExecutor createExecutor(int poolSize, int queueCapacity, String threadNamePrefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
@@ -0,0 +1,19 @@
+package de.unistuttgart.iaas.faas.quantumservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class represents an entity that is used for importing Environment-Variables for the EventCoalescer
+ */
+@Configuration
+@ConfigurationProperties(prefix = "event-coalescer")
+@Getter
+@Setter
+public class EventCoalescerProperties {
+    private long flushInterval = 100;
+    private long retryDelay = 1000;
+    private int maxAttempts = 10;
+}
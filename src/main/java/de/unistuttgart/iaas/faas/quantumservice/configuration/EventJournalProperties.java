@@ -0,0 +1,22 @@
+package de.unistuttgart.iaas.faas.quantumservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class represents an entity that is used for importing Environment-Variables for the EventJournal
+ */
+@Configuration
+@ConfigurationProperties(prefix = "event-journal")
+@Getter
+@Setter
+public class EventJournalProperties {
+    private int segmentSize = 67108864;
+    private int maxSegments = 16;
+    private boolean syncOnAppend = false;
+    private int batchSize = 100;
+    private int maxAttempts = 10;
+    private int dispatchLanes = 4;
+}
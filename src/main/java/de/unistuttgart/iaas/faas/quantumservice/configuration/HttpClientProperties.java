@@ -0,0 +1,36 @@
+package de.unistuttgart.iaas.faas.quantumservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class represents an entity that is used for importing Environment-Variables for the HTTP connection pools of
+ * the IBMQ-API and the OpenWhisk-Services
+ */
+@Configuration
+@ConfigurationProperties(prefix = "http-client")
+@Getter
+@Setter
+public class HttpClientProperties {
+    private Pool ibmq = new Pool();
+    // Every OpenWhisk-Service gets its own pool using these settings
+    private Pool openWhisk = new Pool();
+
+    /**
+     * This class contains the settings of a single connection pool.
+     */
+    @Getter
+    @Setter
+    public static class Pool {
+        private int maxConnections = 50;
+        private int maxConnectionsPerRoute = 20;
+        private int connectTimeout = 5000;
+        private int readTimeout = 30000;
+        private int poolAcquireTimeout = 5000;
+        // Used if the server does not send a keep-alive timeout
+        private long keepAlive = 30000;
+        private int validateAfterInactivity = 2000;
+    }
+}
@@ -18,5 +18,11 @@ public class IBMQProperties {
     private String apiHost;
     private String apiToken;
     private String accessToken;
+    // Project jobs are polled in, if the action was not invoked with a hub, group and project
+    private String hub = "ibm-q";
+    private String group = "open";
+    private String project = "main";
     private ZonedDateTime tokenExpiry;
+    private long topologyCacheTtl = 300000;
+    private long topologyRetryDelay = 30000;
 }
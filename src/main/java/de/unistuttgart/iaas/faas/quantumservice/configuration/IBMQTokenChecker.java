@@ -29,9 +29,10 @@ public class IBMQTokenChecker {
     /**
      * This method is executed before any other method within the IBMQClient-class.
      * It checks the IBMQ-Access-Token and if necessary it refreshes the Access-Token using the Api-Token.
+     * The check is synchronized, because the IBMQClient is used concurrently by the JobChecker pool.
      */
     @Before("execution(* de.unistuttgart.iaas.faas.quantumservice.api.IBMQClient.*(..))")
-    public void checkIbmqTokens() {
+    public synchronized void checkIbmqTokens() {
         ZonedDateTime now = ZonedDateTime.now();
         if (Objects.isNull(ibmqProperties.getAccessToken()) || now.isAfter(ibmqProperties.getTokenExpiry())) {
             if (Objects.isNull(ibmqProperties.getApiHost())) {
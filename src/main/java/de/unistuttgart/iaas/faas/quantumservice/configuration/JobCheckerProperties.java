@@ -0,0 +1,27 @@
+package de.unistuttgart.iaas.faas.quantumservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class represents an entity that is used for importing Environment-Variables for the JobChecker
+ */
+@Configuration
+@ConfigurationProperties(prefix = "checker.job")
+@Getter
+@Setter
+public class JobCheckerProperties {
+    private int poolSize = 8;
+    private int queueCapacity = 500;
+    private long sweepTimeout = 60000;
+    private int batchSize = 200;
+    private long leaseDuration = 90000;
+    private long initialPollInterval = 10000;
+    private long maxPollInterval = 600000;
+    private double backoffMultiplier = 2.0;
+    private long runningPollInterval = 2000;
+    private boolean batchStatusEnabled = true;
+    private int statusPageSize = 50;
+}
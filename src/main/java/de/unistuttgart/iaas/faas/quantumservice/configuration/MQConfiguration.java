@@ -1,22 +1,27 @@
 package de.unistuttgart.iaas.faas.quantumservice.configuration;
 
-import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.JMSException;
-import javax.jms.MessageConsumer;
-import javax.jms.Queue;
 import javax.jms.Session;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ibm.mq.jms.MQQueueConnectionFactory;
 import com.ibm.msg.client.wmq.WMQConstants;
+import de.unistuttgart.iaas.faas.quantumservice.messaging.BatchingMessageListenerContainer;
 import de.unistuttgart.iaas.faas.quantumservice.messaging.EventReceiver;
+import de.unistuttgart.iaas.faas.quantumservice.messaging.IdempotencyCache;
+import de.unistuttgart.iaas.faas.quantumservice.messaging.MessageCodec;
 import de.unistuttgart.iaas.faas.quantumservice.service.EventTriggerService;
+import de.unistuttgart.iaas.faas.quantumservice.storage.EventJournal;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jms.connection.CachingConnectionFactory;
+import org.springframework.jms.connection.UserCredentialsConnectionFactoryAdapter;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
 
 /**
  * This class configures IBMs MQ in case it is enabled using values from the application.yml files.
@@ -47,9 +52,11 @@ public class MQConfiguration {
     @Value("${messaging.eventQueue}")
     private String eventQueue;
 
-    private final IBMQProperties ibmqProperties;
     private final EventTriggerService eventTriggerService;
-    private final ObjectMapper objectMapper;
+    private final MessageCodec messageCodec;
+    private final MessagingProperties messagingProperties;
+    private final EventJournal eventJournal;
+    private final MeterRegistry meterRegistry;
 
     /**
      * This method creates a bean of a JMS ConnectionFactory.
@@ -66,59 +73,82 @@ public class MQConfiguration {
         mqQueueConnectionFactory.setChannel(channel);
 
         mqQueueConnectionFactory.setQueueManager(queueManager);
-        return mqQueueConnectionFactory;
-    }
 
-    /**
-     * This method uses a ConnectionFactory to create and start a JMS Connection.
-     *
-     * @param mqQueueConnectionFactory ConnectionFactory that should be used to create a connection.
-     * @return mqConnection MQConnection
-     * @throws JMSException Thrown if some JMS error occurs
-     */
-    @Bean
-    public Connection mqConnection(ConnectionFactory mqQueueConnectionFactory) throws JMSException {
-        Connection connection = mqQueueConnectionFactory.createConnection(user, password);
-        connection.start();
-        return connection;
+        // Read ahead lets the queue manager send non-persistent messages to the consumers before they are requested
+        if (messagingProperties.isReadAhead()) {
+            mqQueueConnectionFactory.setIntProperty(WMQConstants.WMQ_READ_AHEAD_ALLOWED, WMQConstants.WMQ_READ_AHEAD_ALLOWED_ENABLED);
+            mqQueueConnectionFactory.setIntProperty(WMQConstants.WMQ_READ_AHEAD_CLOSE_POLICY, WMQConstants.WMQ_READ_AHEAD_DELIVERALL);
+        }
+        return mqQueueConnectionFactory;
     }
 
     /**
-     * This method uses a JMS Connection to create a JMS Session
+     * This method creates the listener container that consumes the event queue. Every consumer of the container uses
+     * its own session, so events are received by the configured number of concurrent consumers.
+     * If the consumers are transacted, the messages of a consumer are committed in batches after the event journal was
+     * written to the disk. Otherwise every message is acknowledged after the EventReceiver stored its event inside the
+     * event journal. Messages that are delivered again after a failure are dropped by the EventReceiver, if their event
+     * was already stored. If the event journal is full, the consumers are paused until it has capacity again.
+     * By default a single consumer is used, so that the events are stored in the order of the queue and events with the
+     * same key are processed in the order they were published. Storing an event is cheap, while the events are
+     * processed in parallel by the EventJournalDispatcher. If more than one consumer is configured, events that are
+     * published in quick succession may be stored in a different order than they were published.
      *
-     * @param mqConnection Connection that should be used to create the session
-     * @return mqSession MQSession
+     * @return eventListenerContainer BatchingMessageListenerContainer
      * @throws JMSException Thrown if some JMS error occurs
      */
     @Bean
-    public Session mqSession(Connection mqConnection) throws JMSException {
-        return mqConnection.createSession();
+    public DefaultMessageListenerContainer eventListenerContainer() throws JMSException {
+        BatchingMessageListenerContainer container = new BatchingMessageListenerContainer();
+        container.setConnectionFactory(createCredentialsConnectionFactory());
+        container.setDestinationName(eventQueue);
+        container.setPubSubDomain(false);
+        container.setConcurrency(messagingProperties.getConcurrency());
+        container.setCacheLevel(DefaultMessageListenerContainer.CACHE_CONSUMER);
+        container.setMaxMessagesPerTask(messagingProperties.getMaxMessagesPerTask());
+        if (messagingProperties.isTransacted()) {
+            container.setSessionTransacted(true);
+            container.setBatchSize(messagingProperties.getBatchSize());
+            container.setBatchTimeout(messagingProperties.getBatchTimeout());
+            container.setBeforeCommit(eventJournal::flush);
+            // Idle consumers commit their last batch once the receive timeout passed
+            container.setReceiveTimeout(Math.min(messagingProperties.getReceiveTimeout(), messagingProperties.getBatchTimeout()));
+        } else {
+            container.setSessionAcknowledgeMode(Session.CLIENT_ACKNOWLEDGE);
+            container.setReceiveTimeout(messagingProperties.getReceiveTimeout());
+        }
+        container.setResumeCondition(eventJournal::hasCapacity);
+        container.setResumeInterval(messagingProperties.getResumeInterval());
+        EventReceiver eventReceiver = new EventReceiver(eventTriggerService, messageCodec, messagingProperties,
+                new IdempotencyCache(messagingProperties.getDeduplicationCacheSize()), meterRegistry, container::pause);
+        container.setAfterCommit(eventReceiver::commitKeys);
+        container.setAfterRollback(eventReceiver::discardKeys);
+        container.setMessageListener(eventReceiver);
+        return container;
     }
 
     /**
-     * This method uses a JMS Session to create a JMS Queue.
+     * This method creates the ConnectionFactory that is used by the JmsTemplate to send messages. It shares a single
+     * connection and caches sessions and producers, so that sending a message does not open a new connection.
      *
-     * @param mqSession Session that is used to create the queue
-     * @return mqQueue MQQueue
+     * @return cachingConnectionFactory CachingConnectionFactory
      * @throws JMSException Thrown if some JMS error occurs
      */
     @Bean
-    public Queue mqQueue(Session mqSession) throws JMSException {
-        return mqSession.createQueue(eventQueue);
+    @Primary
+    public CachingConnectionFactory cachingConnectionFactory() throws JMSException {
+        CachingConnectionFactory cachingConnectionFactory = new CachingConnectionFactory(createCredentialsConnectionFactory());
+        cachingConnectionFactory.setSessionCacheSize(messagingProperties.getSessionCacheSize());
+        cachingConnectionFactory.setCacheProducers(true);
+        cachingConnectionFactory.setReconnectOnException(true);
+        return cachingConnectionFactory;
     }
 
-    /**
-     * This method creates a JMS MessageConsumer that receives messages from a queue as a Event-Driven Consumer.
-     *
-     * @param mqSession Session that is used to create the message consumer
-     * @param mqQueue Queue that the consumer is listening to
-     * @return mqMessageConsumer MQMessageConsumer
-     * @throws JMSException
-     */
-    @Bean
-    public MessageConsumer mqMessageConsumer(Session mqSession, Queue mqQueue) throws JMSException {
-        MessageConsumer mqMessageConsumer = mqSession.createConsumer(mqQueue);
-        mqMessageConsumer.setMessageListener(new EventReceiver(ibmqProperties, eventTriggerService, objectMapper));
-        return mqMessageConsumer;
+    private ConnectionFactory createCredentialsConnectionFactory() throws JMSException {
+        UserCredentialsConnectionFactoryAdapter connectionFactory = new UserCredentialsConnectionFactoryAdapter();
+        connectionFactory.setTargetConnectionFactory(mqQueueConnectionFactory());
+        connectionFactory.setUsername(user);
+        connectionFactory.setPassword(password);
+        return connectionFactory;
     }
 }
@@ -0,0 +1,34 @@
+package de.unistuttgart.iaas.faas.quantumservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class represents an entity that is used for importing Environment-Variables for the consumers of the event queue
+ */
+@Configuration
+@ConfigurationProperties(prefix = "messaging")
+@Getter
+@Setter
+public class MessagingProperties {
+    // Number of concurrent consumers, either fixed ("4") or scaled between a lower and upper limit ("1-4"). A single
+    // consumer keeps the events in the order of the queue, the events are processed in parallel by the dispatcher.
+    private String concurrency = "1";
+    private int maxMessagesPerTask = 100;
+    private long receiveTimeout = 1000;
+    private boolean readAhead = false;
+    // Transacted consumers commit their messages in batches of the batch size or after the batch timeout
+    private boolean transacted = false;
+    private int batchSize = 50;
+    private long batchTimeout = 500;
+    private int deduplicationCacheSize = 10000;
+    private boolean deduplicateByPayload = false;
+    // Poison messages are dropped if no dead-letter queue is configured
+    private String deadLetterQueue = "";
+    private int maxDeliveries = 5;
+    private int sessionCacheSize = 10;
+    // Interval in which paused consumers check if the event journal has capacity again
+    private long resumeInterval = 1000;
+}
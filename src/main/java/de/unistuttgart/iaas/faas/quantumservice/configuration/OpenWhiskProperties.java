@@ -0,0 +1,20 @@
+package de.unistuttgart.iaas.faas.quantumservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class represents an entity that is used for importing Environment-Variables for the OpenWhisk-Client
+ */
+@Configuration
+@ConfigurationProperties(prefix = "openwhisk")
+@Getter
+@Setter
+public class OpenWhiskProperties {
+    private long blockingTimeout = 10000;
+    private int bulkheadPoolSize = 4;
+    private int bulkheadQueueCapacity = 500;
+    private long fireTimeout = 30000;
+}
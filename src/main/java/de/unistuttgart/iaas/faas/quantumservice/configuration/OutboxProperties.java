@@ -0,0 +1,22 @@
+package de.unistuttgart.iaas.faas.quantumservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class represents an entity that is used for importing Environment-Variables for the OutboxDispatcher
+ */
+@Configuration
+@ConfigurationProperties(prefix = "outbox")
+@Getter
+@Setter
+public class OutboxProperties {
+    private int batchSize = 100;
+    private long leaseDuration = 60000;
+    private long initialRetryDelay = 1000;
+    private long maxRetryDelay = 300000;
+    private double backoffMultiplier = 2.0;
+    private int maxAttempts = 10;
+}
@@ -0,0 +1,20 @@
+package de.unistuttgart.iaas.faas.quantumservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class represents an entity that is used for importing Environment-Variables for the queue size history
+ */
+@Configuration
+@ConfigurationProperties(prefix = "queue-history")
+@Getter
+@Setter
+public class QueueHistoryProperties {
+    private int rawCapacity = 1440;
+    private long aggregationWindow = 3600000;
+    private long trendWindow = 1800000;
+    private long retention = 2592000000L;
+}
@@ -0,0 +1,20 @@
+package de.unistuttgart.iaas.faas.quantumservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class represents an entity that is used for importing Environment-Variables for the QueueSizeChecker
+ */
+@Configuration
+@ConfigurationProperties(prefix = "checker.queue-size")
+@Getter
+@Setter
+public class QueueSizeCheckerProperties {
+    private long leaseDuration = 90000;
+    private int poolSize = 8;
+    private int queueCapacity = 200;
+    private long requestTimeout = 30000;
+}
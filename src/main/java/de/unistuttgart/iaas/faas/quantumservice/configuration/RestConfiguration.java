@@ -1,5 +1,7 @@
 package de.unistuttgart.iaas.faas.quantumservice.configuration;
 
+import de.unistuttgart.iaas.faas.quantumservice.api.HttpClientFactory;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
@@ -8,10 +10,20 @@ import org.springframework.web.client.RestTemplate;
  * This class is responsible for generating spring beans for REST interactions.
  */
 @Configuration
+@RequiredArgsConstructor
 public class RestConfiguration {
 
+    private final HttpClientFactory httpClientFactory;
+    private final HttpClientProperties httpClientProperties;
+
+    /**
+     * This method creates the RestTemplate that is used for the IBMQ-API. It uses its own connection pool, the
+     * OpenWhisk-Services are accessed through the OpenWhiskRestTemplates.
+     *
+     * @return ibmqRestTemplate
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate ibmqRestTemplate() {
+        return httpClientFactory.create("ibmq", httpClientProperties.getIbmq());
     }
 }
@@ -0,0 +1,33 @@
+package de.unistuttgart.iaas.faas.quantumservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class represents an entity that is used for importing Environment-Variables for the ScriptExecutionChecker
+ */
+@Configuration
+@ConfigurationProperties(prefix = "checker.script-execution")
+@Getter
+@Setter
+public class ScriptExecutionCheckerProperties {
+    private int batchSize = 200;
+    private long leaseDuration = 60000;
+    private long pollInterval = 5000;
+    private long callbackFallbackDelay = 15000;
+    private long sweepTimeout = 30000;
+    private long executionTimeout = 3600000;
+    private long expirationInterval = 60000;
+    private long expirationLeaseDuration = 180000;
+    private int poolSize = 8;
+    private int queueCapacity = 500;
+    private int maxConcurrencyPerService = 4;
+    private boolean bulkSyncEnabled = true;
+    private int bulkSyncMinExecutions = 2;
+    private int bulkSyncPageSize = 200;
+    private int bulkSyncMaxPages = 5;
+    private long bulkSyncOverlap = 60000;
+    private long bulkSyncFallbackAge = 300000;
+}
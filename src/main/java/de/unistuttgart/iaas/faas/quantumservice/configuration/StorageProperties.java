@@ -0,0 +1,47 @@
+package de.unistuttgart.iaas.faas.quantumservice.configuration;
+
+import java.nio.file.Paths;
+import java.util.Objects;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class represents an entity that is used for importing Environment-Variables for the BlobStore
+ */
+@Configuration
+@ConfigurationProperties(prefix = "storage")
+@Getter
+@Setter
+public class StorageProperties {
+    private String type = "filesystem";
+    // Directory of the local state of this instance, e.g. the event journal, which must not be shared
+    private String directory = "./data";
+    // Directory of the BlobStore, which must be shared by all instances, e.g. a network volume
+    private String blobDirectory;
+    // Fail at startup if the BlobStore is not the one the other instances use
+    private boolean requireSharedStore = true;
+    private int bufferSize = 65536;
+    private long collectionInterval = 3600000;
+    private long collectionLeaseDuration = 10800000;
+    private long collectionGracePeriod = 86400000;
+    // Moving of job results and logs that earlier versions stored inside the database
+    private long migrationInterval = 60000;
+    private long migrationLeaseDuration = 300000;
+    private int migrationBatchSize = 100;
+
+    /**
+     * This method returns the directory of the BlobStore. If none is configured, the blobs are stored inside the
+     * directory of the instance.
+     *
+     * @return blobDirectory
+     */
+    public String getBlobDirectory() {
+        if (Objects.isNull(blobDirectory) || blobDirectory.isBlank()) {
+            return Paths.get(directory).resolve("blobs").toString();
+        }
+        return blobDirectory;
+    }
+}
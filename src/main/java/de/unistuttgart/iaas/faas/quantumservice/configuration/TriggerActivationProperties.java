@@ -0,0 +1,25 @@
+package de.unistuttgart.iaas.faas.quantumservice.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class represents an entity that is used for importing Environment-Variables for the TriggerActivationResolver
+ */
+@Configuration
+@ConfigurationProperties(prefix = "trigger-activation")
+@Getter
+@Setter
+public class TriggerActivationProperties {
+    private int poolSize = 4;
+    private int queueCapacity = 1000;
+    private long initialRetryDelay = 500;
+    private long maxRetryDelay = 10000;
+    private double backoffMultiplier = 2.0;
+    private int maxAttempts = 10;
+    private long recoveryInterval = 10000;
+    private int recoveryBatchSize = 100;
+    private long shutdownTimeout = 5000;
+}
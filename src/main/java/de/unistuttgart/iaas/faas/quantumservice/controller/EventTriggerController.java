@@ -38,16 +38,16 @@ public class EventTriggerController {
     private final EventTriggerLinkAssembler linkAssembler;
 
     /**
-     * This method handles events that are emitted by external event sources. If fires all appropriate EventTriggers.
+     * This method handles events that are emitted by external event sources. The event is stored inside the event
+     * journal and all appropriate EventTriggers are fired in the background.
      *
      * @param eventPayload EventPayload that is used to filter appropriate EventTriggers and be used as input for the QuantumApplications
      * @return Void
      */
-    @Transactional
     @PostMapping(value = "/emit-event")
     public ResponseEntity<Void> emitEvent(@RequestBody(required = false) EventPayload eventPayload) {
-        service.emitEvent(eventPayload);
-        return new ResponseEntity<>(HttpStatus.OK);
+        service.acceptEvent(eventPayload);
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
     }
 
     /**
@@ -1,15 +1,22 @@
 package de.unistuttgart.iaas.faas.quantumservice.controller;
 
+import java.time.ZonedDateTime;
+import java.util.Objects;
 import java.util.Set;
 
+import de.unistuttgart.iaas.faas.quantumservice.model.dto.queuehistory.QueueHistoryDto;
 import de.unistuttgart.iaas.faas.quantumservice.service.IBMQService;
+import de.unistuttgart.iaas.faas.quantumservice.service.QueueHistoryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -19,6 +26,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class IBMQController {
 
     private final IBMQService service;
+    private final QueueHistoryService queueHistoryService;
 
     /**
      * This REST-Endpoint returns all available IBMQ-Devices.
@@ -30,4 +38,22 @@ public class IBMQController {
     public ResponseEntity<Set<String>> getAvailableIbmqDevices() {
         return new ResponseEntity<>(service.getAvailableIbmqDevices(), HttpStatus.OK);
     }
+
+    /**
+     * This REST-Endpoint returns the queue size history of an IBMQ-Device. It contains the raw queue sizes, the
+     * minimum, maximum and percentiles per aggregation window and the current trend. By default the last 24 hours
+     * are returned.
+     *
+     * @param name Name of the device
+     * @param since Start of the history
+     * @return queueHistory
+     */
+    @GetMapping("/devices/{name}/queue-history")
+    public ResponseEntity<QueueHistoryDto> getQueueHistory(@PathVariable String name,
+                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime since) {
+        if (Objects.isNull(since)) {
+            since = ZonedDateTime.now().minusHours(24);
+        }
+        return new ResponseEntity<>(queueHistoryService.getHistory(name, since), HttpStatus.OK);
+    }
 }
@@ -8,11 +8,14 @@ import de.unistuttgart.iaas.faas.quantumservice.model.dto.JobDto;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobStatus;
 import de.unistuttgart.iaas.faas.quantumservice.service.JobService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Pageable;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -61,6 +64,18 @@ public class JobController {
         return new ResponseEntity<>(linkAssembler.toModel(service.findById(id), JobDto.class), HttpStatus.OK);
     }
 
+    /**
+     * This method streams the result of a specific completed job.
+     *
+     * @param id ID of the job
+     * @return jobResult
+     */
+    @Transactional
+    @GetMapping(value = "/{id}/result", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Resource> getJobResult(@PathVariable UUID id) {
+        return new ResponseEntity<>(new InputStreamResource(service.openJobResult(id)), HttpStatus.OK);
+    }
+
     /**
      * This method returns all jobs of a quantum application.
      *
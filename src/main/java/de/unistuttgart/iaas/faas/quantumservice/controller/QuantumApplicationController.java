@@ -43,6 +43,8 @@ public class QuantumApplicationController {
      * @param name Name of the QuantumApplication
      * @param dockerImage Optional dockerImage name that should be used for execution the function
      * @param notificationAddress Optional notification address to notify some queue when status changes occur (currently not used)
+     * @param notificationContentType Optional content type of the notifications, either application/json (default) or application/cbor
+     * @param blockingInvocation Optional flag to invoke the action blocking and create the Job from its response
      * @param openWhiskServiceName OpenWhiskService Name
      * @return createdQuantumApplication
      */
@@ -52,19 +54,21 @@ public class QuantumApplicationController {
                                                                                        @RequestParam String name,
                                                                                        @RequestParam(required = false) String dockerImage,
                                                                                        @RequestParam(required = false) String notificationAddress,
+                                                                                       @RequestParam(required = false) String notificationContentType,
+                                                                                       @RequestParam(defaultValue = "false") boolean blockingInvocation,
                                                                                        @RequestParam String openWhiskServiceName) {
-        QuantumApplication createdQuantumApplication = service.createQuantumApplication(file, name, dockerImage, notificationAddress, openWhiskServiceName);
+        QuantumApplication createdQuantumApplication = service.createQuantumApplication(file, name, dockerImage, notificationAddress, notificationContentType, blockingInvocation, openWhiskServiceName);
         return new ResponseEntity<>(linkAssembler.toModel(createdQuantumApplication, QuantumApplicationDto.class), HttpStatus.CREATED);
     }
 
     /**
-     * This method invokes a specific quantum application with specific input parameters.
+     * This method invokes a specific quantum application with specific input parameters. It does not run inside a
+     * transaction, so that no database connection is held while a blocking invocation waits for the action.
      *
      * @param name Name of QuantumApplication
      * @param inputParams Parameters to be submitted as input
      * @return Void
      */
-    @Transactional
     @PostMapping(value = "/{name}")
     public ResponseEntity<Void> invokeQuantumApplication(@PathVariable String name, @RequestBody(required = false) Map<String, Object> inputParams) {
         service.invokeQuantumApplication(name, inputParams);
@@ -2,18 +2,27 @@ package de.unistuttgart.iaas.faas.quantumservice.controller;
 
 import java.util.UUID;
 
+import de.unistuttgart.iaas.faas.quantumservice.configuration.CallbackProperties;
 import de.unistuttgart.iaas.faas.quantumservice.hateoas.ScriptExecutionLinkAssembler;
+import de.unistuttgart.iaas.faas.quantumservice.model.dto.ActivationCallbackDto;
 import de.unistuttgart.iaas.faas.quantumservice.model.dto.ScriptExecutionDto;
 import de.unistuttgart.iaas.faas.quantumservice.service.ScriptExecutionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -53,6 +62,34 @@ public class ScriptExecutionController {
         return new ResponseEntity<>(linkAssembler.toModel(service.findById(id), ScriptExecutionDto.class), HttpStatus.OK);
     }
 
+    /**
+     * This method streams the logs of a specific script execution.
+     *
+     * @param id ID of the script execution
+     * @return logs
+     */
+    @Transactional
+    @GetMapping(value = "/{id}/logs", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<Resource> getScriptExecutionLogs(@PathVariable UUID id) {
+        return new ResponseEntity<>(new InputStreamResource(service.openLogs(id)), HttpStatus.OK);
+    }
+
+    /**
+     * This method is called by actions to report the IBMQ-Job they started. The script execution of the activation is
+     * completed and the job is created right away, instead of waiting for the activation to be polled. The action is
+     * authenticated using the callbackToken it received, which it sends in the X-Callback-Token header, so that the
+     * secret does not end up in access logs.
+     *
+     * @param dto Activation-ID of the action and IBMQ-ID of the started job
+     * @param token Secret of the action
+     * @return scriptExecution
+     */
+    @Transactional
+    @PostMapping(value = "/callback")
+    public ResponseEntity<EntityModel<ScriptExecutionDto>> completeScriptExecution(@Validated @RequestBody ActivationCallbackDto dto, @RequestHeader(value = CallbackProperties.TOKEN_HEADER, required = false) String token) {
+        return new ResponseEntity<>(linkAssembler.toModel(service.completeScriptExecutionFromCallback(dto.getActivationId(), dto.getJobId(), token), ScriptExecutionDto.class), HttpStatus.OK);
+    }
+
     /**
      * This method returns all script executions of some OpenWhiskService.
      *
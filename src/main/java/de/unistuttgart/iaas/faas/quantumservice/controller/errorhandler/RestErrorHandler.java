@@ -8,7 +8,9 @@ import java.util.NoSuchElementException;
 
 import de.unistuttgart.iaas.faas.quantumservice.model.exception.BeanUtilsBeanException;
 import de.unistuttgart.iaas.faas.quantumservice.model.exception.ElementAlreadyExistsException;
+import de.unistuttgart.iaas.faas.quantumservice.model.exception.InvalidCallbackTokenException;
 import de.unistuttgart.iaas.faas.quantumservice.model.exception.InvalidInputException;
+import de.unistuttgart.iaas.faas.quantumservice.model.exception.JournalFullException;
 import de.unistuttgart.iaas.faas.quantumservice.model.exception.OpenWhiskException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -73,4 +75,14 @@ public class RestErrorHandler {
     public ResponseEntity<String> handleOpenWhiskException(OpenWhiskException e) {
         return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
     }
+
+    @ExceptionHandler(InvalidCallbackTokenException.class)
+    public ResponseEntity<String> handleInvalidCallbackTokenException(InvalidCallbackTokenException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.FORBIDDEN);
+    }
+
+    @ExceptionHandler(JournalFullException.class)
+    public ResponseEntity<String> handleJournalFullException(JournalFullException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
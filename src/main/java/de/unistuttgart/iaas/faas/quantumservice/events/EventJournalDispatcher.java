@@ -0,0 +1,214 @@
+package de.unistuttgart.iaas.faas.quantumservice.events;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.annotation.PostConstruct;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.EventJournalProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventPayload;
+import de.unistuttgart.iaas.faas.quantumservice.model.exception.TriggerFiringException;
+import de.unistuttgart.iaas.faas.quantumservice.service.EventCoalescer;
+import de.unistuttgart.iaas.faas.quantumservice.service.EventTriggerService;
+import de.unistuttgart.iaas.faas.quantumservice.storage.EventJournal;
+import de.unistuttgart.iaas.faas.quantumservice.storage.JournalEntry;
+import de.unistuttgart.iaas.faas.quantumservice.storage.JournalPosition;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class is responsible for processing the events of the EventJournal. Events are distributed to a fixed number of
+ * lanes by their key, i.e. the device, the quantum application or the trigger they refer to. The lanes are processed
+ * in parallel, while the events of a lane are processed in the order they were accepted. The checkpoint of the journal
+ * is only moved behind processed events, so every event is processed at least once, also if the service is restarted.
+ * Events that were collected by the EventCoalescer are persisted by it before the checkpoint is moved behind them.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EventJournalDispatcher {
+
+    private final EventJournal eventJournal;
+    private final EventTriggerService eventTriggerService;
+    private final EventCoalescer eventCoalescer;
+    private final EventJournalProperties properties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolTaskExecutor eventJournalDispatcherExecutor;
+
+    // Number of failed attempts to process the oldest unprocessed event
+    private int failedAttempts;
+    private JournalPosition failedPosition;
+
+    // Events behind the checkpoint that were already processed, so that they are not emitted again
+    private Set<JournalPosition> processedAhead = new HashSet<>();
+
+    // Triggers that could not be fired for an event, so that only these are fired when the event is retried
+    private final Map<JournalPosition, Set<String>> pendingTriggers = new ConcurrentHashMap<>();
+
+    /**
+     * This method registers the gauge that shows the number of bytes that were accepted but not yet processed.
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        meterRegistry.gauge("quantumservice.eventjournal.backlog", eventJournal, EventJournal::getBacklog);
+    }
+
+    /**
+     * This scheduled method is repeatedly executed in process that is running in the background.
+     * It reads a batch of unprocessed events from the journal and emits the events of each lane one after another. If
+     * an event can not be emitted, its lane is stopped and the event is retried during the next run. Events that still
+     * fail after the maximum number of attempts are skipped. The checkpoint is moved behind the events that were
+     * processed without a gap, events of other lanes that were processed behind it are remembered and not emitted again.
+     */
+    @Scheduled(initialDelay = 10000, fixedDelayString = "${eventJournal.dispatchDelay:200}")
+    public synchronized void dispatchEvents() {
+        if (!properties.isSyncOnAppend()) {
+            eventJournal.flush();
+        }
+        List<JournalEntry> entries = eventJournal.read(properties.getBatchSize());
+        boolean[] processed = new boolean[entries.size()];
+
+        // Distribute the events to the lanes by their key
+        List<List<Integer>> lanes = new ArrayList<>();
+        for (int i = 0; i < properties.getDispatchLanes(); i++) {
+            lanes.add(new ArrayList<>());
+        }
+        EventPayload[] eventPayloads = new EventPayload[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            if (processedAhead.contains(entries.get(i).getNext())) {
+                processed[i] = true;
+                continue;
+            }
+            try {
+                eventPayloads[i] = objectMapper.readValue(entries.get(i).getPayload(), EventPayload.class);
+            } catch (IOException e) {
+                log.error("Skipping event journal entry that could not be read!", e);
+                meterRegistry.counter("quantumservice.eventjournal.dispatch", "outcome", "unreadable").increment();
+                processed[i] = true;
+                continue;
+            }
+            lanes.get(Math.floorMod(getKey(eventPayloads[i]).hashCode(), lanes.size())).add(i);
+        }
+
+        // Emit the events of all lanes in parallel
+        List<Future<?>> tasks = new ArrayList<>();
+        for (List<Integer> lane : lanes) {
+            if (!lane.isEmpty()) {
+                tasks.add(eventJournalDispatcherExecutor.submit(() -> emitEvents(lane, entries, eventPayloads, processed)));
+            }
+        }
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                log.error("Something went wrong emitting events from the journal!", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        // Events that were collected for coalescing triggers must be persisted before the checkpoint is moved behind them
+        eventCoalescer.persist();
+
+        // Move the checkpoint behind the events that were processed without a gap
+        JournalPosition checkpoint = null;
+        int next = 0;
+        while (next < entries.size()) {
+            if (!processed[next]) {
+                if (!entries.get(next).getNext().equals(failedPosition)) {
+                    failedPosition = entries.get(next).getNext();
+                    failedAttempts = 0;
+                }
+                if (++failedAttempts < properties.getMaxAttempts()) {
+                    log.warn("Emitting event from the journal failed and is retried ({} attempts)", failedAttempts);
+                    break;
+                }
+                log.error("Skipping event of type {} after {} failed attempts!", eventPayloads[next].getEventType(), failedAttempts);
+                meterRegistry.counter("quantumservice.eventjournal.dispatch", "outcome", "abandoned").increment();
+            }
+            checkpoint = entries.get(next).getNext();
+            next++;
+        }
+        Set<JournalPosition> newProcessedAhead = new HashSet<>();
+        Set<JournalPosition> remaining = new HashSet<>();
+        for (int i = next; i < entries.size(); i++) {
+            remaining.add(entries.get(i).getNext());
+            if (processed[i]) {
+                newProcessedAhead.add(entries.get(i).getNext());
+            }
+        }
+        processedAhead = newProcessedAhead;
+        pendingTriggers.keySet().retainAll(remaining);
+        if (checkpoint != null) {
+            eventJournal.commit(checkpoint);
+        }
+    }
+
+    /**
+     * This method emits the events of a lane one after another. If an event can not be emitted, the remaining events of
+     * the lane are not emitted, so that the order of the events is kept. If only some triggers of an event could not be
+     * fired, only these triggers are fired when the event is retried.
+     *
+     * @param lane Indexes of the events of the lane
+     * @param entries Journal entries of the batch
+     * @param eventPayloads Events of the batch
+     * @param processed Flags that are set for the emitted events
+     */
+    private void emitEvents(List<Integer> lane, List<JournalEntry> entries, EventPayload[] eventPayloads, boolean[] processed) {
+        for (int i : lane) {
+            JournalPosition position = entries.get(i).getNext();
+            try {
+                eventTriggerService.emitEvent(eventPayloads[i], pendingTriggers.get(position));
+                meterRegistry.counter("quantumservice.eventjournal.dispatch", "outcome", "success").increment();
+                pendingTriggers.remove(position);
+                processed[i] = true;
+            } catch (TriggerFiringException e) {
+                log.warn("Emitting event of type {} from the journal failed: {}", eventPayloads[i].getEventType(), e.getMessage());
+                meterRegistry.counter("quantumservice.eventjournal.dispatch", "outcome", "failure").increment();
+                pendingTriggers.put(position, e.getFailedTriggerNames());
+                return;
+            } catch (Exception e) {
+                log.warn("Emitting event of type {} from the journal failed", eventPayloads[i].getEventType(), e);
+                meterRegistry.counter("quantumservice.eventjournal.dispatch", "outcome", "failure").increment();
+                return;
+            }
+        }
+    }
+
+    /**
+     * This method returns the key of an event. Events with the same key are processed in the order they were accepted.
+     *
+     * @param eventPayload Event
+     * @return key
+     */
+    private String getKey(EventPayload eventPayload) {
+        if (Objects.isNull(eventPayload.getEventType())) {
+            return "";
+        }
+        switch (eventPayload.getEventType()) {
+            case QUEUE_SIZE:
+                return "device:" + eventPayload.getEventPayloadProperties().get("device");
+            case EXECUTION_RESULT:
+                return "application:" + eventPayload.getAdditionalProperties().get("quantumApplicationName");
+            case BASIC:
+                return "trigger:" + eventPayload.getAdditionalProperties().get("triggerName");
+            default:
+                return eventPayload.getEventType().name();
+        }
+    }
+}
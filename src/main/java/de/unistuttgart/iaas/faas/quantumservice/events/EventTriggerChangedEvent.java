@@ -0,0 +1,15 @@
+package de.unistuttgart.iaas.faas.quantumservice.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * This class represents the application event that is published when an event trigger was created, changed or deleted.
+ * It allows to update the EventTriggerIndex once the change was committed.
+ */
+@Getter
+@AllArgsConstructor
+public class EventTriggerChangedEvent {
+
+    private final String name;
+}
@@ -1,19 +1,36 @@
 package de.unistuttgart.iaas.faas.quantumservice.events;
 
-import java.util.Set;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import de.unistuttgart.iaas.faas.quantumservice.api.IBMQClient;
-import de.unistuttgart.iaas.faas.quantumservice.api.OpenWhiskClient;
-import de.unistuttgart.iaas.faas.quantumservice.messaging.JobStatusChangedSender;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.IBMQProperties;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.JobCheckerProperties;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.Job;
-import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobRepository;
-import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobStatus;
 import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.IBMQJob;
+import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.IBMQJobFilter;
+import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.IBMQProject;
+import de.unistuttgart.iaas.faas.quantumservice.service.JobService;
+import de.unistuttgart.iaas.faas.quantumservice.service.LeaseService;
+import de.unistuttgart.iaas.faas.quantumservice.storage.BlobReference;
+import de.unistuttgart.iaas.faas.quantumservice.storage.BlobStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 /**
  * This class is responsible for polling the IBMQ-REST-API and gather Job data.
@@ -24,41 +41,192 @@ import org.springframework.transaction.annotation.Transactional;
 public class JobChecker {
 
     private final IBMQClient ibmqClient;
-    private final OpenWhiskClient openWhiskClient;
-    private final JobRepository jobRepository;
-    private final JobStatusChangedSender jobStatusChangedSender;
+    private final JobService jobService;
+    private final LeaseService leaseService;
+    private final BlobStore blobStore;
+    private final ThreadPoolTaskExecutor jobCheckerExecutor;
+    private final JobCheckerProperties properties;
+    private final IBMQProperties ibmqProperties;
+    private final MeterRegistry meterRegistry;
 
     /**
      * This scheduled method is repeatedly executed in process that is running in the background.
+     * Only jobs whose next poll time is due are checked. The jobs are claimed in batches using a lease, so that multiple
+     * instances of the service can share the work. The state of all claimed jobs is first retrieved with a few requests
+     * to the jobs list of the IBMQ-API. Jobs whose details or results are needed are afterwards polled concurrently using
+     * the bounded job checker pool. The polled data is written back using a short transaction for every single job.
      */
-    @Transactional
-    @Scheduled(initialDelay = 10000, fixedDelay = 10000)
+    @Scheduled(initialDelay = 10000, fixedDelayString = "${checker.job.sweepDelay:2000}")
     public void checkRunningJobs() {
-        // Retrieve all running jobs from the database
-        Set<Job> runningJobs = jobRepository.findRunningJobs();
-        log.info("Checking " + runningJobs.size() + " running jobs...");
-        // For each running job
+        Timer.Sample sweep = Timer.start(meterRegistry);
+        // Claim a batch of running jobs that are due for polling from the database
+        List<Job> runningJobs = leaseService.claimJobsDueForPoll(properties.getBatchSize(), Duration.ofMillis(properties.getLeaseDuration()));
+        log.debug("Checking " + runningJobs.size() + " running jobs...");
+        long deadline = System.currentTimeMillis() + properties.getSweepTimeout();
+
+        // Retrieve the state of all running jobs using the jobs list
+        Map<String, IBMQJob> listedJobs = properties.isBatchStatusEnabled() ? listJobs(runningJobs, deadline) : new HashMap<>();
+
+        // Poll details and results of each running job from IBMQ using the worker pool, if necessary
+        Map<UUID, Future<JobPollResult>> polls = new LinkedHashMap<>();
+        for (Job runningJob : runningJobs) {
+            IBMQProject project = getProject(runningJob);
+            String ibmqId = runningJob.getIbmqId();
+            String knownStatus = runningJob.getStatus().name();
+            IBMQJob listedJob = listedJobs.get(ibmqId);
+            polls.put(runningJob.getId(), jobCheckerExecutor.submit(() -> pollJob(project, ibmqId, knownStatus, listedJob)));
+        }
+
+        // Collect the polled data and update each job inside its own transaction
+        for (Map.Entry<UUID, Future<JobPollResult>> poll : polls.entrySet()) {
+            try {
+                JobPollResult pollResult = poll.getValue().get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                jobService.updateJob(poll.getKey(), pollResult.getIbmqJob(), pollResult.getResult());
+            } catch (TimeoutException e) {
+                poll.getValue().cancel(true);
+                log.warn("Polling job '{}' did not finish within the sweep timeout and is retried later on", poll.getKey());
+                deferFailedPoll(poll.getKey());
+            } catch (ExecutionException e) {
+                log.error("Something went wrong polling job '{}' from the IBMQ-API!", poll.getKey(), e.getCause());
+                deferFailedPoll(poll.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Something went wrong updating job '{}'!", poll.getKey(), e);
+                deferFailedPoll(poll.getKey());
+            }
+        }
+        sweep.stop(meterRegistry.timer("quantumservice.jobchecker.sweep"));
+    }
+
+    // This method backs the next poll of a job off, if this fails the job is polled again once its lease expired
+    private void deferFailedPoll(UUID id) {
+        try {
+            jobService.deferFailedPoll(id);
+        } catch (Exception e) {
+            log.warn("Could not defer the next poll of job '{}'", id, e);
+        }
+    }
+
+    /**
+     * This method polls a newly created job right away on the job checker pool, once the transaction that created the
+     * job was committed. If the job can not be polled now, it is polled during the next sweep.
+     *
+     * @param event Event containing the ID of the created job
+     */
+    @TransactionalEventListener
+    public void pollCreatedJob(JobCreatedEvent event) {
+        jobCheckerExecutor.execute(() -> {
+            try {
+                leaseService.claimJob(event.getJobId(), Duration.ofMillis(properties.getLeaseDuration())).ifPresent(job -> {
+                    JobPollResult pollResult = pollJob(getProject(job), job.getIbmqId(), job.getStatus().name(), null);
+                    jobService.updateJob(job.getId(), pollResult.getIbmqJob(), pollResult.getResult());
+                });
+            } catch (Exception e) {
+                log.warn("Polling created job '{}' failed, it is polled during the next sweep", event.getJobId(), e);
+            }
+        });
+    }
+
+    /**
+     * This method retrieves the state of the given jobs from the jobs list of the IBMQ-API. The jobs are grouped by the
+     * project they were started in and the job ids of each project are split into pages, which are requested
+     * concurrently. Jobs of pages that could not be retrieved are missing in the returned map
+     * and are therefore polled one by one.
+     *
+     * @param runningJobs jobs whose state should be retrieved
+     * @param deadline Time until the pages must be retrieved
+     * @return listedJobs Listed IBMQ-Jobs by their IBMQ-ID
+     */
+    private Map<String, IBMQJob> listJobs(List<Job> runningJobs, long deadline) {
+        Map<IBMQProject, List<String>> ibmqIdsByProject = new LinkedHashMap<>();
         for (Job runningJob : runningJobs) {
-            // Poll data from IBMQ
-            IBMQJob ibmqJob = ibmqClient.getJob("ibm-q", "open", "main", runningJob.getIbmqId());
-            // Update Status + StatusDetails and other data
-            runningJob.setStatus(JobStatus.valueOf(ibmqJob.getStatus()));
-            runningJob.setStatusDetails(ibmqJob.getTimePerStep());
-            runningJob.setCreationDate(ibmqJob.getCreationDate());
-
-            // If execution completed
-            if (ibmqJob.getStatus().equals("COMPLETED")) {
-                // Retrieve Job-Result from IBMQ and add it with other information to existing job
-                runningJob.setEndDate(ibmqJob.getEndDate());
-                runningJob.setResult(ibmqClient.getJobResult("ibm-q", "open", "main", runningJob.getIbmqId()));
-                runningJob.setSuccess(ibmqJob.getSummaryData().getSuccess());
+            ibmqIdsByProject.computeIfAbsent(getProject(runningJob), project -> new ArrayList<>()).add(runningJob.getIbmqId());
+        }
+
+        List<Future<List<IBMQJob>>> pages = new ArrayList<>();
+        for (Map.Entry<IBMQProject, List<String>> projectIbmqIds : ibmqIdsByProject.entrySet()) {
+            IBMQProject project = projectIbmqIds.getKey();
+            List<String> allIbmqIds = projectIbmqIds.getValue();
+            for (int i = 0; i < allIbmqIds.size(); i += properties.getStatusPageSize()) {
+                List<String> ibmqIds = new ArrayList<>(allIbmqIds.subList(i, Math.min(i + properties.getStatusPageSize(), allIbmqIds.size())));
+                IBMQJobFilter filter = new IBMQJobFilter();
+                filter.setIds(ibmqIds);
+                filter.setLimit(ibmqIds.size());
+                pages.add(jobCheckerExecutor.submit(() -> meterRegistry.timer("quantumservice.ibmq.call", "operation", "getJobs")
+                        .recordCallable(() -> ibmqClient.getJobs(project.getHub(), project.getGroup(), project.getProject(), filter))));
             }
+        }
 
-            // Send job status changed event
-            jobStatusChangedSender.sendJobStatusReachedEvent(runningJob);
+        Map<String, IBMQJob> listedJobs = new HashMap<>();
+        for (Future<List<IBMQJob>> page : pages) {
+            try {
+                for (IBMQJob listedJob : page.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+                    listedJobs.put(listedJob.getId(), listedJob);
+                }
+            } catch (TimeoutException e) {
+                page.cancel(true);
+                log.warn("Listing jobs did not finish within the sweep timeout, the jobs are polled one by one");
+            } catch (ExecutionException e) {
+                log.error("Something went wrong listing jobs from the IBMQ-API, the jobs are polled one by one", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return listedJobs;
+    }
 
-            // Update job in database
-            jobRepository.save(runningJob);
+    /**
+     * This method polls the current state of a job from the IBMQ-API. If the job was found in the jobs list and its
+     * status did not change, the listed data is used without requesting the job itself. If the job is completed, its
+     * result is also streamed into the BlobStore.
+     *
+     * @param project Project the job was started in
+     * @param ibmqId IBMQ-ID of the job
+     * @param knownStatus Status of the job that is stored in the database
+     * @param listedJob Job taken from the jobs list or null if the job was not listed
+     * @return jobPollResult
+     */
+    private JobPollResult pollJob(IBMQProject project, String ibmqId, String knownStatus, IBMQJob listedJob) {
+        IBMQJob ibmqJob = listedJob;
+        if (ibmqJob == null || requiresDetails(ibmqJob, knownStatus)) {
+            ibmqJob = meterRegistry.timer("quantumservice.ibmq.call", "operation", "getJob")
+                    .record(() -> ibmqClient.getJob(project.getHub(), project.getGroup(), project.getProject(), ibmqId));
+        }
+        BlobReference result = null;
+        if (ibmqJob.getStatus().equals("COMPLETED")) {
+            result = meterRegistry.timer("quantumservice.ibmq.call", "operation", "downloadJobResult")
+                    .record(() -> ibmqClient.downloadJobResult(project.getHub(), project.getGroup(), project.getProject(), ibmqId, response -> blobStore.put(response.getBody())));
+        }
+        return new JobPollResult(ibmqJob, result);
+    }
+
+    /**
+     * This method returns the project a job was started in. Jobs that were created before the project was stored
+     * belong to the configured default project.
+     *
+     * @param job Job
+     * @return project
+     */
+    private IBMQProject getProject(Job job) {
+        if (job.getIbmqHub() == null || job.getIbmqGroup() == null || job.getIbmqProject() == null) {
+            return new IBMQProject(ibmqProperties.getHub(), ibmqProperties.getGroup(), ibmqProperties.getProject());
+        }
+        return new IBMQProject(job.getIbmqHub(), job.getIbmqGroup(), job.getIbmqProject());
+    }
+
+    /**
+     * This method checks if the data of a listed job is sufficient to update the job. If the status changed, the
+     * status details and the summary of completed jobs are required, which are not always part of the jobs list.
+     *
+     * @return requiresDetails true if the job must be requested itself
+     */
+    private boolean requiresDetails(IBMQJob listedJob, String knownStatus) {
+        if (listedJob.getStatus().equals(knownStatus)) {
+            return false;
         }
+        return listedJob.getTimePerStep() == null || (listedJob.getStatus().equals("COMPLETED") && listedJob.getSummaryData() == null);
     }
 }
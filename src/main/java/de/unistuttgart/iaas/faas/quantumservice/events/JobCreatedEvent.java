@@ -0,0 +1,17 @@
+package de.unistuttgart.iaas.faas.quantumservice.events;
+
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * This class represents the application event that is published when a new job was created. It allows to poll the job
+ * right away instead of waiting for the next sweep of the JobChecker.
+ */
+@Getter
+@AllArgsConstructor
+public class JobCreatedEvent {
+
+    private final UUID jobId;
+}
@@ -0,0 +1,17 @@
+package de.unistuttgart.iaas.faas.quantumservice.events;
+
+import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.IBMQJob;
+import de.unistuttgart.iaas.faas.quantumservice.storage.BlobReference;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * This class holds the data that was polled from the IBMQ-API for a single running job.
+ */
+@Getter
+@AllArgsConstructor
+public class JobPollResult {
+
+    private final IBMQJob ibmqJob;
+    private final BlobReference result;
+}
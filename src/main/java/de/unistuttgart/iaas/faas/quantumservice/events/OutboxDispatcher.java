@@ -0,0 +1,93 @@
+package de.unistuttgart.iaas.faas.quantumservice.events;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.OutboxProperties;
+import de.unistuttgart.iaas.faas.quantumservice.messaging.JobStatusChangedSender;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox.OutboxMessage;
+import de.unistuttgart.iaas.faas.quantumservice.service.LeaseService;
+import de.unistuttgart.iaas.faas.quantumservice.service.OutboxService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class is responsible for delivering the messages of the outbox. Delivery happens outside of the transactions
+ * that wrote the messages, so that a slow broker or a slow OpenWhisk does not stall the JobChecker.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxDispatcher {
+
+    private final JobStatusChangedSender jobStatusChangedSender;
+    private final OutboxService outboxService;
+    private final LeaseService leaseService;
+    private final OutboxProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong pendingMessages = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    /**
+     * This method registers the gauges that show the number of pending messages and the age of the oldest one.
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        meterRegistry.gauge("quantumservice.outbox.pending", pendingMessages);
+        meterRegistry.gauge("quantumservice.outbox.lag", lagMillis);
+    }
+
+    /**
+     * This scheduled method is repeatedly executed in process that is running in the background.
+     * It claims a batch of due outbox messages, delivers them together and writes the outcome of the whole batch back
+     * inside one transaction. Failed messages are retried with an exponential backoff.
+     */
+    @Scheduled(initialDelay = 10000, fixedDelayString = "${outbox.dispatchDelay:1000}")
+    public void dispatchOutboxMessages() {
+        List<OutboxMessage> outboxMessages = leaseService.claimDueOutboxMessages(properties.getBatchSize(), Duration.ofMillis(properties.getLeaseDuration()));
+        List<OutboxMessage> delivered = new ArrayList<>();
+        List<OutboxMessage> failed = new ArrayList<>();
+        Timer.Sample delivery = Timer.start(meterRegistry);
+        Map<UUID, Exception> failures = outboxMessages.isEmpty() ? Collections.emptyMap() : jobStatusChangedSender.deliver(outboxMessages);
+        long deliveryNanos = delivery.stop(meterRegistry.timer("quantumservice.outbox.batch"));
+        for (OutboxMessage outboxMessage : outboxMessages) {
+            // Messages of a batch are delivered together, so each of them took the time of the whole batch
+            Exception e = failures.get(outboxMessage.getId());
+            if (Objects.isNull(e)) {
+                meterRegistry.timer("quantumservice.outbox.delivery", "type", outboxMessage.getType().name(), "outcome", "success").record(deliveryNanos, TimeUnit.NANOSECONDS);
+                meterRegistry.timer("quantumservice.outbox.delivery.lag", "type", outboxMessage.getType().name())
+                        .record(Duration.between(outboxMessage.getCreatedAt(), ZonedDateTime.now()).toMillis(), TimeUnit.MILLISECONDS);
+                delivered.add(outboxMessage);
+            } else {
+                meterRegistry.timer("quantumservice.outbox.delivery", "type", outboxMessage.getType().name(), "outcome", "failure").record(deliveryNanos, TimeUnit.NANOSECONDS);
+                log.warn("Delivering outbox message '{}' failed and is retried later", outboxMessage.getId(), e);
+                String error = String.valueOf(e.getMessage());
+                outboxMessage.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+                failed.add(outboxMessage);
+            }
+        }
+        if (!outboxMessages.isEmpty()) {
+            outboxService.completeDispatch(delivered, failed);
+        }
+
+        // Update the lag metrics
+        pendingMessages.set(outboxService.countPending());
+        ZonedDateTime oldestCreatedAt = outboxService.findOldestPendingCreatedAt();
+        lagMillis.set(Objects.isNull(oldestCreatedAt) ? 0 : Duration.between(oldestCreatedAt, ZonedDateTime.now()).toMillis());
+    }
+}
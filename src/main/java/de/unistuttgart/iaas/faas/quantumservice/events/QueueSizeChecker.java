@@ -1,23 +1,33 @@
 package de.unistuttgart.iaas.faas.quantumservice.events;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import de.unistuttgart.iaas.faas.quantumservice.configuration.QueueSizeCheckerProperties;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventPayload;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventType;
 import de.unistuttgart.iaas.faas.quantumservice.model.exception.OpenWhiskException;
-import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.Device;
-import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.Group;
-import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.Hub;
-import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.Project;
+import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.DeviceLocation;
 import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.QueueStatus;
 import de.unistuttgart.iaas.faas.quantumservice.service.EventTriggerService;
+import de.unistuttgart.iaas.faas.quantumservice.service.IBMQService;
+import de.unistuttgart.iaas.faas.quantumservice.service.LeaseService;
+import de.unistuttgart.iaas.faas.quantumservice.service.QueueHistoryService;
 import de.unistuttgart.iaas.faas.quantumservice.api.IBMQClient;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 /**
  * This class is responsible for generating QueueSizeEvents by collecting data from the IBMQ-REST-API.
@@ -28,46 +38,81 @@ import org.springframework.transaction.annotation.Transactional;
 public class QueueSizeChecker {
 
     private final IBMQClient ibmqClient;
+    private final IBMQService ibmqService;
     private final EventTriggerService triggerService;
+    private final LeaseService leaseService;
+    private final QueueHistoryService queueHistoryService;
+    private final ThreadPoolTaskExecutor queueSizeCheckerExecutor;
+    private final QueueSizeCheckerProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    // True if this instance was the leader during the last iteration
+    private volatile boolean leader;
 
     /**
      * This scheduled method is repeatedly executed in process that is running in the background.
+     * Only the service instance that holds the leader lease of this task gathers queue sizes and emits events.
+     * The devices are taken from the cached network topology and their queue status is requested in parallel using
+     * the bounded queue size checker pool. A failure of a single device does not affect the other devices.
      */
-    @Transactional
     @Scheduled(initialDelay = 30000, fixedDelay = 60000)
     public void gatherQueueSizeData() {
+        List<DeviceLocation> deviceLocations;
         try {
-            List<Hub> hubs = ibmqClient.getNetworks();
-            // Get Devices and their Queue-Status
-            for (Hub hub : hubs) {
-                String hubName = hub.getName();
-                for (Group group : hub.getGroups().values()) {
-                    String groupName = group.getName();
-                    for (Project project : group.getProjects().values()) {
-                        String projectName = project.getName();
-                        for (Device device : project.getDevices().values()) {
-                            String deviceName = device.getName();
-                            // Get QueueStatus of device
-                            QueueStatus queueStatus = ibmqClient.getQueueStatus(deviceName, hubName, groupName, projectName);
-                            // Generate payload for event
-                            EventPayload payload = new EventPayload();
-                            payload.setEventType(EventType.QUEUE_SIZE);
-                            // Add data to trigger payload
-                            // payload.addEventPayloadProperties("apiToken", ibmqProperties.getApiToken());
-                            payload.addEventPayloadProperties("device", deviceName);
-                            // Add further data
-                            payload.addAdditionalProperty("queueSize", queueStatus.getLengthQueue());
-                            // Fire event by calling appropriate OpenWhisk-Triggers on some OpenWhisk-Service
-                            triggerService.emitEvent(payload);
-                        }
-                    }
+            if (!leaseService.acquireLeadership("queue-size-checker", Duration.ofMillis(properties.getLeaseDuration()))) {
+                log.debug("Skipping QueueSize-Polling-Iteration, because another instance is the leader");
+                if (leader) {
+                    // The windows recorded so far are stored, so that the new leader continues them
+                    leader = false;
+                    queueHistoryService.flushOpenWindows();
                 }
+                return;
             }
-            log.info("QueueSize-Polling-Iteration ended at {}", ZonedDateTime.now());
-        } catch (OpenWhiskException e) {
-            log.warn("OpenWhisk error occurred! Maybe some trigger was invoked that does not have any registered actions");
+            leader = true;
+            deviceLocations = ibmqService.getDeviceLocations();
         } catch (Exception e) {
             log.error("Something went wrong accessing the IBMQ-API!", e);
+            return;
+        }
+
+        // Get Queue-Status of all devices in parallel
+        Map<DeviceLocation, Future<QueueStatus>> queueStatuses = new LinkedHashMap<>();
+        for (DeviceLocation deviceLocation : deviceLocations) {
+            queueStatuses.put(deviceLocation, queueSizeCheckerExecutor.submit(() -> meterRegistry.timer("quantumservice.ibmq.call", "operation", "getQueueStatus")
+                    .record(() -> ibmqClient.getQueueStatus(deviceLocation.getDevice(), deviceLocation.getHub(), deviceLocation.getGroup(), deviceLocation.getProject()))));
+        }
+
+        long deadline = System.currentTimeMillis() + properties.getRequestTimeout();
+        for (Map.Entry<DeviceLocation, Future<QueueStatus>> queueStatus : queueStatuses.entrySet()) {
+            String deviceName = queueStatus.getKey().getDevice();
+            try {
+                QueueStatus status = queueStatus.getValue().get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if (!Objects.isNull(status.getLengthQueue())) {
+                    queueHistoryService.record(deviceName, status.getLengthQueue());
+                }
+                // Generate payload for event
+                EventPayload payload = new EventPayload();
+                payload.setEventType(EventType.QUEUE_SIZE);
+                // Add data to trigger payload
+                payload.addEventPayloadProperties("device", deviceName);
+                // Add further data
+                payload.addAdditionalProperty("queueSize", status.getLengthQueue());
+                // Fire event by calling appropriate OpenWhisk-Triggers on some OpenWhisk-Service
+                triggerService.emitEvent(payload);
+            } catch (TimeoutException e) {
+                queueStatus.getValue().cancel(true);
+                log.warn("Requesting the queue status of device '{}' did not finish in time", deviceName);
+            } catch (ExecutionException e) {
+                log.error("Something went wrong requesting the queue status of device '{}' from the IBMQ-API!", deviceName, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (OpenWhiskException e) {
+                log.warn("OpenWhisk error occurred for device '{}'! Maybe some trigger was invoked that does not have any registered actions", deviceName);
+            } catch (Exception e) {
+                log.error("Something went wrong emitting the queue size event of device '{}'!", deviceName, e);
+            }
         }
+        log.info("QueueSize-Polling-Iteration ended at {}", ZonedDateTime.now());
     }
 }
@@ -1,27 +1,34 @@
 package de.unistuttgart.iaas.faas.quantumservice.events;
 
-import java.time.Instant;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import de.unistuttgart.iaas.faas.quantumservice.api.OpenWhiskClient;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.CallbackProperties;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.ScriptExecutionCheckerProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.openwhiskservice.OpenWhiskService;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution.ScriptExecution;
-import de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution.ScriptExecutionRepository;
-import de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution.ExecutionResult;
-import de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution.ExecutionStatus;
-import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.Job;
-import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobRepository;
-import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobStatus;
 import de.unistuttgart.iaas.faas.quantumservice.model.openwhisk.OpenWhiskActivation;
-import de.unistuttgart.iaas.faas.quantumservice.utils.ModelMapperUtils;
+import de.unistuttgart.iaas.faas.quantumservice.service.LeaseService;
+import de.unistuttgart.iaas.faas.quantumservice.service.ScriptExecutionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.json.JSONObject;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 /**
  * This class is responsible for polling the OpenWhisk-REST-API and gather Activation data to update existing ScriptExecutions.
@@ -31,55 +38,235 @@ import org.springframework.transaction.annotation.Transactional;
 @Slf4j
 public class ScriptExecutionChecker {
 
-    private final ScriptExecutionRepository repository;
-    private final JobRepository jobRepository;
     private final OpenWhiskClient openWhiskClient;
+    private final ScriptExecutionService scriptExecutionService;
+    private final LeaseService leaseService;
+    private final ThreadPoolTaskExecutor scriptExecutionCheckerExecutor;
+    private final ScriptExecutionCheckerProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final CallbackProperties callbackProperties;
 
     /**
      * This scheduled method is repeatedly executed in process that is running in the background.
+     * Only the service instance that holds the leader lease of this task moves running script executions that
+     * exceeded the execution timeout into the TIMEOUT state.
      */
-    @Transactional
-    @Scheduled(initialDelay = 10000, fixedDelay = 60000)
+    @Scheduled(initialDelay = 10000, fixedDelayString = "${checker.scriptExecution.expirationInterval:60000}")
+    public void expireScriptExecutions() {
+        try {
+            if (!leaseService.acquireLeadership("script-execution-expiration", Duration.ofMillis(properties.getExpirationLeaseDuration()))) {
+                log.debug("Skipping expiration of script executions, because another instance is the leader");
+                return;
+            }
+            scriptExecutionService.expireScriptExecutions(Duration.ofMillis(properties.getExecutionTimeout()));
+        } catch (Exception e) {
+            log.error("Something went wrong expiring script executions!", e);
+        }
+    }
+
+    /**
+     * This scheduled method is repeatedly executed in process that is running in the background.
+     * Running script executions are claimed in batches using a lease, so that multiple instances of the service can
+     * share the work. Actions are expected to report their completion using the callback, so script executions are
+     * only polled once the callback fallback delay passed since their trigger was fired. If no callback URL is
+     * configured, they are polled right away.
+     * The activations of OpenWhisk-Services with several running script executions are synchronized using a few
+     * requests to the activations list. Otherwise they are polled in parallel using the bounded script execution checker
+     * pool, while the number of concurrent requests to a single OpenWhisk-Service is limited. Unfinished script
+     * executions are polled again after the poll interval.
+     */
+    @Scheduled(initialDelay = 10000, fixedDelayString = "${checker.scriptExecution.sweepDelay:2000}")
     public void checkRunningActivations() {
+        Timer.Sample sweep = Timer.start(meterRegistry);
         try {
-            // Retrieve running ScriptExecutions from database
-            Set<ScriptExecution> runningScriptExecutions = repository.findByStatus(ExecutionStatus.RUNNING);
-            log.info("Found {} running script executions", runningScriptExecutions.size());
-            for (ScriptExecution scriptExecution : runningScriptExecutions) {
-                // Poll activation from openWhisk
-                OpenWhiskActivation openWhiskActivation = openWhiskClient.getActivation(scriptExecution.getOpenWhiskService(), scriptExecution.getActivationId());
-                if (!Objects.isNull(openWhiskActivation)) {
-                    // Update ScriptExecution
-                    scriptExecution.setStatus(openWhiskActivation.getResponse().getSuccess() ? ExecutionStatus.SUCCESS : ExecutionStatus.ERROR);
-                    scriptExecution.setExecutionStartedAt(ZonedDateTime.ofInstant(Instant.ofEpochMilli(openWhiskActivation.getStart()), ZoneId.of("UTC")));
-                    scriptExecution.setExecutionEndedAt(ZonedDateTime.ofInstant(Instant.ofEpochMilli(openWhiskActivation.getEnd()), ZoneId.of("UTC")));
-                    scriptExecution.setDuration(openWhiskActivation.getDuration());
-                    scriptExecution.setLogs(openWhiskActivation.getLogs());
-
-                    // Try to parse activation result and store it inside the script execution
-                    Object activationResult = openWhiskActivation.getResponse().getResult();
-                    if (!Objects.isNull(activationResult)) {
-                        scriptExecution.setResult(ModelMapperUtils.convert(activationResult, ExecutionResult.class));
-                    }
-                    // Update ScriptExecution inside the database
-                    scriptExecution = repository.save(scriptExecution);
-                    log.info("Activation '{}' of action '{}' finished processing", scriptExecution.getActivationId(), scriptExecution.getQuantumApplication().getName());
-
-                    // Create Job if script execution was successful
-                    if (scriptExecution.getStatus().equals(ExecutionStatus.SUCCESS)) {
-                        // Create empty job using the Job-ID that is stored inside the ScriptExecution-Result with initial status
-                        Job job = new Job();
-                        job.setIbmqId(scriptExecution.getResult().getJobId());
-                        job.setStatus(JobStatus.CREATING);
-                        job.setQuantumApplication(scriptExecution.getQuantumApplication());
-                        job.setInputParams(scriptExecution.getInputParams());
-                        job.setDevice(new JSONObject(scriptExecution.getInputParams()).getString("device"));
-                        jobRepository.save(job);
+            sweep();
+        } finally {
+            sweep.stop(meterRegistry.timer("quantumservice.scriptexecutionchecker.sweep"));
+        }
+    }
+
+    private void sweep() {
+        List<ScriptExecution> runningScriptExecutions;
+        try {
+            // Claim running ScriptExecutions from database
+            runningScriptExecutions = leaseService.claimRunningScriptExecutions(properties.getBatchSize(), Duration.ofMillis(properties.getLeaseDuration()),
+                    getCallbackFallbackDelay());
+        } catch (Exception e) {
+            log.error("Something went wrong claiming running script executions!", e);
+            return;
+        }
+        log.debug("Found {} running script executions", runningScriptExecutions.size());
+
+        // Synchronize the activations of each OpenWhisk-Service using the activations list or a limited number of parallel tasks
+        List<Future<Map<UUID, OpenWhiskActivation>>> polls = new ArrayList<>();
+        for (List<ScriptExecution> group : groupByOpenWhiskService(runningScriptExecutions)) {
+            if (properties.isBulkSyncEnabled() && group.size() >= properties.getBulkSyncMinExecutions()) {
+                polls.add(scriptExecutionCheckerExecutor.submit(() -> syncActivations(group)));
+            } else {
+                for (List<ScriptExecution> chunk : split(group)) {
+                    polls.add(scriptExecutionCheckerExecutor.submit(() -> pollActivations(chunk)));
+                }
+            }
+        }
+
+        // Collect the polled activations
+        Map<UUID, OpenWhiskActivation> activations = new HashMap<>();
+        long deadline = System.currentTimeMillis() + properties.getSweepTimeout();
+        for (Future<Map<UUID, OpenWhiskActivation>> poll : polls) {
+            try {
+                activations.putAll(poll.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS));
+            } catch (TimeoutException e) {
+                poll.cancel(true);
+                log.warn("Polling activations did not finish within the sweep timeout and is retried once the lease expired");
+            } catch (ExecutionException e) {
+                log.error("Something went wrong accessing the OpenWhisk-API!", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        // Complete finished script executions and poll unfinished ones again after the poll interval
+        List<UUID> unfinished = new ArrayList<>();
+        for (ScriptExecution scriptExecution : runningScriptExecutions) {
+            if (!activations.containsKey(scriptExecution.getId())) {
+                continue;
+            }
+            OpenWhiskActivation openWhiskActivation = activations.get(scriptExecution.getId());
+            if (Objects.isNull(openWhiskActivation)) {
+                unfinished.add(scriptExecution.getId());
+                continue;
+            }
+            try {
+                scriptExecutionService.completeScriptExecution(scriptExecution, openWhiskActivation);
+            } catch (Exception e) {
+                log.error("Something went wrong completing script execution '{}'!", scriptExecution.getId(), e);
+            }
+        }
+        try {
+            leaseService.deferScriptExecutions(unfinished, Duration.ofMillis(properties.getPollInterval()));
+        } catch (Exception e) {
+            log.error("Something went wrong scheduling the next poll of unfinished script executions!", e);
+        }
+    }
+
+    // Without a callback URL, actions can not report their completion, so there is no reason to wait for them
+    private Duration getCallbackFallbackDelay() {
+        if (Objects.isNull(callbackProperties.getCallbackUrl())) {
+            return Duration.ZERO;
+        }
+        return Duration.ofMillis(properties.getCallbackFallbackDelay());
+    }
+
+    /**
+     * This method polls the activations of the given script executions one after another. Activations that do not exist
+     * yet are contained with a null value, activations that could not be polled are missing.
+     *
+     * @param scriptExecutions Script executions of a single OpenWhisk-Service
+     * @return activations Polled activations by the ID of their script execution
+     */
+    private Map<UUID, OpenWhiskActivation> pollActivations(List<ScriptExecution> scriptExecutions) {
+        Map<UUID, OpenWhiskActivation> activations = new HashMap<>();
+        for (ScriptExecution scriptExecution : scriptExecutions) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            try {
+                activations.put(scriptExecution.getId(), meterRegistry.timer("quantumservice.openwhisk.call", "operation", "getActivation")
+                        .record(() -> openWhiskClient.getActivation(scriptExecution.getOpenWhiskService(), scriptExecution.getActivationId())));
+            } catch (Exception e) {
+                log.error("Something went wrong polling activation '{}'!", scriptExecution.getActivationId(), e);
+            }
+        }
+        return activations;
+    }
+
+    /**
+     * This method synchronizes the activations of script executions that belong to the same OpenWhisk-Service using the
+     * activations list. The list is requested page by page, starting at the oldest trigger time of the script executions
+     * minus an overlap, and the listed activations are matched through their activation id. Script executions that are
+     * not listed are treated as unfinished, unless their trigger is older than the fallback age. In this case, or if
+     * the list can not be retrieved, their activations are polled one by one.
+     *
+     * @param scriptExecutions Script executions of a single OpenWhisk-Service
+     * @return activations Synchronized activations by the ID of their script execution
+     */
+    private Map<UUID, OpenWhiskActivation> syncActivations(List<ScriptExecution> scriptExecutions) {
+        OpenWhiskService openWhiskService = scriptExecutions.get(0).getOpenWhiskService();
+        Map<String, ScriptExecution> pending = new HashMap<>();
+        long oldestTrigger = System.currentTimeMillis();
+        for (ScriptExecution scriptExecution : scriptExecutions) {
+            pending.put(scriptExecution.getActivationId(), scriptExecution);
+            if (!Objects.isNull(scriptExecution.getTriggerFiredAt())) {
+                oldestTrigger = Math.min(oldestTrigger, scriptExecution.getTriggerFiredAt().toInstant().toEpochMilli());
+            }
+        }
+        long since = oldestTrigger - properties.getBulkSyncOverlap();
+
+        Map<UUID, OpenWhiskActivation> activations = new HashMap<>();
+        try {
+            for (int page = 0; page < properties.getBulkSyncMaxPages() && !pending.isEmpty(); page++) {
+                int skip = page * properties.getBulkSyncPageSize();
+                List<OpenWhiskActivation> listedActivations = meterRegistry.timer("quantumservice.openwhisk.call", "operation", "listActivations")
+                        .record(() -> openWhiskClient.listActivations(openWhiskService, since, properties.getBulkSyncPageSize(), skip));
+                for (OpenWhiskActivation listedActivation : listedActivations) {
+                    ScriptExecution scriptExecution = pending.remove(listedActivation.getActivationId());
+                    if (!Objects.isNull(scriptExecution)) {
+                        activations.put(scriptExecution.getId(), listedActivation);
                     }
                 }
+                if (listedActivations.size() < properties.getBulkSyncPageSize()) {
+                    break;
+                }
             }
         } catch (Exception e) {
-            log.error("Something went wrong accessing the OpenWhisk-API!", e);
+            log.warn("Listing the activations of OpenWhisk-Service '{}' failed, the activations are polled one by one", openWhiskService.getName(), e);
+            return pollActivations(scriptExecutions);
+        }
+
+        List<ScriptExecution> fallback = new ArrayList<>();
+        long fallbackBefore = System.currentTimeMillis() - properties.getBulkSyncFallbackAge();
+        for (ScriptExecution scriptExecution : pending.values()) {
+            if (!Objects.isNull(scriptExecution.getTriggerFiredAt()) && scriptExecution.getTriggerFiredAt().toInstant().toEpochMilli() < fallbackBefore) {
+                fallback.add(scriptExecution);
+            } else {
+                activations.put(scriptExecution.getId(), null);
+            }
+        }
+        activations.putAll(pollActivations(fallback));
+        return activations;
+    }
+
+    /**
+     * This method groups the script executions by their OpenWhisk-Service.
+     *
+     * @param scriptExecutions Claimed script executions
+     * @return groups
+     */
+    private Collection<List<ScriptExecution>> groupByOpenWhiskService(List<ScriptExecution> scriptExecutions) {
+        Map<UUID, List<ScriptExecution>> groups = new LinkedHashMap<>();
+        for (ScriptExecution scriptExecution : scriptExecutions) {
+            groups.computeIfAbsent(scriptExecution.getOpenWhiskService().getId(), key -> new ArrayList<>()).add(scriptExecution);
+        }
+        return groups.values();
+    }
+
+    /**
+     * This method splits the script executions of an OpenWhisk-Service into at most the configured number of chunks,
+     * which are polled in parallel.
+     *
+     * @param group Script executions of a single OpenWhisk-Service
+     * @return chunks
+     */
+    private List<List<ScriptExecution>> split(List<ScriptExecution> group) {
+        int chunkCount = Math.min(group.size(), properties.getMaxConcurrencyPerService());
+        List<List<ScriptExecution>> chunks = new ArrayList<>();
+        for (int i = 0; i < chunkCount; i++) {
+            chunks.add(new ArrayList<>());
+        }
+        for (int i = 0; i < group.size(); i++) {
+            chunks.get(i % chunkCount).add(group.get(i));
         }
+        return chunks;
     }
 }
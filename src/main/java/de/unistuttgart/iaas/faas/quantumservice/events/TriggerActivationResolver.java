@@ -0,0 +1,248 @@
+package de.unistuttgart.iaas.faas.quantumservice.events;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import de.unistuttgart.iaas.faas.quantumservice.api.OpenWhiskClient;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.TriggerActivationProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.openwhiskservice.OpenWhiskService;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.triggeractivation.PendingTriggerActivation;
+import de.unistuttgart.iaas.faas.quantumservice.model.openwhisk.OpenWhiskActivation;
+import de.unistuttgart.iaas.faas.quantumservice.service.ScriptExecutionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class resolves the activations of fired triggers in the background. The activation record of a trigger is
+ * written asynchronously by OpenWhisk, so it is retried with an exponential backoff until it is available. Afterwards
+ * the ScriptExecutions of the actions that were started by the trigger are created from its logs. A permit of the
+ * resolver must be reserved before a trigger is fired, so that triggers are not fired if their activations cannot be
+ * resolved. Trigger activations that are not resolved when the service instance is stopped are stored in the database
+ * and resolved by the next instance that has capacity.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TriggerActivationResolver {
+
+    private final OpenWhiskClient openWhiskClient;
+    private final ScriptExecutionService scriptExecutionService;
+    private final TriggerActivationProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    // Limits the number of trigger activations that are resolved in the background
+    private Semaphore capacity;
+
+    // Private scheduler, so that the retries do not share the threads of the scheduled methods
+    private ScheduledThreadPoolExecutor scheduler;
+
+    // Trigger activations that are scheduled or being resolved
+    private final Set<TriggerActivation> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * This method creates the capacity and the scheduler of the resolver and registers the gauge that shows the number
+     * of pending trigger activations.
+     */
+    @PostConstruct
+    public void initialize() {
+        capacity = new Semaphore(properties.getQueueCapacity());
+        scheduler = new ScheduledThreadPoolExecutor(properties.getPoolSize(), new CustomizableThreadFactory("trigger-activation-resolver-"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        meterRegistry.gauge("quantumservice.triggeractivation.pending", capacity, permits -> properties.getQueueCapacity() - permits.availablePermits());
+    }
+
+    /**
+     * This method reserves a permit of the resolver for a trigger that is about to be fired. If the capacity of the
+     * resolver is exhausted, the trigger must not be fired, so that the firing fails and is retried later.
+     *
+     * @throws RejectedExecutionException Thrown if the capacity of the resolver is exhausted
+     */
+    public void reserve() {
+        if (!capacity.tryAcquire()) {
+            meterRegistry.counter("quantumservice.triggeractivation.rejected").increment();
+            throw new RejectedExecutionException("The trigger activation resolver is at capacity!");
+        }
+    }
+
+    /**
+     * This method releases a reserved permit of a trigger that could not be fired.
+     */
+    public void release() {
+        capacity.release();
+    }
+
+    /**
+     * This method schedules the resolution of a trigger activation using a permit that was reserved before the trigger
+     * was fired.
+     *
+     * @param openWhiskService OpenWhisk-Service of the trigger
+     * @param activationId Activation-ID of the fired trigger
+     * @param callbackTokenHash Hash of the callback secret that was passed to the actions or null
+     */
+    public void resolve(OpenWhiskService openWhiskService, String activationId, String callbackTokenHash) {
+        TriggerActivation triggerActivation = new TriggerActivation(openWhiskService, activationId, callbackTokenHash, 0);
+        pending.add(triggerActivation);
+        schedule(triggerActivation, properties.getInitialRetryDelay());
+    }
+
+    /**
+     * This method claims trigger activations that were stored by stopped service instances, as long as the resolver
+     * has capacity for them.
+     */
+    @Scheduled(initialDelay = 10000, fixedDelayString = "${triggerActivation.recoveryInterval:10000}")
+    public void recoverTriggerActivations() {
+        int permits = 0;
+        while (permits < properties.getRecoveryBatchSize() && capacity.tryAcquire()) {
+            permits++;
+        }
+        if (permits == 0) {
+            return;
+        }
+        List<PendingTriggerActivation> pendingTriggerActivations = List.of();
+        try {
+            pendingTriggerActivations = scriptExecutionService.claimPendingTriggerActivations(permits);
+        } catch (Exception e) {
+            log.warn("Could not claim pending trigger activations", e);
+        } finally {
+            capacity.release(permits - pendingTriggerActivations.size());
+        }
+        for (PendingTriggerActivation pendingTriggerActivation : pendingTriggerActivations) {
+            TriggerActivation triggerActivation = new TriggerActivation(pendingTriggerActivation.getOpenWhiskService(),
+                    pendingTriggerActivation.getActivationId(), pendingTriggerActivation.getCallbackTokenHash(), pendingTriggerActivation.getAttempts());
+            pending.add(triggerActivation);
+            schedule(triggerActivation, properties.getInitialRetryDelay());
+        }
+        if (!pendingTriggerActivations.isEmpty()) {
+            log.info("Recovered {} pending trigger activations", pendingTriggerActivations.size());
+        }
+    }
+
+    /**
+     * This method shuts the scheduler of the resolver down and stores the trigger activations that are not resolved
+     * yet, so that they are resolved by another service instance.
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(properties.getShutdownTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingTriggerActivation> pendingTriggerActivations = new ArrayList<>();
+        ZonedDateTime now = ZonedDateTime.now(ZoneId.of("UTC"));
+        for (TriggerActivation triggerActivation : pending) {
+            PendingTriggerActivation pendingTriggerActivation = new PendingTriggerActivation();
+            pendingTriggerActivation.setOpenWhiskService(triggerActivation.openWhiskService);
+            pendingTriggerActivation.setActivationId(triggerActivation.activationId);
+            pendingTriggerActivation.setCallbackTokenHash(triggerActivation.callbackTokenHash);
+            pendingTriggerActivation.setAttempts(triggerActivation.attempts);
+            pendingTriggerActivation.setCreatedAt(now);
+            pendingTriggerActivations.add(pendingTriggerActivation);
+        }
+        if (pendingTriggerActivations.isEmpty()) {
+            return;
+        }
+        try {
+            scriptExecutionService.savePendingTriggerActivations(pendingTriggerActivations);
+            log.info("Stored {} pending trigger activations", pendingTriggerActivations.size());
+        } catch (Exception e) {
+            log.error("Could not store {} pending trigger activations, their script executions are not tracked!", pendingTriggerActivations.size(), e);
+        }
+    }
+
+    // This method schedules the next attempt of a trigger activation that holds a permit of the capacity
+    private void schedule(TriggerActivation triggerActivation, long delay) {
+        try {
+            scheduler.schedule(() -> run(triggerActivation, delay), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // The trigger activation stays pending, so that it is stored when the resolver is shut down
+            log.warn("Could not schedule the resolution of trigger activation '{}', the resolver is shut down", triggerActivation.activationId);
+            capacity.release();
+        }
+    }
+
+    // This method makes an attempt and either schedules the next one or releases the permit of the trigger activation
+    private void run(TriggerActivation triggerActivation, long delay) {
+        boolean rescheduled = false;
+        try {
+            if (!attempt(triggerActivation)) {
+                schedule(triggerActivation, nextDelay(delay));
+                rescheduled = true;
+            }
+        } finally {
+            if (!rescheduled) {
+                pending.remove(triggerActivation);
+                capacity.release();
+            }
+        }
+    }
+
+    /**
+     * This method tries to resolve a trigger activation once.
+     *
+     * @param triggerActivation Trigger activation that should be resolved
+     * @return finished True if the trigger activation was resolved or no further attempt should be made
+     */
+    @SuppressWarnings("unchecked")
+    private boolean attempt(TriggerActivation triggerActivation) {
+        triggerActivation.attempts++;
+        try {
+            OpenWhiskActivation activation = meterRegistry.timer("quantumservice.openwhisk.call", "operation", "getActivation")
+                    .record(() -> openWhiskClient.getActivation(triggerActivation.openWhiskService, triggerActivation.activationId));
+            if (!Objects.isNull(activation)) {
+                scriptExecutionService.createScriptExecutionsFromLogs((Map<String, String>) activation.getResponse().getResult(), activation.getLogs(), activation.getStart(),
+                        triggerActivation.callbackTokenHash);
+                return true;
+            }
+            log.debug("Trigger activation '{}' is not available yet", triggerActivation.activationId);
+        } catch (Exception e) {
+            log.warn("Resolving trigger activation '{}' failed", triggerActivation.activationId, e);
+        }
+        if (triggerActivation.attempts >= properties.getMaxAttempts()) {
+            meterRegistry.counter("quantumservice.triggeractivation.abandoned").increment();
+            log.error("Giving up resolving trigger activation '{}' after {} attempts, its script executions are not tracked!",
+                    triggerActivation.activationId, triggerActivation.attempts);
+            return true;
+        }
+        return false;
+    }
+
+    private long nextDelay(long delay) {
+        return Math.min(properties.getMaxRetryDelay(), (long) (delay * properties.getBackoffMultiplier()));
+    }
+
+    /**
+     * This class contains a trigger activation that is resolved and the number of attempts made so far.
+     */
+    private static class TriggerActivation {
+        private final OpenWhiskService openWhiskService;
+        private final String activationId;
+        private final String callbackTokenHash;
+        private volatile int attempts;
+
+        private TriggerActivation(OpenWhiskService openWhiskService, String activationId, String callbackTokenHash, int attempts) {
+            this.openWhiskService = openWhiskService;
+            this.activationId = activationId;
+            this.callbackTokenHash = callbackTokenHash;
+            this.attempts = attempts;
+        }
+    }
+}
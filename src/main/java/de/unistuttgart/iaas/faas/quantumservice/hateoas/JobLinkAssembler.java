@@ -21,6 +21,9 @@ public class JobLinkAssembler extends GenericLinkAssembler<JobDto> {
     public void addLinks(EntityModel<JobDto> resource) {
         resource.add(WebMvcLinkBuilder.linkTo(methodOn(JobController.class).getJob(getId(resource))).withSelfRel());
         resource.add(WebMvcLinkBuilder.linkTo(methodOn(QuantumApplicationController.class).getQuantumApplication(getActionName(resource))).withRel("quantumApplication"));
+        if (resource.getContent().getResultSize() != null) {
+            resource.add(WebMvcLinkBuilder.linkTo(methodOn(JobController.class).getJobResult(getId(resource))).withRel("result"));
+        }
     }
 
     private String getActionName(EntityModel<JobDto> resource) {
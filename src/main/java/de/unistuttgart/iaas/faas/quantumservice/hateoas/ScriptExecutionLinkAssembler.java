@@ -22,6 +22,9 @@ public class ScriptExecutionLinkAssembler extends GenericLinkAssembler<ScriptExe
         resource.add(WebMvcLinkBuilder.linkTo(methodOn(ScriptExecutionController.class).getScriptExecution(getId(resource))).withSelfRel());
         resource.add(WebMvcLinkBuilder.linkTo(methodOn(OpenWhiskServiceController.class).getOpenWhiskService(getOpenWhiskServiceName(resource))).withRel("openWhiskService"));
         resource.add(WebMvcLinkBuilder.linkTo(methodOn(QuantumApplicationController.class).getQuantumApplication(getQuantumApplicationName(resource))).withRel("quantumApplication"));
+        if (resource.getContent().getLogsSize() != null) {
+            resource.add(WebMvcLinkBuilder.linkTo(methodOn(ScriptExecutionController.class).getScriptExecutionLogs(getId(resource))).withRel("logs"));
+        }
     }
 
     private String getOpenWhiskServiceName(EntityModel<ScriptExecutionDto> resource) {
@@ -0,0 +1,142 @@
+package de.unistuttgart.iaas.faas.quantumservice.messaging;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+
+/**
+ * This class extends the DefaultMessageListenerContainer, so that transacted sessions are not committed after every
+ * message. The messages of a session are committed together once the batch size is reached, once the batch timeout
+ * passed since the first message of the batch or once no further message is received. If the listener fails, all
+ * uncommitted messages of the session are rolled back and delivered again. Listeners can be notified once the messages
+ * of a session were committed or rolled back. The consumers can be paused, e.g. while the received messages can not be
+ * stored, so that they do not receive the same messages over and over until their delivery limit is exceeded.
+ */
+@Slf4j
+@Setter
+public class BatchingMessageListenerContainer extends DefaultMessageListenerContainer {
+
+    private int batchSize = 1;
+    private long batchTimeout = 0;
+
+    // Executed before a batch is committed, e.g. to write received data to the disk
+    private Runnable beforeCommit = () -> { };
+
+    // Executed once the received messages of a session were committed or acknowledged
+    private Consumer<Session> afterCommit = session -> { };
+
+    // Executed once the received messages of a session were rolled back or could not be committed
+    private Consumer<Session> afterRollback = session -> { };
+
+    // Paused consumers receive no messages until this condition is met, it is checked every resume interval
+    private BooleanSupplier resumeCondition = () -> true;
+    private long resumeInterval = 1000;
+    private volatile boolean paused;
+
+    // Uncommitted batches by their session
+    private final Map<Session, Batch> batches = new ConcurrentHashMap<>();
+
+    /**
+     * This method pauses all consumers of the container until the resume condition is met.
+     */
+    public void pause() {
+        if (!paused) {
+            paused = true;
+            log.warn("Pausing the consumers of the message listener container");
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    @Override
+    protected Message receiveMessage(MessageConsumer consumer) throws JMSException {
+        if (paused) {
+            if (!resumeCondition.getAsBoolean()) {
+                try {
+                    Thread.sleep(resumeInterval);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }
+            paused = false;
+            log.info("Resuming the consumers of the message listener container");
+        }
+        return super.receiveMessage(consumer);
+    }
+
+    @Override
+    protected void commitIfNecessary(Session session, Message message) throws JMSException {
+        if (!session.getTransacted() || !isSessionLocallyTransacted(session)) {
+            try {
+                super.commitIfNecessary(session, message);
+            } catch (JMSException e) {
+                afterRollback.accept(session);
+                throw e;
+            }
+            afterCommit.accept(session);
+            return;
+        }
+        Batch batch = batches.computeIfAbsent(session, key -> new Batch(System.currentTimeMillis()));
+        batch.size++;
+        if (batch.size >= batchSize || System.currentTimeMillis() - batch.startedAt >= batchTimeout) {
+            commit(session);
+        }
+    }
+
+    @Override
+    protected void noMessageReceived(Object invoker, Session session) {
+        super.noMessageReceived(invoker, session);
+        if (batches.containsKey(session)) {
+            try {
+                commit(session);
+            } catch (JMSException e) {
+                log.warn("Could not commit the received messages, they are delivered again", e);
+            }
+        }
+    }
+
+    @Override
+    protected void rollbackOnExceptionIfNecessary(Session session, Throwable ex) throws JMSException {
+        batches.remove(session);
+        afterRollback.accept(session);
+        super.rollbackOnExceptionIfNecessary(session, ex);
+    }
+
+    private void commit(Session session) throws JMSException {
+        Batch batch = batches.remove(session);
+        try {
+            beforeCommit.run();
+            session.commit();
+        } catch (JMSException | RuntimeException e) {
+            afterRollback.accept(session);
+            throw e;
+        }
+        afterCommit.accept(session);
+        log.debug("Committed a batch of {} messages", batch == null ? 0 : batch.size);
+    }
+
+    /**
+     * This class contains the number of uncommitted messages of a session and the time the first one was received.
+     */
+    private static class Batch {
+        private final long startedAt;
+        private int size;
+
+        private Batch(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+}
@@ -1,57 +1,202 @@
 package de.unistuttgart.iaas.faas.quantumservice.messaging;
 
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.jms.BytesMessage;
 import javax.jms.JMSException;
 import javax.jms.Message;
-import javax.jms.MessageListener;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
 import javax.jms.TextMessage;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import de.unistuttgart.iaas.faas.quantumservice.configuration.IBMQProperties;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.MessagingProperties;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventPayload;
-import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventTrigger;
-import de.unistuttgart.iaas.faas.quantumservice.model.exception.OpenWhiskException;
+import de.unistuttgart.iaas.faas.quantumservice.model.exception.InvalidInputException;
+import de.unistuttgart.iaas.faas.quantumservice.model.exception.JournalFullException;
 import de.unistuttgart.iaas.faas.quantumservice.service.EventTriggerService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.jms.listener.SessionAwareMessageListener;
 
 /**
- * This class represents a JMS Event-Driven Consumer.
+ * This class represents a JMS Event-Driven Consumer. Redelivered messages that were already accepted are dropped and
+ * messages that can not be processed are moved to the dead-letter queue. The keys of received messages are only added
+ * to the idempotency cache once the session committed them, so that rolled back messages are processed again. If the
+ * event journal is full, the consumers are paused and the batch is rolled back. The keys of the messages that were
+ * already stored are kept, so that their events are not stored twice when the batch is delivered again.
  */
 @RequiredArgsConstructor
 @Slf4j
-public class EventReceiver implements MessageListener {
+public class EventReceiver implements SessionAwareMessageListener<Message> {
+
+    private static final String DELIVERY_COUNT = "JMSXDeliveryCount";
+    private static final String DEAD_LETTER_REASON = "deadLetterReason";
 
-    private final IBMQProperties ibmqProperties;
     private final EventTriggerService eventTriggerService;
-    private final ObjectMapper objectMapper;
+    private final MessageCodec messageCodec;
+    private final MessagingProperties properties;
+    private final IdempotencyCache idempotencyCache;
+    private final MeterRegistry meterRegistry;
+
+    // Executed if the event journal is full, e.g. to pause the consumers until it has capacity again
+    private final Runnable journalFullHandler;
+
+    // Keys of the uncommitted messages by their session, mapped to true if the event of the message was stored
+    private final Map<Session, Map<String, Boolean>> pendingKeys = new ConcurrentHashMap<>();
 
     /**
-     * This method uses JMS to receive messages from the topic 'EVENT.TOPIC'. These messages represent events that were
-     * generated by the EventSource.
+     * This method uses JMS to receive messages from the event queue. These messages represent events that were
+     * generated by the EventSource. If the event can not be stored temporarily, an exception is thrown, so that the
+     * message is delivered again later on.
      *
      * @param message Incoming event message
+     * @param session Session of the consumer that received the message
+     * @throws JMSException Thrown if some JMS error occurs
      */
     @Override
-    public void onMessage(Message message) {
-        // TextMessages are expected that contain the JobResult as a JSON-String
+    public void onMessage(Message message, Session session) throws JMSException {
         log.info("Got new event message");
-        if (message instanceof TextMessage) {
+        byte[] body = messageCodec.readBody(message);
+        String key = getKey(message, body);
+        if (key != null && (idempotencyCache.contains(key) || pendingKeys.getOrDefault(session, Map.of()).containsKey(key))) {
+            log.info("Dropping duplicate event message '{}'", message.getJMSMessageID());
+            meterRegistry.counter("quantumservice.messaging.received", "outcome", "duplicate").increment();
+            return;
+        }
+        boolean accepted = false;
+        if (getDeliveryCount(message) > properties.getMaxDeliveries()) {
+            deadLetter(message, body, session, "The message exceeded the maximum number of deliveries");
+        } else if (body == null) {
+            deadLetter(message, null, session, "The message is neither a text nor a bytes message");
+        } else {
+            // The event is expected as JSON or, depending on the content type, as CBOR
             try {
-                String eventAsJson = ((TextMessage) message).getText();
-                EventPayload eventPayload = objectMapper.readValue(eventAsJson, EventPayload.class);
-                eventPayload.getEventPayloadProperties().put("apiToken", ibmqProperties.getApiToken());
-                log.info("Got Event: " + eventAsJson);
+                EventPayload eventPayload = messageCodec.decode(message, body, EventPayload.class);
+                log.info("Got Event: " + eventPayload);
+
+                // The triggers are fired in the background, after the event was stored inside the event journal
+                eventTriggerService.acceptEvent(eventPayload);
+                accepted = true;
+                meterRegistry.counter("quantumservice.messaging.received", "outcome", "accepted").increment();
+            } catch (IOException | InvalidInputException e) {
+                deadLetter(message, body, session, "Could not understand message: " + e.getMessage());
+            } catch (JournalFullException e) {
+                journalFull(session);
+                throw e;
+            }
+        }
+        if (key != null) {
+            pendingKeys.computeIfAbsent(session, ignored -> new LinkedHashMap<>()).put(key, accepted);
+        }
+    }
+
+    /**
+     * This method adds the keys of the messages that were committed by a session to the idempotency cache.
+     *
+     * @param session Session that committed the received messages
+     */
+    public void commitKeys(Session session) {
+        Map<String, Boolean> keys = pendingKeys.remove(session);
+        if (keys != null) {
+            keys.keySet().forEach(idempotencyCache::add);
+        }
+    }
+
+    /**
+     * This method forgets the keys of the messages that were rolled back by a session, so that they are processed
+     * again when they are delivered again.
+     *
+     * @param session Session that rolled back the received messages
+     */
+    public void discardKeys(Session session) {
+        pendingKeys.remove(session);
+    }
 
-                for (EventTrigger eventTrigger: eventTriggerService.findByEventType(eventPayload)) {
-                    eventTriggerService.fireEventTrigger(eventTrigger, eventPayload);
+    /**
+     * This method handles an event that could not be stored because the event journal is full. The events that were
+     * received by the session before are stored in the journal, so their keys are kept even though the session is
+     * rolled back. Messages that were moved to the dead-letter queue are rolled back as well and are processed again.
+     *
+     * @param session Session that received the event
+     */
+    private void journalFull(Session session) {
+        meterRegistry.counter("quantumservice.messaging.received", "outcome", "journalfull").increment();
+        Map<String, Boolean> keys = pendingKeys.remove(session);
+        if (keys != null) {
+            keys.forEach((key, accepted) -> {
+                if (accepted) {
+                    idempotencyCache.add(key);
                 }
-            } catch (JMSException | JsonProcessingException e) {
-                log.error("Could not understand message");
-            } catch (OpenWhiskException e) {
-                log.warn("OpenWhisk error occurred! Maybe some trigger was invoked that does not have any registered actions");
+            });
+        }
+        journalFullHandler.run();
+    }
+
+    /**
+     * This method moves a message to the dead-letter queue. If no dead-letter queue is configured, the message is
+     * dropped.
+     *
+     * @param message Message that can not be processed
+     * @param body Body of the message, null if the message is neither a text nor a bytes message
+     * @param session Session of the consumer that received the message
+     * @param reason Reason why the message can not be processed
+     * @throws JMSException Thrown if some JMS error occurs
+     */
+    private void deadLetter(Message message, byte[] body, Session session, String reason) throws JMSException {
+        meterRegistry.counter("quantumservice.messaging.received", "outcome", "deadletter").increment();
+        if (properties.getDeadLetterQueue().isBlank()) {
+            log.error("Dropping event message '{}': {}", message.getJMSMessageID(), reason);
+            return;
+        }
+        log.error("Moving event message '{}' to the dead-letter queue: {}", message.getJMSMessageID(), reason);
+        Message deadLetter = message;
+        if (message instanceof TextMessage) {
+            // The properties of received messages are read-only, so the reason is added to a copy
+            deadLetter = session.createTextMessage(((TextMessage) message).getText());
+            deadLetter.setStringProperty(DEAD_LETTER_REASON, reason);
+        } else if (body != null) {
+            BytesMessage bytesMessage = session.createBytesMessage();
+            bytesMessage.writeBytes(body);
+            String contentType = messageCodec.getContentType(message);
+            if (contentType != null) {
+                bytesMessage.setStringProperty(MessageCodec.CONTENT_TYPE_PROPERTY, contentType);
             }
+            bytesMessage.setStringProperty(DEAD_LETTER_REASON, reason);
+            deadLetter = bytesMessage;
+        }
+        MessageProducer producer = session.createProducer(session.createQueue(properties.getDeadLetterQueue()));
+        try {
+            producer.send(deadLetter);
+        } finally {
+            producer.close();
+        }
+    }
+
+    /**
+     * This method returns the key that identifies a message in the idempotency cache. This is either the JMS message
+     * ID or the hash of the message body, so that events that were sent twice are recognized as well.
+     *
+     * @param message Incoming event message
+     * @param body Body of the message
+     * @return key
+     * @throws JMSException Thrown if some JMS error occurs
+     */
+    private String getKey(Message message, byte[] body) throws JMSException {
+        if (properties.isDeduplicateByPayload() && body != null) {
+            return DigestUtils.sha256Hex(body);
+        }
+        return message.getJMSMessageID();
+    }
 
+    private int getDeliveryCount(Message message) throws JMSException {
+        if (message.propertyExists(DELIVERY_COUNT)) {
+            return message.getIntProperty(DELIVERY_COUNT);
         }
+        return message.getJMSRedelivered() ? 2 : 1;
     }
 }
@@ -0,0 +1,42 @@
+package de.unistuttgart.iaas.faas.quantumservice.messaging;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class remembers the keys of the most recently received messages, so that redelivered messages can be
+ * recognized. If the maximum size is reached, the least recently used key is evicted.
+ */
+public class IdempotencyCache {
+
+    // Keys of the received messages in access order, guarded by this
+    private final Map<String, Boolean> keys;
+
+    public IdempotencyCache(int maxSize) {
+        this.keys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * This method checks whether a message with the given key was received before.
+     *
+     * @param key Key of the message
+     * @return contained
+     */
+    public synchronized boolean contains(String key) {
+        return keys.containsKey(key);
+    }
+
+    /**
+     * This method remembers the key of a received message.
+     *
+     * @param key Key of the message
+     */
+    public synchronized void add(String key) {
+        keys.put(key, Boolean.TRUE);
+    }
+}
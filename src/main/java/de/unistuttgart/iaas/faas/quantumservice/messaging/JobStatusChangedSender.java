@@ -1,19 +1,42 @@
 package de.unistuttgart.iaas.faas.quantumservice.messaging;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
 
-import javax.jms.TextMessage;
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.Session;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventPayload;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventType;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.Job;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobStatus;
-import de.unistuttgart.iaas.faas.quantumservice.model.exception.OpenWhiskException;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox.OutboxMessage;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox.OutboxMessageRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox.OutboxMessageType;
 import de.unistuttgart.iaas.faas.quantumservice.service.EventTriggerService;
+import de.unistuttgart.iaas.faas.quantumservice.storage.BlobStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.json.JSONObject;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.JmsUtils;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -21,11 +44,22 @@ import org.springframework.stereotype.Component;
 @Slf4j
 public class JobStatusChangedSender {
 
+    private static final String REPLY_TO_QUEUE = "QC.EVENT.QUEUE";
+
     private final JmsTemplate jmsTemplate;
     private final EventTriggerService eventTriggerService;
+    private final BlobStore blobStore;
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final MeterRegistry meterRegistry;
+    private final MessageCodec messageCodec;
+    private final ObjectMapper objectMapper;
+
+    private volatile Queue replyTo;
 
     /**
-     * This method uses JMS to send the status-reached events of jobs to the defined Reply-To-Address (destination).
+     * This method writes the status-reached events of jobs into the outbox. It must be called inside the transaction
+     * that updates the job, so that the events are only stored if the job update is committed. The events are delivered
+     * to the defined Reply-To-Address (destination) by the OutboxDispatcher.
      *
      * @param job Job that is checked for status changes
      */
@@ -33,11 +67,11 @@ public class JobStatusChangedSender {
         for (JobStatus status : JobStatus.values()) {
             if (job.getStatusDetails().get(status) != null && !job.getStatusDetails().get(status).isStatusEventSent()) {
                 if (status == JobStatus.COMPLETED && Objects.isNull(job.getQuantumApplication().getNotificationAddress())) {
-                    emitExecutionResultEvent(job);
+                    enqueueExecutionResultEvent(job);
                 }
 
                 if (!Objects.isNull(job.getQuantumApplication().getNotificationAddress())) {
-                    createAndSendExecutionStatusChangedNotification(job, status);
+                    enqueueExecutionStatusChangedNotification(job, status);
                 }
                 job.getStatusDetails().get(status).setStatusEventSent(true);
             }
@@ -45,44 +79,140 @@ public class JobStatusChangedSender {
     }
 
     /**
-     * This method sends a status-changed notification to given notification address
+     * This method delivers a batch of outbox messages. The job results are loaded from the BlobStore only now, so that
+     * they are never copied into the outbox. All notifications of the batch are sent inside one JMS transaction, using
+     * a cached session and producer, and become visible together once it is committed.
+     *
+     * @param outboxMessages Messages that should be delivered
+     * @return failures Errors of the messages that could not be delivered by the ID of the message
+     */
+    public Map<UUID, Exception> deliver(List<OutboxMessage> outboxMessages) {
+        Map<UUID, Exception> failures = new HashMap<>();
+        List<OutboxMessage> notifications = new ArrayList<>();
+        for (OutboxMessage outboxMessage : outboxMessages) {
+            if (outboxMessage.getType() == OutboxMessageType.JOB_STATUS_NOTIFICATION) {
+                notifications.add(outboxMessage);
+                continue;
+            }
+            try {
+                emitExecutionResultEvent(outboxMessage, new JSONObject(outboxMessage.getPayload()));
+            } catch (Exception e) {
+                failures.put(outboxMessage.getId(), e);
+            }
+        }
+        if (notifications.isEmpty()) {
+            return failures;
+        }
+
+        ConnectionFactory connectionFactory = Objects.requireNonNull(jmsTemplate.getConnectionFactory());
+        try (Connection connection = connectionFactory.createConnection();
+             Session session = connection.createSession(true, Session.SESSION_TRANSACTED);
+             MessageProducer producer = session.createProducer(null)) {
+            for (OutboxMessage outboxMessage : notifications) {
+                try {
+                    sendExecutionStatusChangedNotification(session, producer, outboxMessage, (ObjectNode) objectMapper.readTree(outboxMessage.getPayload()));
+                } catch (Exception e) {
+                    failures.put(outboxMessage.getId(), e);
+                }
+            }
+            meterRegistry.timer("quantumservice.messaging.commit").record(() -> {
+                try {
+                    session.commit();
+                } catch (JMSException e) {
+                    throw JmsUtils.convertJmsAccessException(e);
+                }
+            });
+        } catch (Exception e) {
+            // Nothing of the batch was sent, if the transaction could not be committed
+            for (OutboxMessage outboxMessage : notifications) {
+                failures.putIfAbsent(outboxMessage.getId(), e);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * This method writes a status-changed notification for the given notification address into the outbox
      * @param job currently executing IBMQ-Job
      * @param status name of reached status
      */
-    private void createAndSendExecutionStatusChangedNotification(Job job, JobStatus status) {
-        jmsTemplate.send(job.getQuantumApplication().getNotificationAddress(),
-                session -> {
-                    TextMessage message = session.createTextMessage();
-                    message.setJMSReplyTo(session.createQueue("QC.EVENT.QUEUE"));
-
-                    JSONObject notificationObject = new JSONObject();
-                    notificationObject.put("executedApplication", job.getQuantumApplication().getName());
-                    notificationObject.put("status", status.toString());
-                    notificationObject.put("statusReached", job.getStatusDetails().get(status).getStatusReached().toString());
-                    notificationObject.put("device", job.getDevice());
-                    if (status == JobStatus.COMPLETED) {
-                        notificationObject.put("executionSuccessful", job.getSuccess());
-                        if (job.getSuccess()) {
-                            notificationObject.put("executionResult", job.getResult());
-                        }
-                    }
-
-                    message.setText(notificationObject.toString());
-                    return message;
-                });
-        log.info("Job-Status={} was reached for application={} and notification was sent to destination={}!", status, job.getQuantumApplication().getName(), job.getQuantumApplication().getNotificationAddress());
+    private void enqueueExecutionStatusChangedNotification(Job job, JobStatus status) {
+        JSONObject notificationObject = new JSONObject();
+        notificationObject.put("executedApplication", job.getQuantumApplication().getName());
+        notificationObject.put("status", status.toString());
+        notificationObject.put("statusReached", job.getStatusDetails().get(status).getStatusReached().toString());
+        notificationObject.put("device", job.getDevice());
+        String resultKey = null;
+        if (status == JobStatus.COMPLETED) {
+            notificationObject.put("executionSuccessful", job.getSuccess());
+            if (job.getSuccess()) {
+                resultKey = job.getResultKey();
+            }
+        }
+        enqueue(OutboxMessageType.JOB_STATUS_NOTIFICATION, job.getQuantumApplication().getNotificationAddress(),
+                job.getQuantumApplication().getNotificationContentType(), notificationObject, resultKey);
     }
 
-    private void emitExecutionResultEvent(Job job) {
+    private void enqueueExecutionResultEvent(Job job) {
+        JSONObject eventObject = new JSONObject();
+        eventObject.put("quantumApplicationName", job.getQuantumApplication().getName());
+        eventObject.put("device", job.getDevice());
+        enqueue(OutboxMessageType.EXECUTION_RESULT_EVENT, null, null, eventObject, job.getResultKey());
+    }
+
+    private void enqueue(OutboxMessageType type, String destination, String contentType, JSONObject payload, String resultKey) {
+        ZonedDateTime now = ZonedDateTime.now();
+        OutboxMessage outboxMessage = new OutboxMessage();
+        outboxMessage.setType(type);
+        outboxMessage.setDestination(destination);
+        outboxMessage.setContentType(contentType);
+        outboxMessage.setPayload(payload.toString());
+        outboxMessage.setResultKey(resultKey);
+        outboxMessage.setCreatedAt(now);
+        outboxMessage.setNextAttemptAt(now);
+        outboxMessageRepository.save(outboxMessage);
+    }
+
+    /**
+     * This method sends a status-changed notification to the notification address of an outbox message. The job result
+     * is streamed from the BlobStore into the notification, which is encoded using the content type of the message.
+     * @param session Transacted session of the batch
+     * @param producer Producer of the session without a destination
+     * @param outboxMessage Message containing the notification address
+     * @param notification Notification without the execution result
+     * @throws JMSException Thrown if some JMS error occurs
+     * @throws IOException Thrown if the job result could not be read
+     */
+    private void sendExecutionStatusChangedNotification(Session session, MessageProducer producer, OutboxMessage outboxMessage, ObjectNode notification) throws JMSException, IOException {
+        if (!Objects.isNull(outboxMessage.getResultKey())) {
+            try (InputStream result = blobStore.get(outboxMessage.getResultKey())) {
+                notification.set("executionResult", objectMapper.readTree(result));
+            }
+        }
+        Destination destination = jmsTemplate.getDestinationResolver().resolveDestinationName(session, outboxMessage.getDestination(), jmsTemplate.isPubSubDomain());
+        Message message = messageCodec.encode(session, notification, outboxMessage.getContentType());
+        message.setJMSReplyTo(getReplyTo(session));
+
+        Timer.Sample send = Timer.start(meterRegistry);
+        producer.send(destination, message);
+        send.stop(meterRegistry.timer("quantumservice.messaging.send", "destination", outboxMessage.getDestination()));
+        log.info("Job-Status={} was reached for application={} and notification was sent to destination={}!", notification.path("status").asText(), notification.path("executedApplication").asText(), outboxMessage.getDestination());
+    }
+
+    // The reply-to queue is the same for all notifications, so it is only created once
+    private Queue getReplyTo(Session session) throws JMSException {
+        if (Objects.isNull(replyTo)) {
+            replyTo = session.createQueue(REPLY_TO_QUEUE);
+        }
+        return replyTo;
+    }
+
+    private void emitExecutionResultEvent(OutboxMessage outboxMessage, JSONObject eventObject) {
         EventPayload eventPayload = new EventPayload();
         eventPayload.setEventType(EventType.EXECUTION_RESULT);
-        eventPayload.addAdditionalProperty("quantumApplicationName", job.getQuantumApplication().getName());
-        eventPayload.addEventPayloadProperties("device", job.getDevice());
-        eventPayload.addEventPayloadProperties("result", job.getResult().toString());
-        try {
-            eventTriggerService.emitEvent(eventPayload);
-        } catch (OpenWhiskException e) {
-            log.warn("OpenWhisk error occurred! Maybe some trigger was invoked that does not have any registered actions");
-        }
+        eventPayload.addAdditionalProperty("quantumApplicationName", eventObject.getString("quantumApplicationName"));
+        eventPayload.addEventPayloadProperties("device", eventObject.getString("device"));
+        eventPayload.addEventPayloadProperties("result", blobStore.getAsString(outboxMessage.getResultKey()));
+        eventTriggerService.emitEvent(eventPayload);
     }
 }
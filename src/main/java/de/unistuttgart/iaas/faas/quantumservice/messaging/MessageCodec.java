@@ -0,0 +1,124 @@
+package de.unistuttgart.iaas.faas.quantumservice.messaging;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class encodes and decodes the content of JMS messages. JSON is sent as TextMessage, so that existing consumers
+ * keep working, while CBOR is sent as BytesMessage. The content type of a message is stored in its contentType
+ * property, BytesMessages without a content type are expected to contain JSON.
+ */
+@Component
+public class MessageCodec {
+
+    public static final String CONTENT_TYPE_PROPERTY = "contentType";
+    public static final String JSON = "application/json";
+    public static final String CBOR = "application/cbor";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+
+    public MessageCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * This method checks whether messages can be encoded using the given content type.
+     *
+     * @param contentType Content type, null for the default content type
+     * @return supported
+     */
+    public boolean isSupported(String contentType) {
+        return Objects.isNull(contentType) || JSON.equals(contentType) || CBOR.equals(contentType);
+    }
+
+    /**
+     * This method creates a message with the given content.
+     *
+     * @param session Session that is used to create the message
+     * @param content Content of the message
+     * @param contentType Content type of the message, null for JSON
+     * @return message TextMessage for JSON or BytesMessage for CBOR
+     * @throws JMSException Thrown if some JMS error occurs
+     * @throws JsonProcessingException Thrown if the content could not be encoded
+     */
+    public Message encode(Session session, JsonNode content, String contentType) throws JMSException, JsonProcessingException {
+        if (CBOR.equals(contentType)) {
+            BytesMessage message = session.createBytesMessage();
+            message.writeBytes(cborMapper.writeValueAsBytes(content));
+            message.setStringProperty(CONTENT_TYPE_PROPERTY, CBOR);
+            return message;
+        }
+        TextMessage message = session.createTextMessage(objectMapper.writeValueAsString(content));
+        message.setStringProperty(CONTENT_TYPE_PROPERTY, JSON);
+        return message;
+    }
+
+    /**
+     * This method reads the body of a TextMessage or BytesMessage.
+     *
+     * @param message Received message
+     * @return body The body of the message or null if the message is of another type
+     * @throws JMSException Thrown if some JMS error occurs
+     */
+    public byte[] readBody(Message message) throws JMSException {
+        if (message instanceof TextMessage) {
+            String text = ((TextMessage) message).getText();
+            return Objects.isNull(text) ? new byte[0] : text.getBytes(StandardCharsets.UTF_8);
+        }
+        if (message instanceof BytesMessage) {
+            BytesMessage bytesMessage = (BytesMessage) message;
+            byte[] body = new byte[(int) bytesMessage.getBodyLength()];
+            bytesMessage.reset();
+            bytesMessage.readBytes(body);
+            return body;
+        }
+        return null;
+    }
+
+    /**
+     * This method decodes the body of a received message.
+     *
+     * @param message Received message
+     * @param body Body of the message
+     * @param type Type of the content
+     * @param <T> Type of the content
+     * @return content
+     * @throws JMSException Thrown if some JMS error occurs
+     * @throws IOException Thrown if the content type is not supported or the body could not be decoded
+     */
+    public <T> T decode(Message message, byte[] body, Class<T> type) throws JMSException, IOException {
+        String contentType = getContentType(message);
+        if (message instanceof TextMessage || Objects.isNull(contentType) || JSON.equals(contentType)) {
+            return objectMapper.readValue(body, type);
+        }
+        if (CBOR.equals(contentType)) {
+            return cborMapper.readValue(body, type);
+        }
+        throw new IOException("The content type " + contentType + " is not supported!");
+    }
+
+    /**
+     * This method returns the content type of a received message.
+     *
+     * @param message Received message
+     * @return contentType The content type or null if it is not set
+     * @throws JMSException Thrown if some JMS error occurs
+     */
+    public String getContentType(Message message) throws JMSException {
+        return message.propertyExists(CONTENT_TYPE_PROPERTY) ? message.getStringProperty(CONTENT_TYPE_PROPERTY) : null;
+    }
+}
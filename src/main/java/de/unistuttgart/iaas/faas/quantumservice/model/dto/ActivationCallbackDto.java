@@ -0,0 +1,17 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.dto;
+
+import javax.validation.constraints.NotBlank;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class ActivationCallbackDto {
+
+    @NotBlank
+    private String activationId;
+
+    @NotBlank
+    private String jobId;
+}
@@ -20,9 +20,13 @@ public class JobDto {
     private String ibmqId;
     private Map<JobStatus, JobStatusDetails> statusDetails = new HashMap<>();
     private JobStatus status;
-    private String result;
+    private Long resultSize;
+    private String resultChecksum;
     private String inputParams;
     private String device;
+    private String ibmqHub;
+    private String ibmqGroup;
+    private String ibmqProject;
     private ZonedDateTime creationDate;
     private ZonedDateTime endDate;
     private Boolean success;
@@ -25,6 +25,8 @@ public class QuantumApplicationDto {
     private String code;
     private String dockerImage;
     private String notificationAddress;
+    private String notificationContentType;
+    private boolean blockingInvocation;
 
     @JsonIgnore
     private OpenWhiskServiceDto openWhiskService;
@@ -1,8 +1,6 @@
 package de.unistuttgart.iaas.faas.quantumservice.model.dto;
 
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.UUID;
 
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution.ExecutionStatus;
@@ -23,7 +21,8 @@ public class ScriptExecutionDto {
     @JsonIgnore
     private QuantumApplicationDto quantumApplication;
 
-    private List<String> logs = new ArrayList<>();
+    private Long logsSize;
+    private String logsChecksum;
 
     private String inputParams;
     private ZonedDateTime triggerFiredAt;
@@ -5,6 +5,7 @@ import java.util.UUID;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Positive;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -35,4 +36,10 @@ public class EventTriggerDto {
 
     @NotNull(message = "EventType must not be null!")
     private EventType eventType;
+
+    @Positive(message = "The coalesce window must be positive!")
+    private Long coalesceWindow;
+
+    @Positive(message = "The coalesce max count must be positive!")
+    private Integer coalesceMaxCount;
 }
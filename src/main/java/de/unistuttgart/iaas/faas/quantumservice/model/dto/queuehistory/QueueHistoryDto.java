@@ -0,0 +1,18 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.dto.queuehistory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class QueueHistoryDto {
+
+    private String device;
+    private Integer currentQueueSize;
+    private double trendPerHour;
+    private List<QueueSizePointDto> points = new ArrayList<>();
+    private List<QueueSizeWindowDto> windows = new ArrayList<>();
+}
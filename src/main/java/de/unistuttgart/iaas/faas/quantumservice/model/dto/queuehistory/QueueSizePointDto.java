@@ -0,0 +1,16 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.dto.queuehistory;
+
+import java.time.ZonedDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueSizePointDto {
+
+    private ZonedDateTime timestamp;
+    private int queueSize;
+}
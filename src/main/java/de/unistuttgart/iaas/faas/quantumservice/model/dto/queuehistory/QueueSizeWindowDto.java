@@ -0,0 +1,22 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.dto.queuehistory;
+
+import java.time.ZonedDateTime;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class QueueSizeWindowDto {
+
+    private ZonedDateTime windowStart;
+    private ZonedDateTime windowEnd;
+    private int sampleCount;
+    private int minimum;
+    private int maximum;
+    private double average;
+    private int p50;
+    private int p90;
+    private int p99;
+    private boolean complete;
+}
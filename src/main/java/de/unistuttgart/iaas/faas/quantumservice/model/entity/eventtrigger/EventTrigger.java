@@ -1,6 +1,7 @@
 package de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger;
 
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 import javax.persistence.CascadeType;
@@ -35,4 +36,12 @@ public class EventTrigger extends HasId {
 
     @Enumerated(EnumType.STRING)
     private EventType eventType;
+
+    // Optional coalescing of events, the trigger is fired once per window or once the count is reached
+    private Long coalesceWindow;
+    private Integer coalesceMaxCount;
+
+    public boolean isCoalescing() {
+        return !Objects.isNull(coalesceWindow) || !Objects.isNull(coalesceMaxCount);
+    }
 }
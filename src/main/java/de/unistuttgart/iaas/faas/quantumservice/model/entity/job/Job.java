@@ -5,23 +5,24 @@ import java.util.HashMap;
 import java.util.Map;
 
 import javax.persistence.Column;
-import javax.persistence.Convert;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
+import javax.persistence.Index;
 import javax.persistence.Lob;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
 
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.HasId;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.quantumapplication.QuantumApplication;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.json.JSONObject;
 
 @Entity
+@Table(indexes = @Index(name = "idx_job_status_next_poll_at", columnList = "status, next_poll_at"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -35,12 +36,17 @@ public class Job extends HasId {
     @ElementCollection
     private Map<JobStatus, JobStatusDetails> statusDetails = new HashMap<>();
 
-    @Lob
-    @Convert(converter= JobResultConverter.class)
-    private JSONObject result;
+    private String resultKey;
+    private Long resultSize;
+    private String resultChecksum;
 
     private String device;
 
+    // Project the job was started in, the configured default project is used if they are not set
+    private String ibmqHub;
+    private String ibmqGroup;
+    private String ibmqProject;
+
     @Lob
     @Column
     private String inputParams;
@@ -49,6 +55,12 @@ public class Job extends HasId {
 
     private Boolean success;
 
+    private ZonedDateTime nextPollAt;
+    private Long pollInterval;
+
+    private String leaseOwner;
+    private ZonedDateTime leaseExpiresAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     private QuantumApplication quantumApplication;
 
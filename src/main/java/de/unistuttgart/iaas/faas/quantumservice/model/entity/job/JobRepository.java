@@ -1,15 +1,22 @@
 package de.unistuttgart.iaas.faas.quantumservice.model.entity.job;
 
-import java.util.Arrays;
-import java.util.HashSet;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 
+import javax.persistence.LockModeType;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface JobRepository extends CrudRepository<Job, UUID> {
 
@@ -19,9 +26,35 @@ public interface JobRepository extends CrudRepository<Job, UUID> {
     Set<Job> findByQuantumApplicationName(String actionName);
     Set<Job> findByStatusNotIn(Set<JobStatus> statuses);
 
-    default Set<Job> findRunningJobs() {
-        return findByStatusNotIn(new HashSet<>(Arrays.asList(JobStatus.COMPLETED, JobStatus.FAILED)));
-    }
+    /**
+     * This query locks a batch of running jobs that are due for polling and not leased by any service instance.
+     * Rows that are currently locked by other instances are skipped.
+     */
+    @Query(value = "SELECT * FROM job WHERE status NOT IN ('COMPLETED', 'FAILED') AND (next_poll_at IS NULL OR next_poll_at <= :currentTimestamp) " +
+            "AND (lease_expires_at IS NULL OR lease_expires_at <= :currentTimestamp) ORDER BY next_poll_at LIMIT :batchSize FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Job> lockJobsDueForPoll(@Param("currentTimestamp") ZonedDateTime currentTimestamp, @Param("batchSize") int batchSize);
+
+    @Query("SELECT DISTINCT job.resultKey FROM Job job WHERE job.resultKey IS NOT NULL")
+    Set<String> findResultKeys();
+
+    @Query(value = "SELECT COUNT(*) FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'job' AND column_name = 'result'", nativeQuery = true)
+    long countLegacyResultColumns();
+
+    /**
+     * This query returns the ID and the result of jobs whose result is still stored in the legacy result column.
+     */
+    @Query(value = "SELECT id, result FROM job WHERE result IS NOT NULL LIMIT :batchSize", nativeQuery = true)
+    List<Object[]> findLegacyResults(@Param("batchSize") int batchSize);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE job SET result_key = :resultKey, result_size = :resultSize, result_checksum = :resultChecksum, result = NULL WHERE id = :id", nativeQuery = true)
+    int moveLegacyResult(@Param("id") byte[] id, @Param("resultKey") String resultKey, @Param("resultSize") long resultSize,
+                         @Param("resultChecksum") String resultChecksum);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT job FROM Job job WHERE job.id = :id")
+    Optional<Job> lockById(@Param("id") UUID id);
 
     default Page<Job> findAll(Set<JobStatus> statusFilter, Pageable pageable) {
         if (Objects.isNull(statusFilter) || statusFilter.isEmpty()) {
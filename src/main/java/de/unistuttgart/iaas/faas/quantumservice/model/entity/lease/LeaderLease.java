@@ -0,0 +1,29 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.entity.lease;
+
+import java.time.ZonedDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * This class represents a lease on a singleton background task. Only the service instance that owns an unexpired lease
+ * is allowed to execute the task.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaderLease {
+
+    @Id
+    private String name;
+
+    private String owner;
+    private ZonedDateTime expiresAt;
+}
@@ -0,0 +1,23 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.entity.lease;
+
+import java.time.ZonedDateTime;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+public interface LeaderLeaseRepository extends CrudRepository<LeaderLease, String> {
+
+    @Modifying
+    @Query("UPDATE LeaderLease lease SET lease.owner = :owner, lease.expiresAt = :expiresAt WHERE lease.name = :name AND (lease.owner = :owner OR lease.expiresAt <= :currentTimestamp)")
+    int renewOrTakeOver(@Param("name") String name, @Param("owner") String owner, @Param("expiresAt") ZonedDateTime expiresAt, @Param("currentTimestamp") ZonedDateTime currentTimestamp);
+
+    /**
+     * This query creates the lease of a task if it does not exist yet. If several instances create it concurrently,
+     * only one of them inserts the row, so the number of inserted rows tells whether the lease was acquired.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO leader_lease (name, owner, expires_at) VALUES (:name, :owner, :expiresAt)", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name, @Param("owner") String owner, @Param("expiresAt") ZonedDateTime expiresAt);
+}
@@ -0,0 +1,56 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox;
+
+import java.time.ZonedDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.HasId;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * This class represents a message that was written in the same transaction as the change that caused it. The message
+ * is delivered later by the OutboxDispatcher. Large contents like job results are not copied into the message, instead
+ * only their key in the BlobStore is stored.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_outbox_message_status_next_attempt_at", columnList = "status, next_attempt_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxMessage extends HasId {
+
+    @Enumerated(EnumType.STRING)
+    private OutboxMessageType type;
+
+    @Enumerated(EnumType.STRING)
+    private OutboxMessageStatus status = OutboxMessageStatus.PENDING;
+
+    private String destination;
+
+    // Content type the message is encoded with, null for JSON
+    private String contentType;
+
+    @Lob
+    @Column
+    private String payload;
+
+    private String resultKey;
+
+    private ZonedDateTime createdAt;
+    private ZonedDateTime nextAttemptAt;
+    private int attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    private String leaseOwner;
+    private ZonedDateTime leaseExpiresAt;
+}
@@ -0,0 +1,35 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+public interface OutboxMessageRepository extends CrudRepository<OutboxMessage, UUID> {
+
+    long countByStatus(OutboxMessageStatus status);
+
+    @Query("SELECT DISTINCT message.resultKey FROM OutboxMessage message WHERE message.resultKey IS NOT NULL")
+    Set<String> findResultKeys();
+
+    @Query("SELECT MIN(message.createdAt) FROM OutboxMessage message WHERE message.status = :status")
+    ZonedDateTime findOldestCreatedAt(@Param("status") OutboxMessageStatus status);
+
+    /**
+     * This query locks a batch of pending messages that are due for delivery and not leased by any service instance.
+     * Rows that are currently locked by other instances are skipped.
+     */
+    @Query(value = "SELECT * FROM outbox_message WHERE status = 'PENDING' AND next_attempt_at <= :currentTimestamp " +
+            "AND (lease_expires_at IS NULL OR lease_expires_at <= :currentTimestamp) ORDER BY created_at LIMIT :batchSize FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxMessage> lockDueMessages(@Param("currentTimestamp") ZonedDateTime currentTimestamp, @Param("batchSize") int batchSize);
+
+    @Modifying
+    @Query("DELETE FROM OutboxMessage message WHERE message.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<UUID> ids);
+}
@@ -0,0 +1,6 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox;
+
+public enum OutboxMessageStatus {
+    PENDING,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox;
+
+public enum OutboxMessageType {
+    JOB_STATUS_NOTIFICATION,
+    EXECUTION_RESULT_EVENT
+}
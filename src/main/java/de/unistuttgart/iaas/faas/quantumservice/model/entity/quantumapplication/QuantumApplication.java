@@ -37,6 +37,12 @@ public class QuantumApplication extends HasId {
     private String dockerImage;
     private String notificationAddress;
 
+    // Content type of the notifications, null for JSON
+    private String notificationContentType;
+
+    // Invoke the action blocking and create the Job from the invocation response
+    private boolean blockingInvocation;
+
     @ManyToOne
     private OpenWhiskService openWhiskService;
 
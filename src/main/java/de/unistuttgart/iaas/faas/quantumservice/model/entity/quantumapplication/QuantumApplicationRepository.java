@@ -1,5 +1,6 @@
 package de.unistuttgart.iaas.faas.quantumservice.model.entity.quantumapplication;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -12,6 +13,7 @@ import org.springframework.data.repository.query.Param;
 public interface QuantumApplicationRepository extends CrudRepository<QuantumApplication, UUID> {
 
     Optional<QuantumApplication> findByName(String name);
+    Set<QuantumApplication> findByNameIn(Collection<String> names);
     Set<QuantumApplication> findAll();
     Set<QuantumApplication> findByOpenWhiskServiceName(String openWhiskServiceName);
 
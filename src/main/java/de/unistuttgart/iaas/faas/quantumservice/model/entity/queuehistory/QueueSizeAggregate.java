@@ -0,0 +1,35 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.entity.queuehistory;
+
+import java.time.ZonedDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.HasId;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * This class represents the downsampled queue sizes of a device within one aggregation window. Every window of a
+ * device is stored once.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_queue_size_aggregate_device_window_start", columnNames = {"device", "window_start"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class QueueSizeAggregate extends HasId {
+
+    private String device;
+    private ZonedDateTime windowStart;
+    private ZonedDateTime windowEnd;
+    private int sampleCount;
+    private int minimum;
+    private int maximum;
+    private double average;
+    private int p50;
+    private int p90;
+    private int p99;
+}
@@ -0,0 +1,40 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.entity.queuehistory;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface QueueSizeAggregateRepository extends CrudRepository<QueueSizeAggregate, UUID> {
+
+    List<QueueSizeAggregate> findByDeviceAndWindowStartGreaterThanEqualOrderByWindowStart(String device, ZonedDateTime from);
+
+    /**
+     * This query stores the window of a device. If the window was already stored, e.g. by an instance that recorded
+     * the window before it lost the leadership, the aggregate that contains more samples is kept. The sample count is
+     * updated last, because the assignments are evaluated in order.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO queue_size_aggregate (id, device, window_start, window_end, sample_count, minimum, maximum, average, p50, p90, p99) " +
+            "VALUES (:#{#aggregate.id}, :#{#aggregate.device}, :#{#aggregate.windowStart}, :#{#aggregate.windowEnd}, :#{#aggregate.sampleCount}, " +
+            ":#{#aggregate.minimum}, :#{#aggregate.maximum}, :#{#aggregate.average}, :#{#aggregate.p50}, :#{#aggregate.p90}, :#{#aggregate.p99}) " +
+            "ON DUPLICATE KEY UPDATE window_end = IF(VALUES(sample_count) > sample_count, VALUES(window_end), window_end), " +
+            "minimum = IF(VALUES(sample_count) > sample_count, VALUES(minimum), minimum), " +
+            "maximum = IF(VALUES(sample_count) > sample_count, VALUES(maximum), maximum), " +
+            "average = IF(VALUES(sample_count) > sample_count, VALUES(average), average), " +
+            "p50 = IF(VALUES(sample_count) > sample_count, VALUES(p50), p50), " +
+            "p90 = IF(VALUES(sample_count) > sample_count, VALUES(p90), p90), " +
+            "p99 = IF(VALUES(sample_count) > sample_count, VALUES(p99), p99), " +
+            "sample_count = GREATEST(VALUES(sample_count), sample_count)", nativeQuery = true)
+    int upsert(@Param("aggregate") QueueSizeAggregate aggregate);
+
+    @Modifying
+    @Query("DELETE FROM QueueSizeAggregate aggregate WHERE aggregate.windowStart < :before")
+    int deleteOlderThan(@Param("before") ZonedDateTime before);
+}
@@ -3,5 +3,6 @@ package de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution;
 public enum ExecutionStatus {
     RUNNING,
     SUCCESS,
-    ERROR
+    ERROR,
+    TIMEOUT
 }
@@ -1,11 +1,8 @@
 package de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution;
 
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 import javax.persistence.Column;
-import javax.persistence.ElementCollection;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
@@ -37,14 +34,16 @@ public class ScriptExecution extends HasId {
     @ManyToOne(fetch = FetchType.LAZY)
     private QuantumApplication quantumApplication;
 
-    @Column(length = 20971520)
-    @ElementCollection
-    private List<String> logs = new ArrayList<>();
+    private String logsKey;
+    private Long logsSize;
+    private String logsChecksum;
 
     @Lob
     @Column
     private String inputParams;
     private ZonedDateTime triggerFiredAt;
+    // Hash of the secret the action uses to authenticate its callback
+    private String callbackTokenHash;
     private ZonedDateTime executionStartedAt;
     private ZonedDateTime executionEndedAt;
     private Long duration;
@@ -54,4 +53,7 @@ public class ScriptExecution extends HasId {
 
     @Enumerated(EnumType.STRING)
     private ExecutionStatus status;
+
+    private String leaseOwner;
+    private ZonedDateTime leaseExpiresAt;
 }
@@ -1,9 +1,19 @@
 package de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution;
 
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 public interface ScriptExecutionRepository extends CrudRepository<ScriptExecution, UUID> {
 
@@ -11,4 +21,60 @@ public interface ScriptExecutionRepository extends CrudRepository<ScriptExecutio
     Set<ScriptExecution> findByStatus(ExecutionStatus status);
     Set<ScriptExecution> findByOpenWhiskServiceName(String name);
     Set<ScriptExecution> findByQuantumApplicationName(String name);
+
+    @Query("SELECT execution.activationId FROM ScriptExecution execution WHERE execution.activationId IN :activationIds")
+    Set<String> findExistingActivationIds(@Param("activationIds") Collection<String> activationIds);
+
+    @Query("SELECT DISTINCT execution.logsKey FROM ScriptExecution execution WHERE execution.logsKey IS NOT NULL")
+    Set<String> findLogsKeys();
+
+    @Query(value = "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = 'script_execution_logs'", nativeQuery = true)
+    long countLegacyLogsTables();
+
+    /**
+     * This query returns the IDs of script executions whose logs are still stored in the legacy logs table.
+     */
+    @Query(value = "SELECT DISTINCT script_execution_id FROM script_execution_logs LIMIT :batchSize", nativeQuery = true)
+    List<byte[]> findLegacyLogsIds(@Param("batchSize") int batchSize);
+
+    @Query(value = "SELECT logs FROM script_execution_logs WHERE script_execution_id = :id", nativeQuery = true)
+    List<String> findLegacyLogs(@Param("id") byte[] id);
+
+    @Modifying
+    @Query(value = "UPDATE script_execution SET logs_key = :logsKey, logs_size = :logsSize, logs_checksum = :logsChecksum WHERE id = :id", nativeQuery = true)
+    int updateLogsReference(@Param("id") byte[] id, @Param("logsKey") String logsKey, @Param("logsSize") long logsSize, @Param("logsChecksum") String logsChecksum);
+
+    @Modifying
+    @Query(value = "DELETE FROM script_execution_logs WHERE script_execution_id = :id", nativeQuery = true)
+    int deleteLegacyLogs(@Param("id") byte[] id);
+
+    /**
+     * This query locks a batch of running script executions that are not leased by any service instance and whose
+     * trigger was fired before the given time. Rows that are currently locked by other instances are skipped.
+     */
+    @Query(value = "SELECT * FROM script_execution WHERE status = 'RUNNING' AND (lease_expires_at IS NULL OR lease_expires_at <= :currentTimestamp) " +
+            "AND (trigger_fired_at IS NULL OR trigger_fired_at <= :pollableBefore) LIMIT :batchSize FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ScriptExecution> lockRunningScriptExecutions(@Param("currentTimestamp") ZonedDateTime currentTimestamp, @Param("pollableBefore") ZonedDateTime pollableBefore,
+                                                      @Param("batchSize") int batchSize);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT execution FROM ScriptExecution execution WHERE execution.id = :id")
+    Optional<ScriptExecution> lockById(@Param("id") UUID id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT execution FROM ScriptExecution execution WHERE execution.activationId = :activationId")
+    Optional<ScriptExecution> lockByActivationId(@Param("activationId") String activationId);
+
+    @Modifying
+    @Query("UPDATE ScriptExecution execution SET execution.triggerFiredAt = :firedAt WHERE execution.status = :runningStatus AND execution.triggerFiredAt IS NULL")
+    int initializeTriggerFiredAt(@Param("runningStatus") ExecutionStatus runningStatus, @Param("firedAt") ZonedDateTime firedAt);
+
+    @Modifying
+    @Query("UPDATE ScriptExecution execution SET execution.status = :expiredStatus, execution.leaseOwner = NULL, execution.leaseExpiresAt = NULL " +
+            "WHERE execution.status = :runningStatus AND execution.triggerFiredAt < :expiredBefore")
+    int expireScriptExecutions(@Param("runningStatus") ExecutionStatus runningStatus, @Param("expiredStatus") ExecutionStatus expiredStatus, @Param("expiredBefore") ZonedDateTime expiredBefore);
+
+    @Modifying
+    @Query("UPDATE ScriptExecution execution SET execution.leaseExpiresAt = :leaseExpiresAt WHERE execution.id IN :ids AND execution.leaseOwner = :leaseOwner")
+    int updateLeaseExpiry(@Param("ids") Collection<UUID> ids, @Param("leaseOwner") String leaseOwner, @Param("leaseExpiresAt") ZonedDateTime leaseExpiresAt);
 }
@@ -0,0 +1,26 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.entity.storage;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * This class represents the store that is shared by all service instances, identified by the ID that is written into
+ * the store by the first instance.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class StoreRegistration {
+
+    @Id
+    private String name;
+
+    private String storeId;
+}
@@ -0,0 +1,19 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.entity.storage;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface StoreRegistrationRepository extends CrudRepository<StoreRegistration, String> {
+
+    /**
+     * This query registers a store if no store of this name is registered yet. If several instances register it
+     * concurrently, only one of them inserts the row.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO store_registration (name, store_id) VALUES (:name, :storeId)", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name, @Param("storeId") String storeId);
+}
@@ -0,0 +1,34 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.entity.triggeractivation;
+
+import java.time.ZonedDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.HasId;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.openwhiskservice.OpenWhiskService;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * This class represents a trigger activation that was not resolved yet when a service instance was stopped. It is
+ * picked up again by the TriggerActivationResolver of any instance.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_pending_trigger_activation_created_at", columnList = "created_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class PendingTriggerActivation extends HasId {
+
+    @ManyToOne
+    private OpenWhiskService openWhiskService;
+
+    private String activationId;
+    private String callbackTokenHash;
+    private int attempts;
+    private ZonedDateTime createdAt;
+}
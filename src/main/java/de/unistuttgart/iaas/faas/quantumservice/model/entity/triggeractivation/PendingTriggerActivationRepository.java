@@ -0,0 +1,21 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.entity.triggeractivation;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+public interface PendingTriggerActivationRepository extends CrudRepository<PendingTriggerActivation, UUID> {
+
+    Set<PendingTriggerActivation> findByOpenWhiskServiceName(String name);
+
+    /**
+     * This query locks a batch of the oldest pending trigger activations. Rows that are currently locked by other
+     * instances are skipped.
+     */
+    @Query(value = "SELECT * FROM pending_trigger_activation ORDER BY created_at LIMIT :batchSize FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<PendingTriggerActivation> lockPendingTriggerActivations(@Param("batchSize") int batchSize);
+}
@@ -0,0 +1,8 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.exception;
+
+public class InvalidCallbackTokenException extends RuntimeException {
+
+    public InvalidCallbackTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.exception;
+
+public class JournalFullException extends RuntimeException {
+
+    public JournalFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.exception;
+
+import java.util.Set;
+
+import lombok.Getter;
+
+@Getter
+public class TriggerFiringException extends OpenWhiskException {
+
+    // Names of the triggers that were not fired
+    private final Set<String> failedTriggerNames;
+
+    public TriggerFiringException(String message, Set<String> failedTriggerNames) {
+        super(message);
+        this.failedTriggerNames = failedTriggerNames;
+    }
+}
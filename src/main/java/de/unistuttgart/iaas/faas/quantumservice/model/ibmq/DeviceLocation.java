@@ -0,0 +1,16 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.ibmq;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * This class describes where a device can be found in the network of hubs, groups and projects.
+ */
+@Data
+@AllArgsConstructor
+public class DeviceLocation {
+    private String hub;
+    private String group;
+    private String project;
+    private String device;
+}
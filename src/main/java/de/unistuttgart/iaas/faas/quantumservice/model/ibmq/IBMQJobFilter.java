@@ -0,0 +1,16 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.ibmq;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+
+import lombok.Data;
+
+@Data
+public class IBMQJobFilter {
+
+    private Collection<String> ids;
+    private Collection<String> statuses;
+    private ZonedDateTime createdAfter;
+    private int limit = 50;
+    private int skip = 0;
+}
@@ -0,0 +1,15 @@
+package de.unistuttgart.iaas.faas.quantumservice.model.ibmq;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * This class identifies a project in the network of hubs, groups and projects, e.g. the project jobs were started in.
+ */
+@Data
+@AllArgsConstructor
+public class IBMQProject {
+    private String hub;
+    private String group;
+    private String project;
+}
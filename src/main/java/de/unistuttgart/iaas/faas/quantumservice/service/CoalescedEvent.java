@@ -0,0 +1,67 @@
+package de.unistuttgart.iaas.faas.quantumservice.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventPayload;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventTrigger;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventType;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * This class collects the events that are merged into a single activation of a coalescing EventTrigger. It only
+ * references the trigger by its name, so that it can be persisted and restored after a restart.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class CoalescedEvent {
+
+    private String triggerName;
+    private EventType eventType;
+    private Long coalesceWindow;
+    private long startedAt;
+    private List<Map<String, Object>> events = new ArrayList<>();
+
+    // Number of failed attempts to fire the trigger and the time before which it is not retried
+    private int attempts;
+    private long retryAt;
+
+    public CoalescedEvent(EventTrigger eventTrigger, long startedAt) {
+        this.triggerName = eventTrigger.getName();
+        this.eventType = eventTrigger.getEventType();
+        this.coalesceWindow = eventTrigger.getCoalesceWindow();
+        this.startedAt = startedAt;
+    }
+
+    public void add(EventPayload eventPayload) {
+        events.add(new HashMap<>(eventPayload.getEventPayloadProperties()));
+    }
+
+    /**
+     * This method merges the collected events into one payload. It contains the properties of the latest event and
+     * the properties of all events as an array, without the credentials that are added to every event.
+     *
+     * @return eventPayload
+     */
+    public EventPayload toEventPayload() {
+        EventPayload eventPayload = new EventPayload();
+        eventPayload.setEventType(eventType);
+        eventPayload.getEventPayloadProperties().putAll(events.get(events.size() - 1));
+        List<Map<String, Object>> mergedEvents = new ArrayList<>();
+        for (Map<String, Object> event : events) {
+            Map<String, Object> mergedEvent = new HashMap<>(event);
+            mergedEvent.remove("apiToken");
+            mergedEvent.remove("callbackUrl");
+            mergedEvent.remove("callbackToken");
+            mergedEvents.add(mergedEvent);
+        }
+        eventPayload.addEventPayloadProperties("events", mergedEvents);
+        eventPayload.addEventPayloadProperties("eventCount", mergedEvents.size());
+        return eventPayload;
+    }
+}
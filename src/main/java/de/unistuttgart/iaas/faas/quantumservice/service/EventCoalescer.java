@@ -0,0 +1,202 @@
+package de.unistuttgart.iaas.faas.quantumservice.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.EventCoalescerProperties;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.StorageProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventPayload;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventTrigger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class collects the events of EventTriggers that have a coalescing window. The events of a trigger are merged
+ * until the maximum count is reached or the window has passed since the first event, so that the trigger is fired once
+ * for a burst of events. Collected events are kept until their trigger was fired and are persisted to a file, so that
+ * they are not lost if the service is restarted after the checkpoint of the EventJournal was moved behind them.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EventCoalescer {
+
+    private static final String PENDING_FILE = "coalesced-events.json";
+
+    private final StorageProperties storageProperties;
+    private final EventCoalescerProperties properties;
+    private final ObjectMapper objectMapper;
+
+    // Collected events by the name of their trigger, guarded by this
+    private final Map<String, CoalescedEvent> pending = new HashMap<>();
+
+    // Collected events whose trigger is being fired, guarded by this
+    private final Set<CoalescedEvent> firing = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // True if the collected events changed since they were persisted, guarded by this
+    private boolean changed;
+
+    // Lock that serializes writing the file
+    private final Object persistLock = new Object();
+
+    /**
+     * This method restores the events that were collected before the service was stopped.
+     *
+     * @throws IOException Thrown if the persisted events could not be read
+     */
+    @PostConstruct
+    public synchronized void load() throws IOException {
+        Path file = getFile();
+        if (!Files.exists(file)) {
+            return;
+        }
+        List<CoalescedEvent> coalescedEvents = objectMapper.readValue(file.toFile(), new TypeReference<List<CoalescedEvent>>() { });
+        for (CoalescedEvent coalescedEvent : coalescedEvents) {
+            CoalescedEvent collected = pending.putIfAbsent(coalescedEvent.getTriggerName(), coalescedEvent);
+            if (!Objects.isNull(collected)) {
+                // Events of a trigger that was being fired are merged with the events that were collected meanwhile
+                collected.getEvents().addAll(coalescedEvent.getEvents());
+            }
+        }
+        log.info("Restored collected events of {} coalescing triggers", pending.size());
+    }
+
+    /**
+     * This method adds an event to the collected events of a trigger.
+     *
+     * @param eventTrigger Coalescing EventTrigger
+     * @param eventPayload Event payload
+     * @return coalescedEvent The collected events, if the maximum count of the trigger was reached
+     */
+    public synchronized Optional<CoalescedEvent> add(EventTrigger eventTrigger, EventPayload eventPayload) {
+        long now = System.currentTimeMillis();
+        CoalescedEvent coalescedEvent = pending.computeIfAbsent(eventTrigger.getName(), name -> new CoalescedEvent(eventTrigger, now));
+        coalescedEvent.add(eventPayload);
+        changed = true;
+        if (!Objects.isNull(eventTrigger.getCoalesceMaxCount()) && coalescedEvent.getEvents().size() >= eventTrigger.getCoalesceMaxCount()
+                && now >= coalescedEvent.getRetryAt()) {
+            pending.remove(eventTrigger.getName());
+            firing.add(coalescedEvent);
+            return Optional.of(coalescedEvent);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * This method returns the collected events whose coalescing window has passed and whose retry delay expired. They
+     * are kept until they are completed or retried.
+     *
+     * @return coalescedEvents
+     */
+    public synchronized List<CoalescedEvent> drainExpired() {
+        long now = System.currentTimeMillis();
+        List<CoalescedEvent> expired = new ArrayList<>();
+        Iterator<CoalescedEvent> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            CoalescedEvent coalescedEvent = iterator.next();
+            Long window = coalescedEvent.getCoalesceWindow();
+            if ((Objects.isNull(window) || now - coalescedEvent.getStartedAt() >= window) && now >= coalescedEvent.getRetryAt()) {
+                iterator.remove();
+                firing.add(coalescedEvent);
+                expired.add(coalescedEvent);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * This method removes collected events whose trigger was fired.
+     *
+     * @param coalescedEvent Fired events
+     */
+    public synchronized void complete(CoalescedEvent coalescedEvent) {
+        firing.remove(coalescedEvent);
+        changed = true;
+    }
+
+    /**
+     * This method puts collected events back whose trigger could not be fired, so that it is fired again once the retry
+     * delay passed. Events that were collected for the trigger in the meantime are merged into them. Events that failed
+     * the maximum number of attempts are dropped.
+     *
+     * @param coalescedEvent Events that could not be fired
+     */
+    public synchronized void retry(CoalescedEvent coalescedEvent) {
+        firing.remove(coalescedEvent);
+        changed = true;
+        coalescedEvent.setAttempts(coalescedEvent.getAttempts() + 1);
+        if (coalescedEvent.getAttempts() >= properties.getMaxAttempts()) {
+            log.error("Dropping {} collected events of trigger '{}' after {} failed attempts!", coalescedEvent.getEvents().size(),
+                    coalescedEvent.getTriggerName(), coalescedEvent.getAttempts());
+            return;
+        }
+        coalescedEvent.setRetryAt(System.currentTimeMillis() + properties.getRetryDelay());
+        CoalescedEvent collected = pending.get(coalescedEvent.getTriggerName());
+        if (!Objects.isNull(collected)) {
+            coalescedEvent.getEvents().addAll(collected.getEvents());
+        }
+        pending.put(coalescedEvent.getTriggerName(), coalescedEvent);
+    }
+
+    /**
+     * This method writes all collected events to a file, if they changed since they were written last. It must be
+     * called before the checkpoint of the EventJournal is moved behind events that were collected.
+     *
+     * @throws UncheckedIOException Thrown if the file could not be written
+     */
+    @PreDestroy
+    public void persist() {
+        synchronized (persistLock) {
+            byte[] content;
+            synchronized (this) {
+                if (!changed) {
+                    return;
+                }
+                List<CoalescedEvent> coalescedEvents = new ArrayList<>(firing);
+                coalescedEvents.addAll(pending.values());
+                try {
+                    content = objectMapper.writeValueAsBytes(coalescedEvents);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not serialize the collected events!", e);
+                }
+                changed = false;
+            }
+            try {
+                Path file = getFile();
+                Path temporaryFile = file.resolveSibling(PENDING_FILE + ".tmp");
+                Files.createDirectories(file.getParent());
+                Files.write(temporaryFile, content);
+                Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                synchronized (this) {
+                    changed = true;
+                }
+                throw new UncheckedIOException("Could not write the collected events!", e);
+            }
+        }
+    }
+
+    private Path getFile() {
+        return Paths.get(storageProperties.getDirectory()).resolve(PENDING_FILE);
+    }
+}
@@ -0,0 +1,325 @@
+package de.unistuttgart.iaas.faas.quantumservice.service;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.unistuttgart.iaas.faas.quantumservice.events.EventTriggerChangedEvent;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventPayload;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventTrigger;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventTriggerRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventType;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.ExecutionResultEventTrigger;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.QueueSizeEventTrigger;
+import de.unistuttgart.iaas.faas.quantumservice.utils.HashedTimerWheel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * This class keeps all EventTriggers in memory and indexes them by the data that is used to match events. Matching an
+ * event therefore does not require any database query. A trigger is reloaded once a change of it was committed and the
+ * index is additionally reloaded periodically, so that changes of other service instances are picked up.
+ * The cooldowns of QueueSizeEventTriggers are claimed in memory before the triggers are fired, expired by a timer
+ * wheel and persisted in the background.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EventTriggerIndex {
+
+    private static final long COOLDOWN_TICK = 100;
+    private static final int COOLDOWN_WHEEL_SIZE = 1024;
+
+    private final EventTriggerRepository repository;
+
+    // All indexed triggers by their name, guarded by this
+    private final Map<String, EventTrigger> triggers = new HashMap<>();
+
+    // Names of QueueSizeEventTriggers that are disabled, guarded by cooldowns for modifications
+    private final Set<String> disabled = ConcurrentHashMap.newKeySet();
+
+    // Cooldowns of disabled QueueSizeEventTriggers by their name, re-enabling them once they expire
+    private final HashedTimerWheel<String> cooldowns = new HashedTimerWheel<>(COOLDOWN_TICK, COOLDOWN_WHEEL_SIZE, System.currentTimeMillis());
+
+    // Cooldowns that were not yet written to the database, an empty value disables the trigger until it is deleted
+    private final Map<String, Optional<ZonedDateTime>> unpersistedCooldowns = new ConcurrentHashMap<>();
+
+    private volatile Snapshot snapshot = new Snapshot();
+
+    /**
+     * This method reloads all triggers from the database and replaces the index.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${eventTriggerIndex.refreshInterval:60000}", fixedDelayString = "${eventTriggerIndex.refreshInterval:60000}")
+    @Transactional(readOnly = true)
+    public synchronized void refresh() {
+        triggers.clear();
+        for (EventTrigger eventTrigger : repository.findAll()) {
+            initialize(eventTrigger);
+            triggers.put(eventTrigger.getName(), eventTrigger);
+        }
+        rebuild();
+        log.debug("Indexed {} event triggers", triggers.size());
+    }
+
+    /**
+     * This method reloads a single trigger from the database and updates the index. If the trigger does not exist
+     * anymore, it is removed from the index.
+     *
+     * @param name Name of the trigger
+     */
+    @Transactional(readOnly = true)
+    public synchronized void reindex(String name) {
+        EventTrigger eventTrigger = repository.findByName(name).orElse(null);
+        if (Objects.isNull(eventTrigger)) {
+            triggers.remove(name);
+        } else {
+            initialize(eventTrigger);
+            triggers.put(name, eventTrigger);
+        }
+        rebuild();
+    }
+
+    /**
+     * This method reloads a trigger once the transaction that changed it was committed, so that the index never
+     * contains changes that were rolled back. Changes outside of a transaction are reloaded right away.
+     *
+     * @param event Event containing the name of the changed trigger
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onEventTriggerChanged(EventTriggerChangedEvent event) {
+        reindex(event.getName());
+    }
+
+    /**
+     * This method disables a QueueSizeEventTrigger before it is fired, so that it is not fired again during its
+     * cooldown. The cooldown is only claimed in memory and written to the database in the background, so firing a
+     * trigger does not wait for the database. QueueSizeEventTriggers are only fired by the leader of the QueueSizeChecker,
+     * so the cooldown does not need to be claimed across service instances. Triggers without a delay are disabled until
+     * they are deleted. The index does not need to be rebuilt for this.
+     *
+     * @param eventTrigger Trigger that should be fired
+     * @return claimed True if the trigger may be fired
+     */
+    public boolean claimCooldown(QueueSizeEventTrigger eventTrigger) {
+        ZonedDateTime until = Objects.isNull(eventTrigger.getTriggerDelay()) ? null : ZonedDateTime.now().plusMinutes(eventTrigger.getTriggerDelay());
+        synchronized (cooldowns) {
+            if (disabled.contains(eventTrigger.getName())) {
+                return false;
+            }
+            disable(eventTrigger.getName(), until);
+            unpersistedCooldowns.put(eventTrigger.getName(), Optional.ofNullable(until));
+        }
+        return true;
+    }
+
+    /**
+     * This method re-enables a QueueSizeEventTrigger whose cooldown was claimed, but which could not be fired.
+     *
+     * @param name Name of the trigger
+     */
+    public void releaseCooldown(String name) {
+        synchronized (cooldowns) {
+            disabled.remove(name);
+            cooldowns.cancel(name);
+            unpersistedCooldowns.put(name, Optional.of(ZonedDateTime.now()));
+        }
+    }
+
+    /**
+     * This scheduled method writes the cooldowns that were claimed or released since the last run to the database, so
+     * that they are restored after a restart and picked up by other service instances. The cooldowns are only removed
+     * from the queue once the updates were committed, so that failed updates are retried by the next run.
+     */
+    @Transactional
+    @Scheduled(initialDelay = 10000, fixedDelayString = "${eventTriggerIndex.cooldownPersistInterval:1000}")
+    public void persistCooldowns() {
+        Map<String, Optional<ZonedDateTime>> persistedCooldowns = new HashMap<>(unpersistedCooldowns);
+        if (persistedCooldowns.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, Optional<ZonedDateTime>> cooldown : persistedCooldowns.entrySet()) {
+            repository.updateDisabledUntil(cooldown.getKey(), cooldown.getValue().orElse(null));
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // Cooldowns that changed again in the meantime are kept for the next run
+                persistedCooldowns.forEach((name, until) -> unpersistedCooldowns.remove(name, until));
+            }
+        });
+    }
+
+    /**
+     * This scheduled method advances the timer wheel and re-enables the QueueSizeEventTriggers whose cooldown expired.
+     */
+    @Scheduled(fixedRate = COOLDOWN_TICK)
+    public void expireCooldowns() {
+        synchronized (cooldowns) {
+            disabled.removeAll(cooldowns.advance(System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * This method returns all triggers that match the given event. QueueSizeEventTriggers match if the device is
+     * tracked, the queue size does not exceed the threshold and the trigger is not disabled.
+     *
+     * @param payload Event payload
+     * @return eventTriggers
+     */
+    public Set<EventTrigger> find(EventPayload payload) {
+        Snapshot currentSnapshot = snapshot;
+        Set<EventTrigger> eventTriggers = new HashSet<>();
+        switch (payload.getEventType()) {
+            case QUEUE_SIZE:
+                String device = (String) payload.getEventPayloadProperties().get("device");
+                int queueSize = ((Number) payload.getAdditionalProperties().get("queueSize")).intValue();
+                NavigableMap<Integer, List<EventTrigger>> thresholds = currentSnapshot.queueSizeTriggers.get(device);
+                if (Objects.isNull(thresholds)) {
+                    return eventTriggers;
+                }
+                // Only triggers whose threshold is greater or equal to the queue size match
+                for (List<EventTrigger> thresholdTriggers : thresholds.tailMap(queueSize, true).values()) {
+                    for (EventTrigger eventTrigger : thresholdTriggers) {
+                        if (!disabled.contains(eventTrigger.getName())) {
+                            eventTriggers.add(eventTrigger);
+                        }
+                    }
+                }
+                return eventTriggers;
+            case EXECUTION_RESULT:
+                String quantumApplicationName = (String) payload.getAdditionalProperties().get("quantumApplicationName");
+                eventTriggers.addAll(currentSnapshot.executionResultTriggers.getOrDefault(quantumApplicationName, Collections.emptyList()));
+                return eventTriggers;
+            case BASIC:
+                EventTrigger basicTrigger = currentSnapshot.basicTriggers.get((String) payload.getAdditionalProperties().get("triggerName"));
+                if (!Objects.isNull(basicTrigger)) {
+                    eventTriggers.add(basicTrigger);
+                }
+                return eventTriggers;
+            default:
+                eventTriggers.addAll(currentSnapshot.allTriggers.values());
+                return eventTriggers;
+        }
+    }
+
+    /**
+     * This method returns an indexed trigger by its name.
+     *
+     * @param name Name of the trigger
+     * @return eventTrigger
+     */
+    public Optional<EventTrigger> get(String name) {
+        return Optional.ofNullable(snapshot.allTriggers.get(name));
+    }
+
+    // This method loads the lazy data of a trigger that is needed after the transaction ended
+    private void initialize(EventTrigger eventTrigger) {
+        Hibernate.initialize(eventTrigger.getOpenWhiskService());
+        if (eventTrigger instanceof QueueSizeEventTrigger) {
+            Hibernate.initialize(((QueueSizeEventTrigger) eventTrigger).getTrackedDevices());
+        }
+    }
+
+    // This method builds a new immutable snapshot from the indexed triggers, must be called while holding the lock
+    private void rebuild() {
+        Snapshot newSnapshot = new Snapshot();
+        for (EventTrigger eventTrigger : triggers.values()) {
+            newSnapshot.allTriggers.put(eventTrigger.getName(), eventTrigger);
+            if (eventTrigger instanceof QueueSizeEventTrigger) {
+                QueueSizeEventTrigger queueSizeEventTrigger = (QueueSizeEventTrigger) eventTrigger;
+                for (String device : queueSizeEventTrigger.getTrackedDevices()) {
+                    newSnapshot.queueSizeTriggers.computeIfAbsent(device, key -> new TreeMap<>())
+                            .computeIfAbsent(queueSizeEventTrigger.getSizeThreshold(), key -> new ArrayList<>())
+                            .add(eventTrigger);
+                }
+                restoreCooldown(queueSizeEventTrigger);
+            } else if (eventTrigger instanceof ExecutionResultEventTrigger) {
+                newSnapshot.executionResultTriggers.computeIfAbsent(((ExecutionResultEventTrigger) eventTrigger).getExecutedApplicationName(), key -> new ArrayList<>())
+                        .add(eventTrigger);
+            } else if (eventTrigger.getEventType() == EventType.BASIC) {
+                newSnapshot.basicTriggers.put(eventTrigger.getName(), eventTrigger);
+            }
+        }
+        synchronized (cooldowns) {
+            for (String name : new ArrayList<>(disabled)) {
+                if (!triggers.containsKey(name)) {
+                    disabled.remove(name);
+                    cooldowns.cancel(name);
+                }
+            }
+        }
+        snapshot = newSnapshot;
+    }
+
+    // This method disables a trigger locally until the given time, or until it is deleted if no time is given
+    private void disable(String name, ZonedDateTime until) {
+        synchronized (cooldowns) {
+            if (Objects.isNull(until)) {
+                disabled.add(name);
+                cooldowns.cancel(name);
+            } else if (until.toInstant().toEpochMilli() > System.currentTimeMillis()) {
+                disabled.add(name);
+                cooldowns.schedule(name, until.toInstant().toEpochMilli());
+            }
+        }
+    }
+
+    // This method applies the stored cooldown of a trigger, unless a later or unpersisted cooldown exists locally
+    private void restoreCooldown(QueueSizeEventTrigger eventTrigger) {
+        synchronized (cooldowns) {
+            if (unpersistedCooldowns.containsKey(eventTrigger.getName())) {
+                // The local cooldown is newer than the stored one
+                return;
+            }
+            if (Objects.isNull(eventTrigger.getDisabledUntil())) {
+                // Triggers without a disabled time never match
+                disabled.add(eventTrigger.getName());
+                cooldowns.cancel(eventTrigger.getName());
+                return;
+            }
+            long storedDeadline = eventTrigger.getDisabledUntil().toInstant().toEpochMilli();
+            Long deadline = cooldowns.getDeadline(eventTrigger.getName());
+            if (storedDeadline > System.currentTimeMillis()) {
+                if (Objects.isNull(deadline) || storedDeadline > deadline) {
+                    disabled.add(eventTrigger.getName());
+                    cooldowns.schedule(eventTrigger.getName(), storedDeadline);
+                }
+            } else if (Objects.isNull(deadline)) {
+                // The stored cooldown expired or was reset, e.g. by another instance
+                disabled.remove(eventTrigger.getName());
+            }
+        }
+    }
+
+    /**
+     * This class contains the lookup structures of the index. A snapshot is never modified after it was published.
+     */
+    private static class Snapshot {
+        private final Map<String, EventTrigger> allTriggers = new HashMap<>();
+        private final Map<String, NavigableMap<Integer, List<EventTrigger>>> queueSizeTriggers = new HashMap<>();
+        private final Map<String, List<EventTrigger>> executionResultTriggers = new HashMap<>();
+        private final Map<String, EventTrigger> basicTriggers = new HashMap<>();
+    }
+}
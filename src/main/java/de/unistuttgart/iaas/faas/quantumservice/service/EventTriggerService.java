@@ -1,14 +1,29 @@
 package de.unistuttgart.iaas.faas.quantumservice.service;
 
-import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import de.unistuttgart.iaas.faas.quantumservice.api.OpenWhiskClient;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.CallbackProperties;
 import de.unistuttgart.iaas.faas.quantumservice.configuration.IBMQProperties;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.OpenWhiskProperties;
+import de.unistuttgart.iaas.faas.quantumservice.events.EventTriggerChangedEvent;
+import de.unistuttgart.iaas.faas.quantumservice.events.TriggerActivationResolver;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventPayload;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventTrigger;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventTriggerRepository;
@@ -17,24 +32,44 @@ import de.unistuttgart.iaas.faas.quantumservice.model.entity.openwhiskservice.Op
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.quantumapplication.QuantumApplication;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.quantumapplication.QuantumApplicationRepository;
 import de.unistuttgart.iaas.faas.quantumservice.model.exception.ElementAlreadyExistsException;
+import de.unistuttgart.iaas.faas.quantumservice.model.exception.InvalidInputException;
+import de.unistuttgart.iaas.faas.quantumservice.model.exception.JournalFullException;
+import de.unistuttgart.iaas.faas.quantumservice.model.exception.TriggerFiringException;
 import de.unistuttgart.iaas.faas.quantumservice.model.openwhisk.ActivationResult;
-import de.unistuttgart.iaas.faas.quantumservice.model.openwhisk.OpenWhiskActivation;
+import de.unistuttgart.iaas.faas.quantumservice.storage.EventJournal;
+import de.unistuttgart.iaas.faas.quantumservice.utils.CallbackTokenUtils;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * This Service-Class implements functions that operate on Event-Trigger objects.
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class EventTriggerService {
 
     private final EventTriggerRepository repository;
     private final QuantumApplicationRepository quantumApplicationRepository;
     private final OpenWhiskServiceService openWhiskServiceService;
     private final OpenWhiskClient openWhiskClient;
-    private final ScriptExecutionService scriptExecutionService;
+    private final TriggerActivationResolver triggerActivationResolver;
+    private final OpenWhiskBulkheads openWhiskBulkheads;
+    private final OpenWhiskProperties openWhiskProperties;
+    private final MeterRegistry meterRegistry;
+    private final EventJournal eventJournal;
+    private final ObjectMapper objectMapper;
+    private final EventCoalescer eventCoalescer;
     private final IBMQProperties ibmqProperties;
+    private final CallbackProperties callbackProperties;
+    private final EventTriggerIndex eventTriggerIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * This method stores a new EventTrigger in the database and also creates a Trigger at the given OpenWhisk-Service.
@@ -54,49 +89,233 @@ public class EventTriggerService {
         // Create Trigger at the OpenWhisk-Service
         openWhiskClient.deployTriggerToFaas(eventTrigger);
         // Store EventTrigger in database
-        return repository.save(eventTrigger);
+        EventTrigger createdEventTrigger = repository.save(eventTrigger);
+        eventPublisher.publishEvent(new EventTriggerChangedEvent(createdEventTrigger.getName()));
+        return createdEventTrigger;
     }
 
     /**
-     * This method fires triggers with some payload.
+     * This method stores an event inside the event journal. The event is emitted in the background by the
+     * EventJournalDispatcher, so the caller does not wait for the OpenWhisk-Services.
      *
      * @param eventPayload - EventPayload
+     * @throws JournalFullException Thrown if the event journal is full
+     */
+    public void acceptEvent(EventPayload eventPayload) {
+        if (Objects.isNull(eventPayload) || Objects.isNull(eventPayload.getEventType())) {
+            throw new InvalidInputException("The event type of the event is missing!");
+        }
+        try {
+            eventJournal.append(objectMapper.writeValueAsBytes(eventPayload));
+        } catch (JsonProcessingException e) {
+            throw new InvalidInputException("The event could not be serialized!");
+        }
+    }
+
+    /**
+     * This method fires triggers with some payload. The events of coalescing triggers are collected and only fire the
+     * trigger once their maximum count is reached or by the scheduled flush. All other triggers are fired right away.
+     *
+     * @param eventPayload - EventPayload
+     * @throws TriggerFiringException Thrown if some of the triggers could not be fired
      */
     public void emitEvent(EventPayload eventPayload) {
-        Set<EventTrigger> eventTriggerToDelete = new HashSet<>();
-        // Add apiToken to payload
-        eventPayload.addEventPayloadProperties("apiToken", ibmqProperties.getApiToken());
+        emitEvent(eventPayload, null);
+    }
+
+    /**
+     * This method fires the given triggers with some payload, so that an event can be emitted again for the triggers
+     * that could not be fired before. If no trigger names are given, all triggers that match the event are fired.
+     * Coalescing triggers that could not be fired are not reported, as their events are kept by the EventCoalescer.
+     *
+     * @param eventPayload - EventPayload
+     * @param triggerNames Names of the triggers that should be fired or null
+     * @throws TriggerFiringException Thrown if some of the triggers could not be fired
+     */
+    public void emitEvent(EventPayload eventPayload, Set<String> triggerNames) {
+        Map<EventTrigger, EventPayload> firings = new LinkedHashMap<>();
+        Map<EventTrigger, CoalescedEvent> coalescedEvents = new LinkedHashMap<>();
         for (EventTrigger trigger : findByEventType(eventPayload)) {
-            fireEventTrigger(trigger, eventPayload);
+            if (!Objects.isNull(triggerNames) && !triggerNames.contains(trigger.getName())) {
+                continue;
+            }
+            if (trigger.isCoalescing()) {
+                eventCoalescer.add(trigger, eventPayload).ifPresent(coalescedEvent -> coalescedEvents.put(trigger, coalescedEvent));
+            } else {
+                firings.put(trigger, eventPayload);
+            }
+        }
+        // The apiToken is added after the events were collected, so that it is not persisted by the EventCoalescer
+        eventPayload.addEventPayloadProperties("apiToken", ibmqProperties.getApiToken());
+        fireEventTriggers(firings, coalescedEvents);
+    }
 
-            if (trigger instanceof QueueSizeEventTrigger) {
-                QueueSizeEventTrigger queueSizeEventTrigger = (QueueSizeEventTrigger) trigger;
-                if (Objects.isNull(queueSizeEventTrigger.getTriggerDelay())) {
-                    eventTriggerToDelete.add(trigger);
+    /**
+     * This scheduled method fires the coalescing triggers whose coalescing window has passed, using the merged
+     * payload of their collected events. Events of triggers that could not be fired are put back into the
+     * EventCoalescer and retried later. Afterwards the collected events are persisted.
+     */
+    @Scheduled(initialDelay = 10000, fixedDelayString = "${eventCoalescer.flushInterval:100}")
+    public void flushCoalescedEvents() {
+        Map<EventTrigger, CoalescedEvent> coalescedEvents = new LinkedHashMap<>();
+        for (CoalescedEvent coalescedEvent : eventCoalescer.drainExpired()) {
+            Optional<EventTrigger> trigger = eventTriggerIndex.get(coalescedEvent.getTriggerName());
+            if (trigger.isPresent()) {
+                coalescedEvents.put(trigger.get(), coalescedEvent);
+            } else {
+                log.warn("Dropping {} collected events of deleted trigger '{}'", coalescedEvent.getEvents().size(), coalescedEvent.getTriggerName());
+                eventCoalescer.complete(coalescedEvent);
+            }
+        }
+        if (!coalescedEvents.isEmpty()) {
+            log.debug("Firing {} coalesced triggers", coalescedEvents.size());
+            fireEventTriggers(Collections.emptyMap(), coalescedEvents);
+        }
+        eventCoalescer.persist();
+    }
+
+    /**
+     * This method fires triggers and coalesced events and hands the coalesced events back to the EventCoalescer. The
+     * coalesced events of triggers that could not be fired are retried by the EventCoalescer, so only the other
+     * triggers are reported as failed.
+     *
+     * @param eventPayloads Payloads by the trigger that should be fired with them
+     * @param coalescedEvents Coalesced events by the trigger that should be fired with them
+     * @throws TriggerFiringException Thrown if some of the triggers without coalesced events could not be fired
+     */
+    private void fireEventTriggers(Map<EventTrigger, EventPayload> eventPayloads, Map<EventTrigger, CoalescedEvent> coalescedEvents) {
+        Map<EventTrigger, EventPayload> firings = new LinkedHashMap<>(eventPayloads);
+        for (Map.Entry<EventTrigger, CoalescedEvent> coalescedEvent : coalescedEvents.entrySet()) {
+            EventPayload eventPayload = coalescedEvent.getValue().toEventPayload();
+            eventPayload.addEventPayloadProperties("apiToken", ibmqProperties.getApiToken());
+            firings.put(coalescedEvent.getKey(), eventPayload);
+        }
+        Set<String> failedTriggerNames = null;
+        try {
+            failedTriggerNames = fireConcurrently(firings);
+        } finally {
+            for (Map.Entry<EventTrigger, CoalescedEvent> coalescedEvent : coalescedEvents.entrySet()) {
+                if (Objects.isNull(failedTriggerNames) || failedTriggerNames.remove(coalescedEvent.getKey().getName())) {
+                    eventCoalescer.retry(coalescedEvent.getValue());
                 } else {
-                    updateDelayUntilTime(trigger.getName());
+                    eventCoalescer.complete(coalescedEvent.getValue());
                 }
             }
         }
+        if (!failedTriggerNames.isEmpty()) {
+            throw new TriggerFiringException("The triggers " + failedTriggerNames + " could not be fired!", failedTriggerNames);
+        }
+    }
+
+    /**
+     * This method fires triggers concurrently, using the bulkhead of their OpenWhisk-Service, so that a slow
+     * OpenWhisk-Service does not delay the triggers of the others. All firings are awaited before failures are reported.
+     * A trigger that was not fired within the fire timeout is not interrupted, as it might already have been fired, so
+     * it is handled like a fired trigger and not reported as failed. No transaction is held while the firings are
+     * awaited, only one-time-use triggers are deleted in their own transaction afterwards. The cooldown of a
+     * QueueSizeEventTrigger is claimed before it is fired and released again if it could not be fired. Triggers whose
+     * cooldown was claimed concurrently are skipped.
+     *
+     * @param eventPayloads Payloads by the trigger that should be fired with them
+     * @return failedTriggerNames Names of the triggers that could not be fired
+     */
+    private Set<String> fireConcurrently(Map<EventTrigger, EventPayload> eventPayloads) {
+        Set<EventTrigger> eventTriggerToDelete = new HashSet<>();
+        Set<String> failedTriggerNames = new LinkedHashSet<>();
+
+        // Fire all triggers concurrently
+        Map<EventTrigger, Future<?>> firings = new LinkedHashMap<>();
+        for (Map.Entry<EventTrigger, EventPayload> eventPayload : eventPayloads.entrySet()) {
+            EventTrigger trigger = eventPayload.getKey();
+            if (trigger instanceof QueueSizeEventTrigger && !eventTriggerIndex.claimCooldown((QueueSizeEventTrigger) trigger)) {
+                countFiring(trigger, "cooldown");
+                continue;
+            }
+            try {
+                firings.put(trigger, openWhiskBulkheads.submit(trigger.getOpenWhiskService(), () -> fireEventTrigger(trigger, eventPayload.getValue())));
+            } catch (RejectedExecutionException e) {
+                countFiring(trigger, "rejected");
+                log.error("Trigger '{}' of OpenWhisk-Service '{}' was rejected by its bulkhead and not fired!", trigger.getName(), trigger.getOpenWhiskService().getName(), e);
+                failedTriggerNames.add(trigger.getName());
+                releaseCooldown(trigger);
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + openWhiskProperties.getFireTimeout();
+        boolean interrupted = false;
+        for (Map.Entry<EventTrigger, Future<?>> firing : firings.entrySet()) {
+            EventTrigger trigger = firing.getKey();
+            if (interrupted) {
+                // The firing may still finish, so its cooldown is kept
+                failedTriggerNames.add(trigger.getName());
+                continue;
+            }
+            try {
+                firing.getValue().get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                countFiring(trigger, "success");
+            } catch (TimeoutException e) {
+                countFiring(trigger, "timeout");
+                log.warn("Trigger '{}' of OpenWhisk-Service '{}' was not fired within the fire timeout and is handled as fired", trigger.getName(), trigger.getOpenWhiskService().getName());
+            } catch (ExecutionException e) {
+                countFiring(trigger, "failure");
+                log.error("Something went wrong firing trigger '{}'!", trigger.getName(), e.getCause());
+                failedTriggerNames.add(trigger.getName());
+                releaseCooldown(trigger);
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted = true;
+                failedTriggerNames.add(trigger.getName());
+                continue;
+            }
+
+            if (trigger instanceof QueueSizeEventTrigger && Objects.isNull(((QueueSizeEventTrigger) trigger).getTriggerDelay())) {
+                eventTriggerToDelete.add(trigger);
+            }
+        }
 
-        // Delete triggers without a delay (one-time-use QueueSizeEventTriggers)
+        // Delete triggers without a delay (one-time-use QueueSizeEventTriggers), they stay disabled if that fails
         for (EventTrigger trigger : eventTriggerToDelete) {
-            deleteEventTrigger(trigger.getName());
+            try {
+                transactionTemplate.executeWithoutResult(status -> deleteEventTrigger(trigger.getName()));
+            } catch (Exception e) {
+                log.error("Could not delete one-time-use trigger '{}'!", trigger.getName(), e);
+            }
         }
+
+        return failedTriggerNames;
     }
 
     /**
-     * This method fires a trigger with some payload. The Trigger activation is used to retrieve the Activation-ID
-     * of all executed actions. Then ScriptExecutions are generated from the Activation-IDs of the executed actions.
+     * This method fires a trigger with some payload. The callbackUrl and a new secret are added to the payload, so
+     * that the actions can report the started job. The Trigger activation is resolved in the background to retrieve
+     * the Activation-ID of all executed actions. Then ScriptExecutions are generated from the Activation-IDs of the
+     * executed actions. The trigger is not fired if the resolver has no capacity left, so that the firing fails and is
+     * retried later.
      *
      * @param eventTrigger EventTrigger
      * @param eventPayload Event payload
      * @return openWhiskActivationId
+     * @throws RejectedExecutionException Thrown if the trigger activation resolver is at capacity
      */
     public ActivationResult fireEventTrigger(EventTrigger eventTrigger, EventPayload eventPayload) {
-        ActivationResult result = openWhiskClient.fireTrigger(eventTrigger, eventPayload.getEventPayloadProperties());
-        OpenWhiskActivation activation = openWhiskClient.getActivation(eventTrigger.getOpenWhiskService(), result.getActivationId());
-        scriptExecutionService.createScriptExecutionsFromLogs((Map<String, String>) activation.getResponse().getResult(), activation.getLogs(), activation.getStart());
+        Map<String, Object> payloadProperties = new HashMap<>(eventPayload.getEventPayloadProperties());
+        String callbackTokenHash = null;
+        if (!Objects.isNull(callbackProperties.getCallbackUrl())) {
+            String callbackToken = CallbackTokenUtils.createToken();
+            payloadProperties.put("callbackUrl", callbackProperties.getCallbackUrl());
+            payloadProperties.put("callbackToken", callbackToken);
+            callbackTokenHash = CallbackTokenUtils.hash(callbackToken);
+        }
+        triggerActivationResolver.reserve();
+        ActivationResult result;
+        try {
+            result = openWhiskClient.fireTrigger(eventTrigger, payloadProperties);
+        } catch (RuntimeException e) {
+            triggerActivationResolver.release();
+            throw e;
+        }
+        triggerActivationResolver.resolve(eventTrigger.getOpenWhiskService(), result.getActivationId(), callbackTokenHash);
         return result;
     }
 
@@ -133,9 +352,14 @@ public class EventTriggerService {
         return quantumApplicationRepository.getQuantumApplicationTriggers(name);
     }
 
-    // TODO: Adjust this method to be more general and work with different kinds of events
+    /**
+     * This method returns all EventTriggers that match an event. The triggers are taken from the in-memory index.
+     *
+     * @param payload Event payload
+     * @return eventTriggers
+     */
     public Set<EventTrigger> findByEventType(EventPayload payload) {
-        return repository.findByEventType(payload);
+        return eventTriggerIndex.find(payload);
     }
 
     /**
@@ -156,6 +380,7 @@ public class EventTriggerService {
 
         // Delete Trigger from DB and from OpenWhisk-Service
         repository.delete(existingEventTrigger);
+        eventPublisher.publishEvent(new EventTriggerChangedEvent(name));
         openWhiskClient.removeTriggerFromFaas(existingEventTrigger);
     }
 
@@ -174,6 +399,7 @@ public class EventTriggerService {
         // Link Application with Trigger
         eventTrigger.getQuantumApplications().add(quantumApplication);
         repository.save(eventTrigger);
+        eventPublisher.publishEvent(new EventTriggerChangedEvent(eventTriggerName));
         // Create a Rule in OpenWhisk-Service to link the Action with the Trigger
         openWhiskClient.deployRuleToFaas(eventTrigger, quantumApplication);
     }
@@ -191,6 +417,7 @@ public class EventTriggerService {
         // Unlink Application from Trigger
         eventTrigger.getQuantumApplications().removeIf(application -> application.getName().equals(quantumApplicationName));
         repository.save(eventTrigger);
+        eventPublisher.publishEvent(new EventTriggerChangedEvent(eventTriggerName));
         // Remove Rule from OpenWhisk-Service to unlink Action and Trigger
         openWhiskClient.removeRuleFromFaas(eventTrigger, quantumApplication);
     }
@@ -228,13 +455,20 @@ public class EventTriggerService {
     }
 
     /**
-     * This method updates disables a QueueSizeEventTrigger after it was fired by the configured delayed value
+     * This method re-enables a QueueSizeEventTrigger that could not be fired, so that it can be fired again by the
+     * next matching event.
      *
-     * @param name Name of the QueueSizeTrigger
+     * @param eventTrigger Trigger that could not be fired
      */
-    private void updateDelayUntilTime(String name) {
-        QueueSizeEventTrigger eventTrigger = (QueueSizeEventTrigger) findByName(name);
-        eventTrigger.setDisabledUntil(ZonedDateTime.now().plusMinutes(eventTrigger.getTriggerDelay()));
-        repository.save(eventTrigger);
+    private void releaseCooldown(EventTrigger eventTrigger) {
+        if (!(eventTrigger instanceof QueueSizeEventTrigger)) {
+            return;
+        }
+        eventTriggerIndex.releaseCooldown(eventTrigger.getName());
+    }
+
+    // This method counts a fired trigger by its OpenWhisk-Service and outcome
+    private void countFiring(EventTrigger eventTrigger, String outcome) {
+        meterRegistry.counter("quantumservice.openwhisk.fire", "service", eventTrigger.getOpenWhiskService().getName(), "outcome", outcome).increment();
     }
 }
@@ -1,15 +1,21 @@
 package de.unistuttgart.iaas.faas.quantumservice.service;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 import de.unistuttgart.iaas.faas.quantumservice.api.IBMQClient;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.IBMQProperties;
 import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.Device;
+import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.DeviceLocation;
 import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.Group;
 import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.Hub;
 import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.Project;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 /**
@@ -17,9 +23,14 @@ import org.springframework.stereotype.Service;
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class IBMQService {
 
     private final IBMQClient ibmqClient;
+    private final IBMQProperties ibmqProperties;
+
+    private volatile List<DeviceLocation> cachedDeviceLocations;
+    private volatile long deviceLocationsExpireAt;
 
     /**
      * This method uses the IBMQClient to retrieve all available devices.
@@ -28,19 +39,52 @@ public class IBMQService {
      */
     public Set<String> getAvailableIbmqDevices() {
         Set<String> availableDevices = new HashSet<>();
-        List<Hub> hubs = ibmqClient.getNetworks();
-
-        // Collect all devices from all projects, groups and hubs
-        for (Hub hub: hubs) {
-            for (Group group: hub.getGroups().values()) {
-                for (Project project: group.getProjects().values()) {
-                    for (Device device: project.getDevices().values()) {
-                        availableDevices.add(device.getName());
+        for (DeviceLocation deviceLocation : getDeviceLocations()) {
+            availableDevices.add(deviceLocation.getDevice());
+        }
+        return availableDevices;
+    }
+
+    /**
+     * This method returns the locations of all available devices. The network topology rarely changes, so it is
+     * cached for the configured time to live. If refreshing the topology fails, the outdated topology is used until the
+     * refresh is retried after the configured retry delay.
+     *
+     * @return deviceLocations
+     */
+    public List<DeviceLocation> getDeviceLocations() {
+        if (System.currentTimeMillis() < deviceLocationsExpireAt) {
+            return cachedDeviceLocations;
+        }
+        return refreshDeviceLocations();
+    }
+
+    private synchronized List<DeviceLocation> refreshDeviceLocations() {
+        // Another thread may have refreshed the topology in the meantime
+        if (System.currentTimeMillis() < deviceLocationsExpireAt) {
+            return cachedDeviceLocations;
+        }
+        try {
+            List<DeviceLocation> deviceLocations = new ArrayList<>();
+            // Collect all devices from all projects, groups and hubs
+            for (Hub hub : ibmqClient.getNetworks()) {
+                for (Group group : hub.getGroups().values()) {
+                    for (Project project : group.getProjects().values()) {
+                        for (Device device : project.getDevices().values()) {
+                            deviceLocations.add(new DeviceLocation(hub.getName(), group.getName(), project.getName(), device.getName()));
+                        }
                     }
                 }
             }
+            cachedDeviceLocations = Collections.unmodifiableList(deviceLocations);
+            deviceLocationsExpireAt = System.currentTimeMillis() + ibmqProperties.getTopologyCacheTtl();
+        } catch (RuntimeException e) {
+            if (Objects.isNull(cachedDeviceLocations)) {
+                throw e;
+            }
+            deviceLocationsExpireAt = System.currentTimeMillis() + ibmqProperties.getTopologyRetryDelay();
+            log.warn("Refreshing the IBMQ network topology failed, the outdated topology is used", e);
         }
-
-        return availableDevices;
+        return cachedDeviceLocations;
     }
 }
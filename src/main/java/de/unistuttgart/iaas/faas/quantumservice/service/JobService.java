@@ -1,16 +1,28 @@
 package de.unistuttgart.iaas.faas.quantumservice.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 
+import de.unistuttgart.iaas.faas.quantumservice.configuration.JobCheckerProperties;
+import de.unistuttgart.iaas.faas.quantumservice.messaging.JobStatusChangedSender;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.Job;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobRepository;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobStatus;
+import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.IBMQJob;
+import de.unistuttgart.iaas.faas.quantumservice.storage.BlobReference;
+import de.unistuttgart.iaas.faas.quantumservice.storage.BlobStore;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * This Service-Class implements functions that operate on Job objects.
@@ -20,6 +32,9 @@ import org.springframework.stereotype.Service;
 public class JobService {
 
     private final JobRepository repository;
+    private final JobStatusChangedSender jobStatusChangedSender;
+    private final JobCheckerProperties jobCheckerProperties;
+    private final BlobStore blobStore;
 
     /**
      * This method returns all jobs in a paginated manner with the option to use optional filters.
@@ -51,4 +66,117 @@ public class JobService {
     public Set<Job> findByQuantumApplication(String quantumApplicationName) {
         return repository.findByQuantumApplicationName(quantumApplicationName);
     }
+
+    /**
+     * This method opens the stored result of a completed job for streaming.
+     *
+     * @param id Unique ID of the job
+     * @return jobResult Stream of the Job-Result
+     */
+    public InputStream openJobResult(UUID id) {
+        Job job = findById(id);
+        if (Objects.isNull(job.getResultKey())) {
+            throw new NoSuchElementException("Job does not have a result!");
+        }
+        try {
+            return blobStore.get(job.getResultKey());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read result of job '" + id + "'!", e);
+        }
+    }
+
+    /**
+     * This method updates a job with data that was polled from the IBMQ-API and sends the appropriate job status events.
+     * Each update runs inside its own short transaction.
+     *
+     * @param id Unique ID of the job
+     * @param ibmqJob Polled IBMQ-Job
+     * @param result Reference to the stored Job-Result if the job is completed, otherwise null
+     */
+    @Transactional
+    public void updateJob(UUID id, IBMQJob ibmqJob, BlobReference result) {
+        Job job = findById(id);
+        JobStatus previousStatus = job.getStatus();
+        // Update Status + StatusDetails and other data
+        job.setStatus(JobStatus.valueOf(ibmqJob.getStatus()));
+        // Jobs taken from the jobs list may not contain all details, in this case the known details are kept
+        if (ibmqJob.getTimePerStep() != null) {
+            job.setStatusDetails(ibmqJob.getTimePerStep());
+        }
+        if (ibmqJob.getCreationDate() != null) {
+            job.setCreationDate(ibmqJob.getCreationDate());
+        }
+
+        // If execution completed add the Job-Result with other information to existing job
+        if (ibmqJob.getStatus().equals("COMPLETED")) {
+            job.setEndDate(ibmqJob.getEndDate());
+            job.setResultKey(result.getKey());
+            job.setResultSize(result.getSize());
+            job.setResultChecksum(result.getChecksum());
+            job.setSuccess(ibmqJob.getSummaryData().getSuccess());
+        }
+
+        // Send job status changed event
+        jobStatusChangedSender.sendJobStatusReachedEvent(job);
+
+        // Schedule the next poll depending on the reached status and release the lease of the job
+        scheduleNextPoll(job, previousStatus);
+        job.setLeaseOwner(null);
+        job.setLeaseExpiresAt(null);
+
+        // Update job in database
+        repository.save(job);
+    }
+
+    /**
+     * This method schedules the next poll of a job that could not be polled or updated. The poll interval of the job is
+     * increased like for an unchanged status, so that failing jobs are not retried in every sweep and do not hold back
+     * the other jobs. The lease of the job is released.
+     *
+     * @param id Unique ID of the job
+     */
+    @Transactional
+    public void deferFailedPoll(UUID id) {
+        Job job = findById(id);
+        long interval = job.getPollInterval() == null ? jobCheckerProperties.getInitialPollInterval()
+                : Math.min((long) (job.getPollInterval() * jobCheckerProperties.getBackoffMultiplier()), jobCheckerProperties.getMaxPollInterval());
+        job.setPollInterval(interval);
+        job.setNextPollAt(ZonedDateTime.now().plus(Duration.ofMillis(interval)));
+        job.setLeaseOwner(null);
+        job.setLeaseExpiresAt(null);
+        repository.save(job);
+    }
+
+    /**
+     * This method calculates when a job should be polled next. Jobs that stay QUEUED or VALIDATING are polled with an
+     * exponentially growing interval, RUNNING jobs are polled with a short interval and finished jobs are not polled anymore.
+     *
+     * @param job Updated job
+     * @param previousStatus Status of the job before the update
+     */
+    private void scheduleNextPoll(Job job, JobStatus previousStatus) {
+        long interval;
+        switch (job.getStatus()) {
+            case COMPLETED:
+            case FAILED:
+                job.setNextPollAt(null);
+                job.setPollInterval(null);
+                return;
+            case RUNNING:
+                interval = jobCheckerProperties.getRunningPollInterval();
+                break;
+            case QUEUED:
+            case VALIDATING:
+                if (job.getStatus() == previousStatus && job.getPollInterval() != null) {
+                    interval = Math.min((long) (job.getPollInterval() * jobCheckerProperties.getBackoffMultiplier()), jobCheckerProperties.getMaxPollInterval());
+                } else {
+                    interval = jobCheckerProperties.getInitialPollInterval();
+                }
+                break;
+            default:
+                interval = jobCheckerProperties.getInitialPollInterval();
+        }
+        job.setPollInterval(interval);
+        job.setNextPollAt(ZonedDateTime.now().plus(Duration.ofMillis(interval)));
+    }
 }
@@ -0,0 +1,155 @@
+package de.unistuttgart.iaas.faas.quantumservice.service;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.Job;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobStatus;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.lease.LeaderLeaseRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox.OutboxMessage;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox.OutboxMessageRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution.ScriptExecution;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution.ScriptExecutionRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * This Service-Class implements database leases that allow multiple instances of the service to share the work of
+ * the background checkers. Every lease is acquired inside its own transaction, so that row locks are released right away.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LeaseService {
+
+    private final JobRepository jobRepository;
+    private final ScriptExecutionRepository scriptExecutionRepository;
+    private final LeaderLeaseRepository leaderLeaseRepository;
+    private final OutboxMessageRepository outboxMessageRepository;
+
+    @Getter
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * This method claims a batch of running jobs that are due for polling for this service instance.
+     *
+     * @param batchSize Maximum number of jobs that should be claimed
+     * @param leaseDuration Duration after which the claimed jobs can be claimed by other instances again
+     * @return claimedJobs
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<Job> claimJobsDueForPoll(int batchSize, Duration leaseDuration) {
+        ZonedDateTime now = ZonedDateTime.now();
+        List<Job> jobs = jobRepository.lockJobsDueForPoll(now, batchSize);
+        for (Job job : jobs) {
+            job.setLeaseOwner(instanceId);
+            job.setLeaseExpiresAt(now.plus(leaseDuration));
+        }
+        return jobs;
+    }
+
+    /**
+     * This method claims a single job for this service instance, unless it is leased by another instance.
+     *
+     * @param id ID of the job
+     * @param leaseDuration Duration after which the claimed job can be claimed by other instances again
+     * @return claimedJob or an empty optional if the job is leased by another instance or already finished
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Optional<Job> claimJob(UUID id, Duration leaseDuration) {
+        ZonedDateTime now = ZonedDateTime.now();
+        Optional<Job> job = jobRepository.lockById(id)
+                .filter(lockedJob -> lockedJob.getStatus() != JobStatus.COMPLETED && lockedJob.getStatus() != JobStatus.FAILED)
+                .filter(lockedJob -> lockedJob.getLeaseExpiresAt() == null || !lockedJob.getLeaseExpiresAt().isAfter(now));
+        job.ifPresent(claimedJob -> {
+            claimedJob.setLeaseOwner(instanceId);
+            claimedJob.setLeaseExpiresAt(now.plus(leaseDuration));
+        });
+        return job;
+    }
+
+    /**
+     * This method claims a batch of running script executions for this service instance. The related OpenWhisk-Service
+     * and QuantumApplication are initialized, so that they can be used after the transaction ended.
+     *
+     * @param batchSize Maximum number of script executions that should be claimed
+     * @param leaseDuration Duration after which the claimed script executions can be claimed by other instances again
+     * @param pollDelay Minimum time since the trigger was fired, before a script execution is claimed
+     * @return claimedScriptExecutions
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<ScriptExecution> claimRunningScriptExecutions(int batchSize, Duration leaseDuration, Duration pollDelay) {
+        ZonedDateTime now = ZonedDateTime.now();
+        List<ScriptExecution> scriptExecutions = scriptExecutionRepository.lockRunningScriptExecutions(now, now.minus(pollDelay), batchSize);
+        for (ScriptExecution scriptExecution : scriptExecutions) {
+            scriptExecution.setLeaseOwner(instanceId);
+            scriptExecution.setLeaseExpiresAt(now.plus(leaseDuration));
+            Hibernate.initialize(scriptExecution.getOpenWhiskService());
+            Hibernate.initialize(scriptExecution.getQuantumApplication());
+        }
+        return scriptExecutions;
+    }
+
+    /**
+     * This method keeps the given script executions claimed by this instance until the given delay passed. It is used
+     * to schedule the next poll of script executions whose activation is not finished yet.
+     *
+     * @param ids IDs of the claimed script executions
+     * @param delay Delay until the script executions can be claimed again
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void deferScriptExecutions(Collection<UUID> ids, Duration delay) {
+        if (!ids.isEmpty()) {
+            scriptExecutionRepository.updateLeaseExpiry(ids, instanceId, ZonedDateTime.now().plus(delay));
+        }
+    }
+
+    /**
+     * This method claims a batch of pending outbox messages that are due for delivery for this service instance.
+     *
+     * @param batchSize Maximum number of messages that should be claimed
+     * @param leaseDuration Duration after which the claimed messages can be claimed by other instances again
+     * @return claimedMessages
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<OutboxMessage> claimDueOutboxMessages(int batchSize, Duration leaseDuration) {
+        ZonedDateTime now = ZonedDateTime.now();
+        List<OutboxMessage> outboxMessages = outboxMessageRepository.lockDueMessages(now, batchSize);
+        for (OutboxMessage outboxMessage : outboxMessages) {
+            outboxMessage.setLeaseOwner(instanceId);
+            outboxMessage.setLeaseExpiresAt(now.plus(leaseDuration));
+        }
+        return outboxMessages;
+    }
+
+    /**
+     * This method tries to acquire or renew the leader lease of a singleton task for this service instance.
+     *
+     * @param name Name of the singleton task
+     * @param leaseDuration Duration of the lease, should be longer than the interval of the task
+     * @return true if this instance is the leader of the task
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean acquireLeadership(String name, Duration leaseDuration) {
+        ZonedDateTime now = ZonedDateTime.now();
+        if (leaderLeaseRepository.renewOrTakeOver(name, instanceId, now.plus(leaseDuration), now) > 0) {
+            return true;
+        }
+        // No instance was leader of the task yet, or another instance is creating the lease concurrently
+        if (leaderLeaseRepository.insertIfAbsent(name, instanceId, now.plus(leaseDuration)) == 0) {
+            return false;
+        }
+        log.info("Instance '{}' became leader of task '{}'", instanceId, name);
+        return true;
+    }
+}
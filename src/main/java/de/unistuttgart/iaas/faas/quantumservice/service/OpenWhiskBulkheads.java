@@ -0,0 +1,103 @@
+package de.unistuttgart.iaas.faas.quantumservice.service;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.OpenWhiskProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.openwhiskservice.OpenWhiskService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class keeps a bounded worker pool for every OpenWhisk-Service. Requests to different OpenWhisk-Services are
+ * isolated from each other, so that a slow or unavailable OpenWhisk-Service can only exhaust its own pool. If the pool
+ * of an OpenWhisk-Service is full, further requests to it are rejected instead of waiting.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OpenWhiskBulkheads {
+
+    private final OpenWhiskProperties properties;
+
+    // Worker pools by the ID of their OpenWhisk-Service, modified while holding the lock of this
+    private final Map<UUID, ThreadPoolExecutor> bulkheads = new ConcurrentHashMap<>();
+
+    // IDs of deleted OpenWhisk-Services, so that no new pool is created for triggers that were still being fired
+    private final Set<UUID> removed = new HashSet<>();
+
+    /**
+     * This method submits a task to the pool of the given OpenWhisk-Service.
+     *
+     * @param openWhiskService OpenWhisk-Service that is accessed by the task
+     * @param task Task that should be executed
+     * @return future
+     * @throws RejectedExecutionException Thrown if the pool of the OpenWhisk-Service is full or the OpenWhisk-Service was
+     * deleted
+     */
+    public Future<?> submit(OpenWhiskService openWhiskService, Runnable task) {
+        ThreadPoolExecutor bulkhead = bulkheads.get(openWhiskService.getId());
+        if (bulkhead == null) {
+            synchronized (this) {
+                if (removed.contains(openWhiskService.getId())) {
+                    throw new RejectedExecutionException("OpenWhisk-Service '" + openWhiskService.getName() + "' was deleted!");
+                }
+                bulkhead = bulkheads.computeIfAbsent(openWhiskService.getId(), id -> create(openWhiskService));
+            }
+        }
+        return bulkhead.submit(task);
+    }
+
+    /**
+     * This method removes the pool of a deleted OpenWhisk-Service. Tasks that were already submitted are finished.
+     *
+     * @param openWhiskService Deleted OpenWhisk-Service
+     */
+    public void remove(OpenWhiskService openWhiskService) {
+        ThreadPoolExecutor bulkhead;
+        synchronized (this) {
+            removed.add(openWhiskService.getId());
+            bulkhead = bulkheads.remove(openWhiskService.getId());
+        }
+        if (bulkhead != null) {
+            bulkhead.shutdown();
+        }
+    }
+
+    /**
+     * This method shuts all pools down and waits a short time for running tasks.
+     */
+    @PreDestroy
+    public void shutdown() {
+        bulkheads.values().forEach(ThreadPoolExecutor::shutdown);
+        for (ThreadPoolExecutor bulkhead : bulkheads.values()) {
+            try {
+                bulkhead.awaitTermination(properties.getFireTimeout(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private ThreadPoolExecutor create(OpenWhiskService openWhiskService) {
+        log.debug("Creating bulkhead for OpenWhisk-Service '{}'", openWhiskService.getName());
+        ThreadPoolExecutor bulkhead = new ThreadPoolExecutor(properties.getBulkheadPoolSize(), properties.getBulkheadPoolSize(),
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(properties.getBulkheadQueueCapacity()),
+                new CustomizableThreadFactory("openwhisk-" + openWhiskService.getName() + "-"), new ThreadPoolExecutor.AbortPolicy());
+        bulkhead.allowCoreThreadTimeOut(true);
+        return bulkhead;
+    }
+}
@@ -5,6 +5,8 @@ import java.util.NoSuchElementException;
 import java.util.Set;
 
 import de.unistuttgart.iaas.faas.quantumservice.api.OpenWhiskClient;
+import de.unistuttgart.iaas.faas.quantumservice.api.OpenWhiskRestTemplates;
+import de.unistuttgart.iaas.faas.quantumservice.events.EventTriggerChangedEvent;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.openwhiskservice.OpenWhiskService;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.quantumapplication.QuantumApplication;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.quantumapplication.QuantumApplicationRepository;
@@ -15,9 +17,11 @@ import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobRepository;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.openwhiskservice.OpenWhiskServiceRepository;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventTrigger;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventTriggerRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.triggeractivation.PendingTriggerActivationRepository;
 import de.unistuttgart.iaas.faas.quantumservice.model.exception.ElementAlreadyExistsException;
 import lombok.RequiredArgsConstructor;
 import org.apache.tomcat.util.codec.binary.Base64;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 /**
@@ -32,7 +36,11 @@ public class OpenWhiskServiceService {
     private final EventTriggerRepository eventTriggerRepository;
     private final ScriptExecutionRepository scriptExecutionRepository;
     private final JobRepository jobRepository;
+    private final PendingTriggerActivationRepository pendingTriggerActivationRepository;
     private final OpenWhiskClient openWhiskClient;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OpenWhiskBulkheads openWhiskBulkheads;
+    private final OpenWhiskRestTemplates openWhiskRestTemplates;
 
     /**
      * This method creates a new openWhiskService and stores inside the database.
@@ -76,6 +84,8 @@ public class OpenWhiskServiceService {
         deleteOpenWhiskServiceElements(openWhiskService);
         // Delete openWhiskService
         repository.delete(openWhiskService);
+        openWhiskBulkheads.remove(openWhiskService);
+        openWhiskRestTemplates.remove(openWhiskService);
     }
 
     /**
@@ -108,11 +118,13 @@ public class OpenWhiskServiceService {
         // Delete all Event-Triggers and OpenWhisk-Triggers
         Set<EventTrigger> openWhiskServiceTriggers = eventTriggerRepository.findByOpenWhiskServiceName(openWhiskService.getName());
         eventTriggerRepository.deleteAll(openWhiskServiceTriggers);
+        openWhiskServiceTriggers.forEach(eventTrigger -> eventPublisher.publishEvent(new EventTriggerChangedEvent(eventTrigger.getName())));
         openWhiskServiceTriggers.forEach(openWhiskClient::removeTriggerFromFaas);
 
         // Remove all Script-Executions and OpenWhisk-Activations
         Set<ScriptExecution> openWhiskServiceExecutions = scriptExecutionRepository.findByOpenWhiskServiceName(openWhiskService.getName());
         scriptExecutionRepository.deleteAll(openWhiskServiceExecutions);
+        pendingTriggerActivationRepository.deleteAll(pendingTriggerActivationRepository.findByOpenWhiskServiceName(openWhiskService.getName()));
 
         // Remove all Quantum-Applications, Jobs and OpenWhisk-Actions
         Set<QuantumApplication> openWhiskServiceQuantumApplications = quantumApplicationRepository.findByOpenWhiskServiceName(openWhiskService.getName());
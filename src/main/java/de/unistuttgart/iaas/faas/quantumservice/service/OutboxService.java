@@ -0,0 +1,80 @@
+package de.unistuttgart.iaas.faas.quantumservice.service;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.OutboxProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox.OutboxMessage;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox.OutboxMessageRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox.OutboxMessageStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * This Service-Class records the outcome of outbox deliveries. Delivered messages are removed, while failed messages
+ * are retried with an exponential backoff until the maximum number of attempts is reached.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private final OutboxMessageRepository repository;
+    private final OutboxProperties properties;
+
+    /**
+     * This method writes back the outcome of a dispatched batch of outbox messages inside one transaction.
+     *
+     * @param delivered Messages that were delivered successfully
+     * @param failed Messages whose delivery failed, their last error must be set
+     */
+    @Transactional
+    public void completeDispatch(List<OutboxMessage> delivered, List<OutboxMessage> failed) {
+        if (!delivered.isEmpty()) {
+            List<UUID> ids = delivered.stream().map(OutboxMessage::getId).collect(Collectors.toList());
+            repository.deleteByIds(ids);
+        }
+
+        for (OutboxMessage outboxMessage : failed) {
+            outboxMessage.setAttempts(outboxMessage.getAttempts() + 1);
+            outboxMessage.setLeaseOwner(null);
+            outboxMessage.setLeaseExpiresAt(null);
+            if (outboxMessage.getAttempts() >= properties.getMaxAttempts()) {
+                outboxMessage.setStatus(OutboxMessageStatus.FAILED);
+                outboxMessage.setNextAttemptAt(null);
+                log.error("Outbox message '{}' could not be delivered after {} attempts and is given up: {}", outboxMessage.getId(), outboxMessage.getAttempts(), outboxMessage.getLastError());
+            } else {
+                outboxMessage.setNextAttemptAt(ZonedDateTime.now().plus(Duration.ofMillis(calculateRetryDelay(outboxMessage.getAttempts()))));
+            }
+        }
+        repository.saveAll(failed);
+    }
+
+    /**
+     * This method returns the number of messages that are waiting for delivery.
+     *
+     * @return pendingMessages
+     */
+    public long countPending() {
+        return repository.countByStatus(OutboxMessageStatus.PENDING);
+    }
+
+    /**
+     * This method returns the creation time of the oldest message that is waiting for delivery.
+     *
+     * @return oldestCreatedAt or null if no message is pending
+     */
+    public ZonedDateTime findOldestPendingCreatedAt() {
+        return repository.findOldestCreatedAt(OutboxMessageStatus.PENDING);
+    }
+
+    private long calculateRetryDelay(int attempts) {
+        double delay = properties.getInitialRetryDelay() * Math.pow(properties.getBackoffMultiplier(), attempts - 1);
+        return (long) Math.min(delay, properties.getMaxRetryDelay());
+    }
+}
@@ -1,13 +1,18 @@
 package de.unistuttgart.iaas.faas.quantumservice.service;
 
 import java.io.IOException;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 
 import de.unistuttgart.iaas.faas.quantumservice.api.OpenWhiskClient;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.CallbackProperties;
 import de.unistuttgart.iaas.faas.quantumservice.configuration.IBMQProperties;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.OpenWhiskProperties;
+import de.unistuttgart.iaas.faas.quantumservice.messaging.MessageCodec;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventTrigger;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventTriggerRepository;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.quantumapplication.QuantumApplication;
@@ -18,7 +23,10 @@ import de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution.Scr
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.Job;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobRepository;
 import de.unistuttgart.iaas.faas.quantumservice.model.exception.ElementAlreadyExistsException;
+import de.unistuttgart.iaas.faas.quantumservice.model.exception.InvalidInputException;
 import de.unistuttgart.iaas.faas.quantumservice.model.openwhisk.ActivationResult;
+import de.unistuttgart.iaas.faas.quantumservice.model.openwhisk.OpenWhiskActivation;
+import de.unistuttgart.iaas.faas.quantumservice.utils.CallbackTokenUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.tomcat.util.codec.binary.Base64;
@@ -40,7 +48,11 @@ public class QuantumApplicationService {
     private final JobRepository jobRepository;
     private final OpenWhiskServiceService openWhiskServiceService;
     private final OpenWhiskClient openWhiskClient;
+    private final ScriptExecutionService scriptExecutionService;
     private final IBMQProperties ibmqProperties;
+    private final CallbackProperties callbackProperties;
+    private final OpenWhiskProperties openWhiskProperties;
+    private final MessageCodec messageCodec;
 
     /**
      * This method takes submitted Quantum-Application data, creates a QuantumApplication and then creates an equivalent
@@ -49,13 +61,19 @@ public class QuantumApplicationService {
      * @param file Python-File containing Qiskit code
      * @param name Name of the QuantumApplication
      * @param dockerImage Tagged docker image name
+     * @param notificationContentType Content type of the notifications, null for JSON
+     * @param blockingInvocation Whether the QuantumApplication is invoked blocking
      * @param openWhiskServiceName Name of the OpenWhisk-Service that should be used for execution the QuantumApplication
      * @return createdQuantumApplication
      */
-    public QuantumApplication createQuantumApplication(MultipartFile file, String name, String dockerImage, String notificationAddress, String openWhiskServiceName) {
+    public QuantumApplication createQuantumApplication(MultipartFile file, String name, String dockerImage, String notificationAddress, String notificationContentType,
+                                                        boolean blockingInvocation, String openWhiskServiceName) {
         try {
             // Check if QuantumApplication with given name already exists
             checkForConflict(name);
+            if (!messageCodec.isSupported(notificationContentType)) {
+                throw new InvalidInputException("The notification content type " + notificationContentType + " is not supported!");
+            }
             // Create QuantumApplication and fill it with data
             QuantumApplication quantumApplication = new QuantumApplication();
             quantumApplication.setName(name);
@@ -66,6 +84,8 @@ public class QuantumApplicationService {
             }
             quantumApplication.setDockerImage(dockerImage);
             quantumApplication.setNotificationAddress(notificationAddress);
+            quantumApplication.setNotificationContentType(notificationContentType);
+            quantumApplication.setBlockingInvocation(blockingInvocation);
 
             // Save QuantumApplication
             QuantumApplication createdQuantumApplication = repository.save(quantumApplication);
@@ -79,7 +99,9 @@ public class QuantumApplicationService {
     }
 
     /**
-     * This method invokes the application using the given input.
+     * This method invokes the application using the given input. QuantumApplications that are invoked blocking are
+     * completed using the invocation response, so that their Job is created right away. If the blocking invocation
+     * does not finish within the blocking timeout, the ScriptExecution is completed by the ScriptExecutionChecker.
      *
      * @param name name of the quantum application that should be invoked
      * @param inputParams input parameters that should be passed to the openwhisk action
@@ -87,15 +109,44 @@ public class QuantumApplicationService {
     public void invokeQuantumApplication(String name, Map<String, Object> inputParams) {
         QuantumApplication quantumApplication = findByName(name);
         inputParams.put("apiToken", ibmqProperties.getApiToken());
-        ActivationResult result = openWhiskClient.invokeAction(quantumApplication, inputParams);
+        // Blocking invocations are completed using the response, so they do not need the callback
+        String callbackTokenHash = null;
+        if (!quantumApplication.isBlockingInvocation() && !Objects.isNull(callbackProperties.getCallbackUrl())) {
+            String callbackToken = CallbackTokenUtils.createToken();
+            inputParams.put("callbackUrl", callbackProperties.getCallbackUrl());
+            inputParams.put("callbackToken", callbackToken);
+            callbackTokenHash = CallbackTokenUtils.hash(callbackToken);
+        }
+        ZonedDateTime invokedAt = ZonedDateTime.now(ZoneId.of("UTC"));
+        OpenWhiskActivation activation = null;
+        String activationId;
+        if (quantumApplication.isBlockingInvocation()) {
+            activation = openWhiskClient.invokeActionBlocking(quantumApplication, inputParams, openWhiskProperties.getBlockingTimeout());
+            activationId = activation.getActivationId();
+        } else {
+            ActivationResult result = openWhiskClient.invokeAction(quantumApplication, inputParams);
+            activationId = result.getActivationId();
+        }
         ScriptExecution scriptExecution = new ScriptExecution();
-        scriptExecution.setActivationId(result.getActivationId());
+        scriptExecution.setActivationId(activationId);
         scriptExecution.setQuantumApplication(quantumApplication);
         scriptExecution.setOpenWhiskService(quantumApplication.getOpenWhiskService());
+        scriptExecution.setTriggerFiredAt(invokedAt);
+        scriptExecution.setCallbackTokenHash(callbackTokenHash);
         inputParams.put("apiToken", "**********");
+        if (inputParams.containsKey("callbackToken")) {
+            inputParams.put("callbackToken", "**********");
+        }
         scriptExecution.setInputParams(new JSONObject(inputParams).toString());
         scriptExecution.setStatus(ExecutionStatus.RUNNING);
-        scriptExecutionRepository.save(scriptExecution);
+        scriptExecution = scriptExecutionRepository.save(scriptExecution);
+
+        // Complete the ScriptExecution and create its Job if the blocking invocation finished in time
+        if (!Objects.isNull(activation) && !Objects.isNull(activation.getResponse())) {
+            scriptExecutionService.completeScriptExecution(scriptExecution, activation);
+        } else if (quantumApplication.isBlockingInvocation()) {
+            log.info("Blocking invocation of action '{}' did not finish in time, activation '{}' is polled", name, activationId);
+        }
     }
 
     /**
@@ -0,0 +1,198 @@
+package de.unistuttgart.iaas.faas.quantumservice.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PreDestroy;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.QueueHistoryProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.dto.queuehistory.QueueHistoryDto;
+import de.unistuttgart.iaas.faas.quantumservice.model.dto.queuehistory.QueueSizePointDto;
+import de.unistuttgart.iaas.faas.quantumservice.model.dto.queuehistory.QueueSizeWindowDto;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.queuehistory.QueueSizeAggregate;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.queuehistory.QueueSizeAggregateRepository;
+import de.unistuttgart.iaas.faas.quantumservice.utils.QueueSizeRingBuffer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * This Service-Class stores the queue sizes of the IBMQ-Devices. The latest samples of every device are kept in memory,
+ * while completed aggregation windows are downsampled and persisted for longer time ranges.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QueueHistoryService {
+
+    private final QueueSizeAggregateRepository repository;
+    private final IBMQService ibmqService;
+    private final QueueHistoryProperties properties;
+
+    private final Map<String, DeviceHistory> histories = new ConcurrentHashMap<>();
+
+    /**
+     * This method records the current queue size of a device. If the sample starts a new aggregation window, the
+     * previous window of the device is persisted.
+     *
+     * @param device Name of the device
+     * @param queueSize Current queue size of the device
+     */
+    public void record(String device, int queueSize) {
+        long now = System.currentTimeMillis();
+        long windowStart = now - now % properties.getAggregationWindow();
+        DeviceHistory history = histories.computeIfAbsent(device, key -> new DeviceHistory(new QueueSizeRingBuffer(properties.getRawCapacity())));
+        long finishedWindowStart = -1;
+        synchronized (history) {
+            if (history.windowStart >= 0 && history.windowStart < windowStart) {
+                finishedWindowStart = history.windowStart;
+            }
+            history.windowStart = windowStart;
+            history.buffer.add(now, queueSize);
+        }
+        if (finishedWindowStart >= 0) {
+            persistWindow(device, history.buffer, finishedWindowStart);
+        }
+    }
+
+    /**
+     * This method persists the current, incomplete window of every device, e.g. because this instance stops recording
+     * the queue sizes after it lost the leadership. If the window is continued later, the stored window is updated.
+     */
+    @PreDestroy
+    public void flushOpenWindows() {
+        histories.forEach((device, history) -> {
+            long windowStart;
+            synchronized (history) {
+                windowStart = history.windowStart;
+            }
+            if (windowStart >= 0) {
+                persistWindow(device, history.buffer, windowStart);
+            }
+        });
+    }
+
+    /**
+     * This method returns the queue size history of a device since the given time. It contains the raw samples that
+     * are still kept in memory, the persisted windows plus the current window and the current trend.
+     *
+     * @param device Name of the device
+     * @param since Start of the history
+     * @return queueHistory
+     */
+    public QueueHistoryDto getHistory(String device, ZonedDateTime since) {
+        if (!ibmqService.getAvailableIbmqDevices().contains(device)) {
+            throw new NoSuchElementException("There is no device with name=" + device + "!");
+        }
+        QueueHistoryDto queueHistory = new QueueHistoryDto();
+        queueHistory.setDevice(device);
+
+        for (QueueSizeAggregate aggregate : repository.findByDeviceAndWindowStartGreaterThanEqualOrderByWindowStart(device, since)) {
+            queueHistory.getWindows().add(toWindowDto(aggregate));
+        }
+
+        DeviceHistory history = histories.get(device);
+        if (Objects.isNull(history)) {
+            return queueHistory;
+        }
+        long now = System.currentTimeMillis();
+        QueueSizeRingBuffer.Samples points = history.buffer.range(since.toInstant().toEpochMilli(), Long.MAX_VALUE);
+        for (int i = 0; i < points.size(); i++) {
+            queueHistory.getPoints().add(new QueueSizePointDto(toDateTime(points.timestamp(i)), points.queueSize(i)));
+        }
+        if (points.size() > 0) {
+            queueHistory.setCurrentQueueSize(points.queueSize(points.size() - 1));
+        }
+
+        // The current window is not persisted yet, so it is calculated from the raw samples
+        long windowStart = now - now % properties.getAggregationWindow();
+        QueueSizeRingBuffer.Samples currentWindow = history.buffer.range(windowStart, windowStart + properties.getAggregationWindow());
+        if (currentWindow.size() > 0) {
+            QueueSizeWindowDto window = toWindowDto(aggregate(device, currentWindow, windowStart));
+            window.setComplete(false);
+            queueHistory.getWindows().add(window);
+        }
+
+        queueHistory.setTrendPerHour(history.buffer.range(now - properties.getTrendWindow(), Long.MAX_VALUE).trendPerHour());
+        return queueHistory;
+    }
+
+    /**
+     * This scheduled method removes persisted windows that are older than the retention time.
+     */
+    @Transactional
+    @Scheduled(initialDelay = 60000, fixedDelay = 3600000)
+    public void removeExpiredWindows() {
+        int removed = repository.deleteOlderThan(ZonedDateTime.now().minus(Duration.ofMillis(properties.getRetention())));
+        log.debug("Removed {} expired queue size windows", removed);
+    }
+
+    private void persistWindow(String device, QueueSizeRingBuffer buffer, long windowStart) {
+        QueueSizeRingBuffer.Samples samples = buffer.range(windowStart, windowStart + properties.getAggregationWindow());
+        if (samples.size() == 0) {
+            return;
+        }
+        try {
+            QueueSizeAggregate aggregate = aggregate(device, samples, windowStart);
+            aggregate.setId(UUID.randomUUID());
+            repository.upsert(aggregate);
+        } catch (Exception e) {
+            log.error("Could not persist queue size window of device '{}'!", device, e);
+        }
+    }
+
+    private QueueSizeAggregate aggregate(String device, QueueSizeRingBuffer.Samples samples, long windowStart) {
+        QueueSizeAggregate aggregate = new QueueSizeAggregate();
+        aggregate.setDevice(device);
+        aggregate.setWindowStart(toDateTime(windowStart));
+        aggregate.setWindowEnd(toDateTime(windowStart + properties.getAggregationWindow()));
+        aggregate.setSampleCount(samples.size());
+        aggregate.setMinimum(samples.min());
+        aggregate.setMaximum(samples.max());
+        aggregate.setAverage(samples.average());
+        aggregate.setP50(samples.percentile(50));
+        aggregate.setP90(samples.percentile(90));
+        aggregate.setP99(samples.percentile(99));
+        return aggregate;
+    }
+
+    private QueueSizeWindowDto toWindowDto(QueueSizeAggregate aggregate) {
+        QueueSizeWindowDto window = new QueueSizeWindowDto();
+        window.setWindowStart(aggregate.getWindowStart());
+        window.setWindowEnd(aggregate.getWindowEnd());
+        window.setSampleCount(aggregate.getSampleCount());
+        window.setMinimum(aggregate.getMinimum());
+        window.setMaximum(aggregate.getMaximum());
+        window.setAverage(aggregate.getAverage());
+        window.setP50(aggregate.getP50());
+        window.setP90(aggregate.getP90());
+        window.setP99(aggregate.getP99());
+        window.setComplete(true);
+        return window;
+    }
+
+    private ZonedDateTime toDateTime(long epochMillis) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * This class contains the in-memory samples of a device and the start of its current aggregation window.
+     */
+    private static class DeviceHistory {
+        private final QueueSizeRingBuffer buffer;
+        private long windowStart = -1;
+
+        private DeviceHistory(QueueSizeRingBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+}
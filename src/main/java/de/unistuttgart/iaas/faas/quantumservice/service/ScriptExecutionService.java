@@ -1,79 +1,307 @@
 package de.unistuttgart.iaas.faas.quantumservice.service;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 
+import de.unistuttgart.iaas.faas.quantumservice.configuration.IBMQProperties;
+import de.unistuttgart.iaas.faas.quantumservice.events.JobCreatedEvent;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.Job;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobStatus;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.quantumapplication.QuantumApplication;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.quantumapplication.QuantumApplicationRepository;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution.ScriptExecution;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution.ScriptExecutionRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution.ExecutionResult;
 import de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution.ExecutionStatus;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.triggeractivation.PendingTriggerActivation;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.triggeractivation.PendingTriggerActivationRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.exception.InvalidCallbackTokenException;
+import de.unistuttgart.iaas.faas.quantumservice.model.openwhisk.OpenWhiskActivation;
+import de.unistuttgart.iaas.faas.quantumservice.storage.BlobReference;
+import de.unistuttgart.iaas.faas.quantumservice.storage.BlobStore;
+import de.unistuttgart.iaas.faas.quantumservice.utils.CallbackTokenUtils;
+import de.unistuttgart.iaas.faas.quantumservice.utils.ModelMapperUtils;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * This Service-Class implements functions that operate on ScriptExecution objects.
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ScriptExecutionService {
 
     private final ScriptExecutionRepository repository;
     private final QuantumApplicationRepository quantumApplicationRepository;
+    private final JobRepository jobRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlobStore blobStore;
+    private final PendingTriggerActivationRepository pendingTriggerActivationRepository;
+    private final IBMQProperties ibmqProperties;
 
     /**
-     * This method stores a new ScriptExecution inside the database.
-     *
-     * @param scriptExecution New ScriptExecution
-     */
-    public void createScriptExecution(ScriptExecution scriptExecution) {
-        repository.save(scriptExecution);
-    }
-
-    /**
-     * This method generates a ScriptExecution from OpenWhisk Trigger-Activation-Logs.
+     * This method generates ScriptExecutions from OpenWhisk Trigger-Activation-Logs. All actions are resolved using a
+     * single query and all ScriptExecutions are inserted using a single batch. Action-Activations that already have a
+     * ScriptExecution are skipped, so that a trigger activation can be resolved again after a restart.
      *
      * @param triggerPayload Payload used to fire trigger
      * @param logs Logs of a OpenWhisk-Activation
      * @param triggerTime Timestamp of the time when the Trigger was fired
+     * @param callbackTokenHash Hash of the callback secret that was passed to the actions or null
      */
-    public void createScriptExecutionsFromLogs(Map<String, String> triggerPayload, List<String> logs, Long triggerTime) {
-        // Check Trigger-Activation-Logs for Action-Activations and create a new ScriptExecution of those Actions-Activations
-        for (String log : logs) {
-            ScriptExecution scriptExecution = new ScriptExecution();
-            try {
-                JSONObject object = new JSONObject(log);
-                JSONObject inputParamsJson = new JSONObject(triggerPayload);
-                inputParamsJson.put("apiToken", "**********");
+    @Transactional
+    public void createScriptExecutionsFromLogs(Map<String, String> triggerPayload, List<String> logs, Long triggerTime, String callbackTokenHash) {
+        // The input params and trigger time are the same for all ScriptExecutions of the trigger
+        JSONObject inputParamsJson = new JSONObject(triggerPayload);
+        inputParamsJson.put("apiToken", "**********");
+        if (inputParamsJson.has("callbackToken")) {
+            inputParamsJson.put("callbackToken", "**********");
+        }
+        String inputParams = inputParamsJson.toString();
+        ZonedDateTime triggerFiredAt = ZonedDateTime.ofInstant(Instant.ofEpochMilli(triggerTime), ZoneId.of("UTC"));
 
-                // Get Action from the name of the log
+        // Check Trigger-Activation-Logs for Action-Activations and collect the names of their Actions
+        Map<String, String> actionNames = new LinkedHashMap<>();
+        for (String activationLog : logs) {
+            try {
+                JSONObject object = new JSONObject(activationLog);
                 String fullyQualifiedActionName = object.getString("action");
-                Optional<QuantumApplication> actionOptional = quantumApplicationRepository.findByName(fullyQualifiedActionName.split("/")[1]);
-                if (actionOptional.isEmpty()) {
-                    throw new RuntimeException("There is no Action that belongs to this activation!");
-                }
-
-                scriptExecution.setQuantumApplication(actionOptional.get());
-                scriptExecution.setOpenWhiskService(actionOptional.get().getOpenWhiskService());
-                scriptExecution.setInputParams(inputParamsJson.toString());
-                scriptExecution.setActivationId(object.getString("activationId"));
-                scriptExecution.setStatus(ExecutionStatus.RUNNING);
-                scriptExecution.setTriggerFiredAt(ZonedDateTime.ofInstant(Instant.ofEpochMilli(triggerTime), ZoneId.of("UTC")));
-
-                createScriptExecution(scriptExecution);
+                actionNames.put(object.getString("activationId"), fullyQualifiedActionName.split("/")[1]);
             } catch (JSONException e) {
                 throw new RuntimeException("Cannot read Activation-Log!");
             }
         }
+        actionNames.keySet().removeAll(repository.findExistingActivationIds(actionNames.keySet()));
+        if (actionNames.isEmpty()) {
+            return;
+        }
+
+        // Get Actions from the names of the logs
+        Map<String, QuantumApplication> quantumApplications = new HashMap<>();
+        for (QuantumApplication quantumApplication : quantumApplicationRepository.findByNameIn(new HashSet<>(actionNames.values()))) {
+            quantumApplications.put(quantumApplication.getName(), quantumApplication);
+        }
+
+        // Create a new ScriptExecution of each Action-Activation
+        List<ScriptExecution> scriptExecutions = new ArrayList<>();
+        for (Map.Entry<String, String> actionName : actionNames.entrySet()) {
+            QuantumApplication quantumApplication = quantumApplications.get(actionName.getValue());
+            if (Objects.isNull(quantumApplication)) {
+                throw new RuntimeException("There is no Action that belongs to this activation!");
+            }
+            ScriptExecution scriptExecution = new ScriptExecution();
+            scriptExecution.setQuantumApplication(quantumApplication);
+            scriptExecution.setOpenWhiskService(quantumApplication.getOpenWhiskService());
+            scriptExecution.setInputParams(inputParams);
+            scriptExecution.setActivationId(actionName.getKey());
+            scriptExecution.setStatus(ExecutionStatus.RUNNING);
+            scriptExecution.setTriggerFiredAt(triggerFiredAt);
+            scriptExecution.setCallbackTokenHash(callbackTokenHash);
+            scriptExecutions.add(scriptExecution);
+        }
+        repository.saveAll(scriptExecutions);
+    }
+
+    /**
+     * This method stores trigger activations that could not be resolved before the service instance is stopped.
+     *
+     * @param pendingTriggerActivations Unresolved trigger activations
+     */
+    @Transactional
+    public void savePendingTriggerActivations(List<PendingTriggerActivation> pendingTriggerActivations) {
+        pendingTriggerActivationRepository.saveAll(pendingTriggerActivations);
+    }
+
+    /**
+     * This method claims a batch of stored trigger activations, so that they are resolved by this service instance.
+     * They are removed from the database, trigger activations that are claimed by other instances are skipped.
+     *
+     * @param batchSize Maximum number of trigger activations
+     * @return pendingTriggerActivations
+     */
+    @Transactional
+    public List<PendingTriggerActivation> claimPendingTriggerActivations(int batchSize) {
+        List<PendingTriggerActivation> pendingTriggerActivations = pendingTriggerActivationRepository.lockPendingTriggerActivations(batchSize);
+        pendingTriggerActivationRepository.deleteAll(pendingTriggerActivations);
+        return pendingTriggerActivations;
+    }
+
+    /**
+     * This method completes a ScriptExecution using its finished OpenWhisk-Activation. If the execution was
+     * successful, an empty Job is created for the IBMQ-Job that was started by the execution.
+     *
+     * @param scriptExecution Claimed ScriptExecution, its OpenWhisk-Service and QuantumApplication must be initialized
+     * @param openWhiskActivation Finished OpenWhisk-Activation of the ScriptExecution
+     */
+    @Transactional
+    public void completeScriptExecution(ScriptExecution scriptExecution, OpenWhiskActivation openWhiskActivation) {
+        // The ScriptExecution may have been completed by a callback in the meantime
+        if (!isRunning(repository.lockById(scriptExecution.getId()))) {
+            return;
+        }
+
+        // Update ScriptExecution
+        scriptExecution.setStatus(openWhiskActivation.getResponse().getSuccess() ? ExecutionStatus.SUCCESS : ExecutionStatus.ERROR);
+        scriptExecution.setExecutionStartedAt(ZonedDateTime.ofInstant(Instant.ofEpochMilli(openWhiskActivation.getStart()), ZoneId.of("UTC")));
+        scriptExecution.setExecutionEndedAt(ZonedDateTime.ofInstant(Instant.ofEpochMilli(openWhiskActivation.getEnd()), ZoneId.of("UTC")));
+        scriptExecution.setDuration(openWhiskActivation.getDuration());
+        storeLogs(scriptExecution, openWhiskActivation.getLogs());
+        scriptExecution.setLeaseOwner(null);
+        scriptExecution.setLeaseExpiresAt(null);
+
+        // Try to parse activation result and store it inside the script execution
+        Object activationResult = openWhiskActivation.getResponse().getResult();
+        if (!Objects.isNull(activationResult)) {
+            scriptExecution.setResult(ModelMapperUtils.convert(activationResult, ExecutionResult.class));
+        }
+        // Update ScriptExecution inside the database (the claimed ScriptExecution is detached and stays in use)
+        repository.save(scriptExecution);
+        log.info("Activation '{}' of action '{}' finished processing", scriptExecution.getActivationId(), scriptExecution.getQuantumApplication().getName());
+
+        // Create Job if script execution was successful
+        if (scriptExecution.getStatus().equals(ExecutionStatus.SUCCESS)) {
+            createJob(scriptExecution);
+        }
+    }
+
+    /**
+     * This method completes a running ScriptExecution that was reported as finished by its action. The Job is created
+     * right away, so that it does not need to wait for the polling of the activation. Repeated callbacks and callbacks
+     * for ScriptExecutions that were already completed by polling do not change anything. The callback must contain
+     * the secret that was passed to the action.
+     *
+     * @param activationId Activation-ID of the action
+     * @param jobId IBMQ-ID of the job that was started by the action
+     * @param token Secret of the action
+     * @return scriptExecution
+     * @throws InvalidCallbackTokenException Thrown if the secret does not belong to the ScriptExecution
+     */
+    @Transactional
+    public ScriptExecution completeScriptExecutionFromCallback(String activationId, String jobId, String token) {
+        ScriptExecution scriptExecution = repository.lockByActivationId(activationId)
+                .orElseThrow(() -> new NoSuchElementException("There is no ScriptExecution with activationId=" + activationId + "!"));
+        if (!CallbackTokenUtils.matches(token, scriptExecution.getCallbackTokenHash())) {
+            throw new InvalidCallbackTokenException("The callback of activation '" + activationId + "' is not authorized!");
+        }
+        if (scriptExecution.getStatus() != ExecutionStatus.RUNNING) {
+            return scriptExecution;
+        }
+
+        ExecutionResult result = new ExecutionResult();
+        result.setJobId(jobId);
+        scriptExecution.setResult(result);
+        scriptExecution.setStatus(ExecutionStatus.SUCCESS);
+        scriptExecution.setExecutionEndedAt(ZonedDateTime.now(ZoneId.of("UTC")));
+        scriptExecution.setLeaseOwner(null);
+        scriptExecution.setLeaseExpiresAt(null);
+        log.info("Activation '{}' of action '{}' reported job '{}'", activationId, scriptExecution.getQuantumApplication().getName(), jobId);
+        createJob(scriptExecution);
+        return scriptExecution;
+    }
+
+    /**
+     * This method creates an empty job using the Job-ID that is stored inside the ScriptExecution-Result with initial
+     * status. The job belongs to the hub, group and project the action was invoked with, or to the default project. After the transaction was committed, the job is polled right away.
+     *
+     * @param scriptExecution Successful ScriptExecution
+     */
+    private void createJob(ScriptExecution scriptExecution) {
+        Job job = new Job();
+        job.setIbmqId(scriptExecution.getResult().getJobId());
+        job.setStatus(JobStatus.CREATING);
+        job.setQuantumApplication(scriptExecution.getQuantumApplication());
+        job.setInputParams(scriptExecution.getInputParams());
+        JSONObject inputParams = new JSONObject(scriptExecution.getInputParams());
+        job.setDevice(inputParams.getString("device"));
+        job.setIbmqHub(inputParams.optString("hub", ibmqProperties.getHub()));
+        job.setIbmqGroup(inputParams.optString("group", ibmqProperties.getGroup()));
+        job.setIbmqProject(inputParams.optString("project", ibmqProperties.getProject()));
+        job.setNextPollAt(ZonedDateTime.now());
+        job = jobRepository.save(job);
+        eventPublisher.publishEvent(new JobCreatedEvent(job.getId()));
+    }
+
+    private boolean isRunning(Optional<ScriptExecution> scriptExecution) {
+        return scriptExecution.map(execution -> execution.getStatus() == ExecutionStatus.RUNNING).orElse(false);
+    }
+
+    /**
+     * This method moves running ScriptExecutions whose trigger was fired before the given age into the TIMEOUT state,
+     * so that their activations are not polled anymore. Running ScriptExecutions without a trigger time, which were
+     * created before it was stored, get the current time, so that they expire once the maximum age passed as well.
+     *
+     * @param maxAge Maximum age of a running ScriptExecution
+     * @return expiredScriptExecutions Number of expired ScriptExecutions
+     */
+    @Transactional
+    public int expireScriptExecutions(Duration maxAge) {
+        repository.initializeTriggerFiredAt(ExecutionStatus.RUNNING, ZonedDateTime.now());
+        int expired = repository.expireScriptExecutions(ExecutionStatus.RUNNING, ExecutionStatus.TIMEOUT, ZonedDateTime.now().minus(maxAge));
+        if (expired > 0) {
+            log.warn("{} script executions did not finish within {} and timed out", expired, maxAge);
+        }
+        return expired;
+    }
+
+    /**
+     * This method writes the logs of an activation to the BlobStore and references them inside the ScriptExecution.
+     * The ScriptExecution itself is not saved.
+     *
+     * @param scriptExecution ScriptExecution the logs belong to
+     * @param logs Logs of a OpenWhisk-Activation
+     */
+    public void storeLogs(ScriptExecution scriptExecution, List<String> logs) {
+        try {
+            BlobReference reference = blobStore.put(new ByteArrayInputStream(String.join("\n", logs).getBytes(StandardCharsets.UTF_8)));
+            scriptExecution.setLogsKey(reference.getKey());
+            scriptExecution.setLogsSize(reference.getSize());
+            scriptExecution.setLogsChecksum(reference.getChecksum());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store logs of activation '" + scriptExecution.getActivationId() + "'!", e);
+        }
+    }
+
+    /**
+     * This method opens the stored logs of a ScriptExecution for streaming.
+     *
+     * @param id Unique ID of a ScriptExecution
+     * @return logs Stream of the logs, one log line per line
+     */
+    public InputStream openLogs(UUID id) {
+        ScriptExecution scriptExecution = findById(id);
+        if (Objects.isNull(scriptExecution.getLogsKey())) {
+            throw new NoSuchElementException("ScriptExecution does not have any logs!");
+        }
+        try {
+            return blobStore.get(scriptExecution.getLogsKey());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read logs of ScriptExecution '" + id + "'!", e);
+        }
     }
 
     /**
@@ -0,0 +1,70 @@
+package de.unistuttgart.iaas.faas.quantumservice.storage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.StorageProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox.OutboxMessageRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution.ScriptExecutionRepository;
+import de.unistuttgart.iaas.faas.quantumservice.service.LeaseService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class removes contents from the BlobStore that are no longer referenced by any job, script execution or outbox
+ * message. Blobs are shared by all rows with the same content, so they are not deleted together with a single row but
+ * collected periodically. The store is shared by all service instances, which is verified at startup by the
+ * SharedStoreCheck, so a single instance collects the blobs of all instances.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BlobCollector {
+
+    private final BlobStore blobStore;
+    private final JobRepository jobRepository;
+    private final ScriptExecutionRepository scriptExecutionRepository;
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final LeaseService leaseService;
+    private final StorageProperties properties;
+
+    /**
+     * This scheduled method is repeatedly executed in process that is running in the background.
+     * Only the service instance that holds the leader lease of this task collects blobs. Blobs are only collected once
+     * the grace period passed since they were stored last, so that blobs whose reference is not committed yet are kept.
+     */
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${storage.collectionInterval:3600000}")
+    public void collectBlobs() {
+        try {
+            if (!leaseService.acquireLeadership("blob-collection", Duration.ofMillis(properties.getCollectionLeaseDuration()))) {
+                log.debug("Skipping collection of blobs, because another instance is the leader");
+                return;
+            }
+            Instant storedBefore = Instant.now().minus(Duration.ofMillis(properties.getCollectionGracePeriod()));
+            // The candidates are listed before the references are loaded, so that no reference can be missed
+            List<String> candidates = blobStore.listKeys(storedBefore);
+            if (candidates.isEmpty()) {
+                return;
+            }
+            Set<String> referencedKeys = new HashSet<>(jobRepository.findResultKeys());
+            referencedKeys.addAll(scriptExecutionRepository.findLogsKeys());
+            referencedKeys.addAll(outboxMessageRepository.findResultKeys());
+
+            int deleted = 0;
+            for (String key : candidates) {
+                if (!referencedKeys.contains(key) && blobStore.delete(key, storedBefore)) {
+                    deleted++;
+                }
+            }
+            log.debug("Collected {} unreferenced blobs", deleted);
+        } catch (Exception e) {
+            log.error("Something went wrong collecting blobs!", e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package de.unistuttgart.iaas.faas.quantumservice.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * This class references content that was written to a BlobStore.
+ */
+@Getter
+@AllArgsConstructor
+public class BlobReference {
+
+    private final String key;
+    private final long size;
+    private final String checksum;
+}
@@ -0,0 +1,68 @@
+package de.unistuttgart.iaas.faas.quantumservice.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * This interface describes a store for large contents like job results or activation logs. Contents are addressed by
+ * their hash, so storing the same content twice results in the same key.
+ */
+public interface BlobStore {
+
+    /**
+     * This method streams content into the store.
+     *
+     * @param content Stream of the uncompressed content
+     * @return blobReference Reference containing key, uncompressed size and checksum of the content
+     * @throws IOException Thrown if the content could not be read or written
+     */
+    BlobReference put(InputStream content) throws IOException;
+
+    /**
+     * This method opens stored content for reading.
+     *
+     * @param key Key of the content
+     * @return content Stream of the uncompressed content
+     * @throws IOException Thrown if the content could not be read
+     */
+    InputStream get(String key) throws IOException;
+
+    /**
+     * This method lists the keys of all contents that were last stored before the given time.
+     *
+     * @param storedBefore Time before which the contents were stored
+     * @return keys
+     * @throws IOException Thrown if the store could not be listed
+     */
+    List<String> listKeys(Instant storedBefore) throws IOException;
+
+    /**
+     * This method deletes content, unless it was stored again after the given time.
+     *
+     * @param key Key of the content
+     * @param storedBefore Time before which the content must have been stored last
+     * @return true if the content was deleted
+     * @throws IOException Thrown if the content could not be deleted
+     */
+    boolean delete(String key, Instant storedBefore) throws IOException;
+
+    /**
+     * This method reads stored content as a String. It should only be used where the whole content is needed.
+     *
+     * @param key Key of the content
+     * @return content
+     */
+    default String getAsString(String key) {
+        try (InputStream inputStream = get(key)) {
+            return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read blob with key '" + key + "'!", e);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package de.unistuttgart.iaas.faas.quantumservice.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.EventJournalProperties;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.StorageProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.exception.JournalFullException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class implements an append-only journal on the local file system. Entries are appended to memory-mapped segment
+ * files of a fixed size, each entry consisting of its length, its CRC32 checksum and its payload. The position up to
+ * which entries were processed is stored in a checkpoint file, so that unprocessed entries are read again after a
+ * restart. Segments that were processed completely are deleted.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EventJournal {
+
+    private static final String JOURNAL_DIRECTORY = "journal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String SEGMENT_SUFFIX = ".segment";
+    // Length and checksum of an entry
+    private static final int HEADER_SIZE = 8;
+
+    private final StorageProperties storageProperties;
+    private final EventJournalProperties properties;
+
+    // Open segments by their ID, guarded by this
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+    private JournalPosition checkpoint;
+    // First segment that may contain entries that were not yet written to the disk
+    private long unforcedSegmentId;
+
+    /**
+     * This method opens the journal. The checkpoint is loaded, processed segments are deleted and the end of the last
+     * segment is recovered. A partially written entry at the end of the last segment is discarded.
+     *
+     * @throws IOException Thrown if the journal could not be opened
+     */
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        Path directory = getDirectory();
+        Files.createDirectories(directory);
+        checkpoint = readCheckpoint();
+
+        List<Long> segmentIds = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> segmentIds.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        for (long segmentId : segmentIds) {
+            if (segmentId < checkpoint.getSegmentId()) {
+                Files.deleteIfExists(getSegmentFile(segmentId));
+            } else {
+                Segment segment = mapSegment(segmentId);
+                segment.recover();
+                segments.put(segmentId, segment);
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(checkpoint.getSegmentId(), mapSegment(checkpoint.getSegmentId()));
+        }
+        unforcedSegmentId = segments.lastKey();
+        log.info("Opened event journal with {} segments, checkpoint at segment {} offset {}", segments.size(),
+                checkpoint.getSegmentId(), checkpoint.getOffset());
+    }
+
+    /**
+     * This method appends an entry to the journal. If the current segment is full, a new segment is started.
+     *
+     * @param payload Payload of the entry
+     * @throws JournalFullException Thrown if the maximum number of segments is reached
+     */
+    public synchronized void append(byte[] payload) {
+        if (payload.length == 0 || payload.length + HEADER_SIZE > properties.getSegmentSize()) {
+            throw new IllegalArgumentException("Journal entries must contain between 1 and " + (properties.getSegmentSize() - HEADER_SIZE) + " bytes!");
+        }
+        Segment segment = segments.lastEntry().getValue();
+        if (segment.writePosition + HEADER_SIZE + payload.length > segment.buffer.capacity()) {
+            if (segments.size() >= properties.getMaxSegments()) {
+                throw new JournalFullException("The event journal is full, the event can not be accepted!");
+            }
+            segment = mapSegment(segment.id + 1);
+            segments.put(segment.id, segment);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        int offset = segment.writePosition;
+        segment.buffer.putInt(offset + 4, (int) crc.getValue());
+        segment.buffer.duplicate().position(offset + HEADER_SIZE).put(payload);
+        // The length is written last, so that readers never see an incomplete entry
+        segment.buffer.putInt(offset, payload.length);
+        segment.writePosition = offset + HEADER_SIZE + payload.length;
+        if (properties.isSyncOnAppend()) {
+            segment.buffer.force();
+        }
+    }
+
+    /**
+     * This method reads the entries that follow the checkpoint. The checkpoint is not moved, so the same entries are
+     * read again until they are committed.
+     *
+     * @param maxEntries Maximum number of entries that are read
+     * @return entries
+     */
+    public synchronized List<JournalEntry> read(int maxEntries) {
+        List<JournalEntry> entries = new ArrayList<>();
+        long segmentId = checkpoint.getSegmentId();
+        int offset = checkpoint.getOffset();
+        while (entries.size() < maxEntries) {
+            Segment segment = segments.get(segmentId);
+            if (segment == null) {
+                break;
+            }
+            if (offset < segment.writePosition) {
+                int length = segment.buffer.getInt(offset);
+                entries.add(new JournalEntry(segment.read(offset, length), new JournalPosition(segmentId, offset + HEADER_SIZE + length)));
+                offset += HEADER_SIZE + length;
+            } else {
+                // The rest of a segment is unused once the next segment was started
+                Map.Entry<Long, Segment> next = segments.higherEntry(segmentId);
+                if (next == null) {
+                    break;
+                }
+                segmentId = next.getKey();
+                offset = 0;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * This method moves the checkpoint behind processed entries and deletes segments that were processed completely.
+     *
+     * @param position Position that follows the last processed entry
+     */
+    public synchronized void commit(JournalPosition position) {
+        try {
+            Path checkpointFile = getDirectory().resolve(CHECKPOINT_FILE);
+            Path temporaryFile = getDirectory().resolve(CHECKPOINT_FILE + ".tmp");
+            Files.writeString(temporaryFile, position.getSegmentId() + ":" + position.getOffset(), StandardCharsets.UTF_8);
+            Files.move(temporaryFile, checkpointFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            checkpoint = position;
+
+            // Delete processed segments, the segment of the checkpoint is kept
+            while (segments.firstKey() < position.getSegmentId()) {
+                Segment segment = segments.pollFirstEntry().getValue();
+                segment.close();
+                Files.deleteIfExists(getSegmentFile(segment.id));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the checkpoint of the event journal!", e);
+        }
+    }
+
+    /**
+     * This method writes appended entries to the disk. Besides the current segment, all segments that were started
+     * since the last flush are written, so that entries of a full segment are not lost.
+     */
+    public synchronized void flush() {
+        for (Segment segment : segments.tailMap(unforcedSegmentId, true).values()) {
+            segment.buffer.force();
+        }
+        unforcedSegmentId = segments.lastKey();
+    }
+
+    /**
+     * This method checks if the journal can start a new segment, i.e. if entries can be appended again after the
+     * journal was full.
+     *
+     * @return hasCapacity
+     */
+    public synchronized boolean hasCapacity() {
+        return segments.size() < properties.getMaxSegments();
+    }
+
+    /**
+     * This method returns the number of bytes that were appended but not yet committed.
+     *
+     * @return backlog
+     */
+    public synchronized long getBacklog() {
+        long backlog = -checkpoint.getOffset();
+        for (Segment segment : segments.tailMap(checkpoint.getSegmentId(), true).values()) {
+            backlog += segment.writePosition;
+        }
+        return Math.max(0, backlog);
+    }
+
+    /**
+     * This method writes all segments to the disk and closes them.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        for (Segment segment : segments.values()) {
+            segment.buffer.force();
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    private JournalPosition readCheckpoint() throws IOException {
+        Path checkpointFile = getDirectory().resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpointFile)) {
+            return new JournalPosition(0, 0);
+        }
+        String[] checkpointParts = Files.readString(checkpointFile, StandardCharsets.UTF_8).trim().split(":");
+        return new JournalPosition(Long.parseLong(checkpointParts[0]), Integer.parseInt(checkpointParts[1]));
+    }
+
+    private Segment mapSegment(long segmentId) {
+        try {
+            FileChannel channel = FileChannel.open(getSegmentFile(segmentId), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = Math.max(channel.size(), properties.getSegmentSize());
+            return new Segment(segmentId, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map segment " + segmentId + " of the event journal!", e);
+        }
+    }
+
+    /**
+     * This method releases the mapping of a buffer, which otherwise is only released once the buffer is garbage
+     * collected. The buffer must not be accessed afterwards. If the JVM does not allow to release the mapping, it is
+     * left to the garbage collector.
+     *
+     * @param buffer Mapped buffer
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(theUnsafe.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Could not unmap event journal segment, it is released by the garbage collector", e);
+        }
+    }
+
+    private Path getDirectory() {
+        return Paths.get(storageProperties.getDirectory()).resolve(JOURNAL_DIRECTORY);
+    }
+
+    private Path getSegmentFile(long segmentId) {
+        return getDirectory().resolve(String.format("%020d", segmentId) + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * This class contains a mapped segment file and the position at which the next entry is appended.
+     */
+    private static class Segment {
+        private final long id;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+
+        private Segment(long id, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        private byte[] read(int offset, int length) {
+            byte[] payload = new byte[length];
+            buffer.duplicate().position(offset + HEADER_SIZE).get(payload);
+            return payload;
+        }
+
+        // This method finds the end of the written entries and clears everything behind it
+        private void recover() {
+            int offset = 0;
+            while (offset + HEADER_SIZE <= buffer.capacity()) {
+                int length = buffer.getInt(offset);
+                if (length <= 0 || offset + HEADER_SIZE + length > buffer.capacity()) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(read(offset, length));
+                if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                    log.warn("Discarding corrupted entry at offset {} of event journal segment {}", offset, id);
+                    break;
+                }
+                offset += HEADER_SIZE + length;
+            }
+            writePosition = offset;
+            // Clear the rest of a partially written entry, so that it can not be mistaken for an entry later on
+            if (offset + 4 <= buffer.capacity() && buffer.getInt(offset) != 0) {
+                for (int i = offset; i < buffer.capacity(); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+            }
+        }
+
+        // The mapping is released right away, so that it does not keep memory and the deleted file until it is collected
+        private void close() {
+            unmap(buffer);
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Could not close event journal segment {}", id, e);
+            }
+        }
+    }
+}
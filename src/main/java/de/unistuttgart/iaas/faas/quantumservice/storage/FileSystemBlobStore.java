@@ -0,0 +1,132 @@
+package de.unistuttgart.iaas.faas.quantumservice.storage;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.StorageProperties;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class implements a BlobStore on the local file system. Contents are stored gzip-compressed under their SHA-256
+ * hash and are streamed through a bounded buffer, so they are never held in memory as a whole. If several instances
+ * are running, the directory must be shared by all of them, which is verified at startup by the SharedStoreCheck.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "storage", name = "type", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemBlobStore implements BlobStore {
+
+    private static final String BLOB_EXTENSION = ".gz";
+
+    private final StorageProperties storageProperties;
+
+    /**
+     * This method streams content into the store. The content is written to a temporary file first, while its hash is
+     * calculated. Afterwards the file is moved to its content address, unless the same content is already stored.
+     *
+     * @param content Stream of the uncompressed content
+     * @return blobReference Reference containing key, uncompressed size and checksum of the content
+     * @throws IOException Thrown if the content could not be read or written
+     */
+    @Override
+    public BlobReference put(InputStream content) throws IOException {
+        Path blobDirectory = Paths.get(storageProperties.getBlobDirectory());
+        Files.createDirectories(blobDirectory);
+        Path temporaryFile = Files.createTempFile(blobDirectory, "blob", ".tmp");
+        try {
+            MessageDigest digest = DigestUtils.getSha256Digest();
+            long size = 0;
+            byte[] buffer = new byte[storageProperties.getBufferSize()];
+            try (InputStream inputStream = new DigestInputStream(content, digest);
+                 OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(temporaryFile), storageProperties.getBufferSize())) {
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, read);
+                    size += read;
+                }
+            }
+            String checksum = Hex.encodeHexString(digest.digest());
+            String key = checksum.substring(0, 2) + "/" + checksum;
+            Path target = resolve(key);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temporaryFile, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // The same content was stored concurrently
+                }
+            }
+            // Reused content is stored again, so that it is not collected before the new reference was saved
+            Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            return new BlobReference(key, size, checksum);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return new GZIPInputStream(new BufferedInputStream(Files.newInputStream(resolve(key)), storageProperties.getBufferSize()));
+    }
+
+    @Override
+    public List<String> listKeys(Instant storedBefore) throws IOException {
+        Path blobDirectory = Paths.get(storageProperties.getBlobDirectory());
+        if (!Files.isDirectory(blobDirectory)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.walk(blobDirectory, 2)) {
+            List<String> keys = new ArrayList<>();
+            Iterator<Path> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                String fileName = file.getFileName().toString();
+                if (Files.isRegularFile(file) && fileName.endsWith(BLOB_EXTENSION)
+                        && Files.getLastModifiedTime(file).toInstant().isBefore(storedBefore)) {
+                    keys.add(file.getParent().getFileName() + "/" + fileName.substring(0, fileName.length() - BLOB_EXTENSION.length()));
+                }
+            }
+            return keys;
+        }
+    }
+
+    @Override
+    public boolean delete(String key, Instant storedBefore) throws IOException {
+        Path file = resolve(key);
+        try {
+            if (!Files.getLastModifiedTime(file).toInstant().isBefore(storedBefore)) {
+                return false;
+            }
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        return Files.deleteIfExists(file);
+    }
+
+    private Path resolve(String key) {
+        return Paths.get(storageProperties.getBlobDirectory()).resolve(key + BLOB_EXTENSION);
+    }
+}
@@ -0,0 +1,15 @@
+package de.unistuttgart.iaas.faas.quantumservice.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * This class holds an entry that was read from the EventJournal and the position that follows it.
+ */
+@Getter
+@AllArgsConstructor
+public class JournalEntry {
+
+    private final byte[] payload;
+    private final JournalPosition next;
+}
@@ -0,0 +1,17 @@
+package de.unistuttgart.iaas.faas.quantumservice.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * This class references a position inside the EventJournal.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class JournalPosition {
+
+    private final long segmentId;
+    private final int offset;
+}
@@ -0,0 +1,117 @@
+package de.unistuttgart.iaas.faas.quantumservice.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.StorageProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution.ScriptExecutionRepository;
+import de.unistuttgart.iaas.faas.quantumservice.service.LeaseService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This class moves job results and activation logs that were stored inside the database by earlier versions into the
+ * BlobStore. Job results were stored in the result column of the job table and logs in the script_execution_logs
+ * table, both are no longer mapped. The contents are moved in batches in the background, the result column is cleared
+ * and the moved logs are deleted. The legacy column and table themselves are kept, they can be dropped manually once
+ * they are empty.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LegacyContentMigration {
+
+    private final BlobStore blobStore;
+    private final JobRepository jobRepository;
+    private final ScriptExecutionRepository scriptExecutionRepository;
+    private final LeaseService leaseService;
+    private final StorageProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    // Set once all legacy contents were moved, so that the database is not checked again
+    private volatile boolean resultsMigrated;
+    private volatile boolean logsMigrated;
+
+    /**
+     * This scheduled method is repeatedly executed in process that is running in the background.
+     * Only the service instance that holds the leader lease of this task moves contents. Every content is written to
+     * the BlobStore before it is referenced, so contents of a failed run are collected by the BlobCollector later.
+     */
+    @Scheduled(initialDelay = 30000, fixedDelayString = "${storage.migrationInterval:60000}")
+    public void migrateLegacyContents() {
+        if (resultsMigrated && logsMigrated) {
+            return;
+        }
+        try {
+            if (!leaseService.acquireLeadership("legacy-content-migration", Duration.ofMillis(properties.getMigrationLeaseDuration()))) {
+                log.debug("Skipping migration of legacy contents, because another instance is the leader");
+                return;
+            }
+            if (!resultsMigrated) {
+                resultsMigrated = migrateJobResults();
+            }
+            if (!logsMigrated) {
+                logsMigrated = migrateLogs();
+            }
+        } catch (Exception e) {
+            log.error("Something went wrong migrating legacy contents!", e);
+        }
+    }
+
+    /**
+     * This method moves a batch of job results into the BlobStore.
+     *
+     * @return true if no job result is left in the legacy column
+     * @throws IOException Thrown if a result could not be stored
+     */
+    boolean migrateJobResults() throws IOException {
+        if (jobRepository.countLegacyResultColumns() == 0) {
+            return true;
+        }
+        List<Object[]> results = jobRepository.findLegacyResults(properties.getMigrationBatchSize());
+        for (Object[] result : results) {
+            BlobReference reference = put((String) result[1]);
+            jobRepository.moveLegacyResult((byte[]) result[0], reference.getKey(), reference.getSize(), reference.getChecksum());
+        }
+        if (!results.isEmpty()) {
+            log.info("Moved {} legacy job results into the BlobStore", results.size());
+        }
+        return results.size() < properties.getMigrationBatchSize();
+    }
+
+    /**
+     * This method moves the logs of a batch of script executions into the BlobStore. The reference is set and the
+     * legacy logs are deleted in one transaction.
+     *
+     * @return true if no logs are left in the legacy table
+     * @throws IOException Thrown if logs could not be stored
+     */
+    boolean migrateLogs() throws IOException {
+        if (scriptExecutionRepository.countLegacyLogsTables() == 0) {
+            return true;
+        }
+        List<byte[]> ids = scriptExecutionRepository.findLegacyLogsIds(properties.getMigrationBatchSize());
+        for (byte[] id : ids) {
+            BlobReference reference = put(String.join("\n", scriptExecutionRepository.findLegacyLogs(id)));
+            transactionTemplate.executeWithoutResult(status -> {
+                scriptExecutionRepository.updateLogsReference(id, reference.getKey(), reference.getSize(), reference.getChecksum());
+                scriptExecutionRepository.deleteLegacyLogs(id);
+            });
+        }
+        if (!ids.isEmpty()) {
+            log.info("Moved the legacy logs of {} script executions into the BlobStore", ids.size());
+        }
+        return ids.size() < properties.getMigrationBatchSize();
+    }
+
+    private BlobReference put(String content) throws IOException {
+        return blobStore.put(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
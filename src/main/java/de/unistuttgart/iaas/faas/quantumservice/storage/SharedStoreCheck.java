@@ -0,0 +1,91 @@
+package de.unistuttgart.iaas.faas.quantumservice.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import javax.annotation.PostConstruct;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.StorageProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.storage.StoreRegistration;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.storage.StoreRegistrationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class verifies that all service instances use the same directory for the FileSystemBlobStore. Results and logs
+ * are read by any instance and unreferenced blobs are only collected by the leader, so a directory on the local disk
+ * of every instance would lose data. The first instance writes a random ID into the directory and registers it in the
+ * database, every other instance must find the same ID in its directory. If the store is replaced on purpose, the
+ * registration must be deleted from the store_registration table.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "storage", name = "type", havingValue = "filesystem", matchIfMissing = true)
+public class SharedStoreCheck {
+
+    private static final String REGISTRATION_NAME = "blob-store";
+    private static final String STORE_ID_FILE = "store-id";
+
+    private final StoreRegistrationRepository repository;
+    private final StorageProperties properties;
+
+    /**
+     * This method compares the ID of the store with the registered ID and registers it if no store is registered yet.
+     *
+     * @throws IOException Thrown if the ID of the store could not be read or written
+     * @throws IllegalStateException Thrown if the store is not the registered one
+     */
+    @PostConstruct
+    public void verifySharedStore() throws IOException {
+        if (!properties.isRequireSharedStore()) {
+            log.warn("The BlobStore is not verified to be shared, it must not be used by more than one instance");
+            return;
+        }
+        String storeId = readOrCreateStoreId();
+        repository.insertIfAbsent(REGISTRATION_NAME, storeId);
+        String registeredStoreId = repository.findById(REGISTRATION_NAME).map(StoreRegistration::getStoreId).orElse(null);
+        if (!storeId.equals(registeredStoreId)) {
+            throw new IllegalStateException("The BlobStore directory '" + properties.getBlobDirectory() + "' is not shared with the other instances! "
+                    + "Its ID is '" + storeId + "', but the instances use the store '" + registeredStoreId + "'.");
+        }
+        log.info("Using the shared BlobStore '{}' in directory '{}'", storeId, properties.getBlobDirectory());
+    }
+
+    private String readOrCreateStoreId() throws IOException {
+        Path file = Paths.get(properties.getBlobDirectory()).resolve(STORE_ID_FILE);
+        Files.createDirectories(file.getParent());
+        String storeId = UUID.randomUUID().toString();
+        try {
+            Files.write(file, storeId.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            return storeId;
+        } catch (FileAlreadyExistsException e) {
+            // The file may have been created concurrently by another instance that did not write the ID yet
+            for (int attempt = 0; attempt < 10; attempt++) {
+                String existingStoreId = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+                if (existingStoreId.length() == storeId.length()) {
+                    return existingStoreId;
+                }
+                sleep();
+            }
+            throw new IOException("The ID of the BlobStore in '" + file + "' is incomplete!");
+        }
+    }
+
+    private void sleep() throws IOException {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading the ID of the BlobStore", e);
+        }
+    }
+}
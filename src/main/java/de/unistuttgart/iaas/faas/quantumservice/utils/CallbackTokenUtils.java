@@ -0,0 +1,42 @@
+package de.unistuttgart.iaas.faas.quantumservice.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Objects;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * This Utility-Class creates and verifies the secrets that actions use to authenticate their callback.
+ * Only the hash of a secret is stored, so that the secrets can not be read from the database.
+ */
+public class CallbackTokenUtils {
+
+    private static final SecureRandom random = new SecureRandom();
+
+    public static String createToken() {
+        byte[] token = new byte[32];
+        random.nextBytes(token);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    public static String hash(String token) {
+        return DigestUtils.sha256Hex(token);
+    }
+
+    /**
+     * This method compares a token with a stored hash in constant time.
+     *
+     * @param token Token that was sent with the callback
+     * @param hash Stored hash of the expected token
+     * @return matches
+     */
+    public static boolean matches(String token, String hash) {
+        if (Objects.isNull(token) || Objects.isNull(hash)) {
+            return false;
+        }
+        return MessageDigest.isEqual(hash(token).getBytes(StandardCharsets.UTF_8), hash.getBytes(StandardCharsets.UTF_8));
+    }
+}
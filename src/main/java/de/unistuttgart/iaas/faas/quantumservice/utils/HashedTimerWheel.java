@@ -0,0 +1,96 @@
+package de.unistuttgart.iaas.faas.quantumservice.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class implements a hashed timer wheel. Every key is placed in the bucket of the tick in which its deadline
+ * passes, so scheduling, cancelling and advancing the wheel only touch a single bucket per key or tick, independent of
+ * the number of scheduled keys. Deadlines that are more than one revolution away stay in their bucket until the wheel
+ * reaches them in a later revolution.
+ *
+ * @param <K> Type of the scheduled keys
+ */
+public class HashedTimerWheel<K> {
+
+    private final long tickDuration;
+    private final List<Map<K, Long>> buckets = new ArrayList<>();
+    // Bucket index of every scheduled key, used to reschedule and cancel keys
+    private final Map<K, Integer> bucketIndexes = new HashMap<>();
+    private long currentTick;
+
+    public HashedTimerWheel(long tickDuration, int wheelSize, long startTime) {
+        this.tickDuration = tickDuration;
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new HashMap<>());
+        }
+        this.currentTick = startTime / tickDuration;
+    }
+
+    /**
+     * This method schedules a key for the given deadline. A key that is already scheduled is moved to the new deadline.
+     *
+     * @param key Key that should expire
+     * @param deadline Deadline in epoch milliseconds
+     */
+    public synchronized void schedule(K key, long deadline) {
+        cancel(key);
+        // Deadlines in the past expire during the next tick
+        long tick = Math.max(currentTick, (deadline + tickDuration - 1) / tickDuration);
+        int bucketIndex = (int) (tick % buckets.size());
+        buckets.get(bucketIndex).put(key, deadline);
+        bucketIndexes.put(key, bucketIndex);
+    }
+
+    /**
+     * This method removes a scheduled key.
+     *
+     * @param key Key that should not expire anymore
+     */
+    public synchronized void cancel(K key) {
+        Integer bucketIndex = bucketIndexes.remove(key);
+        if (bucketIndex != null) {
+            buckets.get(bucketIndex).remove(key);
+        }
+    }
+
+    /**
+     * This method returns the deadline of a scheduled key.
+     *
+     * @param key Scheduled key
+     * @return deadline Deadline in epoch milliseconds or null if the key is not scheduled
+     */
+    public synchronized Long getDeadline(K key) {
+        Integer bucketIndex = bucketIndexes.get(key);
+        return bucketIndex == null ? null : buckets.get(bucketIndex).get(key);
+    }
+
+    /**
+     * This method advances the wheel to the given time and removes all keys whose deadline has passed.
+     *
+     * @param now Current time in epoch milliseconds
+     * @return expiredKeys
+     */
+    public synchronized List<K> advance(long now) {
+        List<K> expiredKeys = new ArrayList<>();
+        long targetTick = now / tickDuration;
+        // Each bucket only has to be visited once, even if the wheel was not advanced for more than one revolution
+        long lastTick = Math.min(targetTick, currentTick + buckets.size() - 1);
+        for (long tick = currentTick; tick <= lastTick; tick++) {
+            Iterator<Map.Entry<K, Long>> iterator = buckets.get((int) (tick % buckets.size())).entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<K, Long> entry = iterator.next();
+                if (entry.getValue() <= now) {
+                    iterator.remove();
+                    bucketIndexes.remove(entry.getKey());
+                    expiredKeys.add(entry.getKey());
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return expiredKeys;
+    }
+}
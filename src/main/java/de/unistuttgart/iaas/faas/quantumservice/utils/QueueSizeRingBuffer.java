@@ -0,0 +1,135 @@
+package de.unistuttgart.iaas.faas.quantumservice.utils;
+
+import java.util.Arrays;
+
+/**
+ * This class stores the latest queue size samples of a device in primitive arrays of fixed capacity. If the buffer is
+ * full, the oldest sample is overwritten.
+ */
+public class QueueSizeRingBuffer {
+
+    private final long[] timestamps;
+    private final int[] queueSizes;
+    private int next;
+    private int count;
+
+    public QueueSizeRingBuffer(int capacity) {
+        this.timestamps = new long[capacity];
+        this.queueSizes = new int[capacity];
+    }
+
+    /**
+     * This method adds a sample to the buffer.
+     *
+     * @param timestamp Time of the sample in epoch milliseconds
+     * @param queueSize Queue size of the sample
+     */
+    public synchronized void add(long timestamp, int queueSize) {
+        timestamps[next] = timestamp;
+        queueSizes[next] = queueSize;
+        next = (next + 1) % timestamps.length;
+        count = Math.min(count + 1, timestamps.length);
+    }
+
+    /**
+     * This method returns all samples in the given time range ordered by their time.
+     *
+     * @param from Start of the range in epoch milliseconds (inclusive)
+     * @param to End of the range in epoch milliseconds (exclusive)
+     * @return samples
+     */
+    public synchronized Samples range(long from, long to) {
+        long[] rangeTimestamps = new long[count];
+        int[] rangeQueueSizes = new int[count];
+        int size = 0;
+        int oldest = (next - count + timestamps.length) % timestamps.length;
+        for (int i = 0; i < count; i++) {
+            int index = (oldest + i) % timestamps.length;
+            if (timestamps[index] >= from && timestamps[index] < to) {
+                rangeTimestamps[size] = timestamps[index];
+                rangeQueueSizes[size] = queueSizes[index];
+                size++;
+            }
+        }
+        return new Samples(Arrays.copyOf(rangeTimestamps, size), Arrays.copyOf(rangeQueueSizes, size));
+    }
+
+    /**
+     * This class contains a copy of samples taken from the buffer.
+     */
+    public static class Samples {
+
+        private final long[] timestamps;
+        private final int[] queueSizes;
+
+        private Samples(long[] timestamps, int[] queueSizes) {
+            this.timestamps = timestamps;
+            this.queueSizes = queueSizes;
+        }
+
+        public int size() {
+            return timestamps.length;
+        }
+
+        public long timestamp(int index) {
+            return timestamps[index];
+        }
+
+        public int queueSize(int index) {
+            return queueSizes[index];
+        }
+
+        /**
+         * This method returns the queue size at the given percentile using the nearest-rank method.
+         *
+         * @param percentile Percentile between 0 and 100
+         * @return queueSize
+         */
+        public int percentile(double percentile) {
+            int[] sorted = queueSizes.clone();
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+
+        public int min() {
+            return Arrays.stream(queueSizes).min().orElse(0);
+        }
+
+        public int max() {
+            return Arrays.stream(queueSizes).max().orElse(0);
+        }
+
+        public double average() {
+            return Arrays.stream(queueSizes).average().orElse(0);
+        }
+
+        /**
+         * This method calculates the trend of the samples as the slope of a least squares regression line.
+         *
+         * @return trend Change of the queue size per hour
+         */
+        public double trendPerHour() {
+            if (size() < 2) {
+                return 0;
+            }
+            double meanTime = 0;
+            double meanQueueSize = 0;
+            for (int i = 0; i < size(); i++) {
+                // Times are relative to the first sample to keep the numbers small
+                meanTime += (timestamps[i] - timestamps[0]) / 3600000.0;
+                meanQueueSize += queueSizes[i];
+            }
+            meanTime /= size();
+            meanQueueSize /= size();
+            double covariance = 0;
+            double variance = 0;
+            for (int i = 0; i < size(); i++) {
+                double time = (timestamps[i] - timestamps[0]) / 3600000.0 - meanTime;
+                covariance += time * (queueSizes[i] - meanQueueSize);
+                variance += time * time;
+            }
+            return variance == 0 ? 0 : covariance / variance;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package de.unistuttgart.iaas.faas.quantumservice.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpServer;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.HttpClientProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HttpClientFactoryTest {
+
+    private static final String CONNECTIONS_METRIC = "httpcomponents.httpclient.pool.total.connections";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HttpClientFactory factory = new HttpClientFactory(meterRegistry);
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.closeAll();
+        server.stop(0);
+    }
+
+    @Test
+    void reusesPooledConnections() {
+        RestTemplate restTemplate = factory.create("test", new HttpClientProperties.Pool());
+        String url = "http://localhost:" + server.getAddress().getPort() + "/";
+
+        assertThat(restTemplate.getForObject(url, String.class)).isEqualTo("ok");
+        assertThat(restTemplate.getForObject(url, String.class)).isEqualTo("ok");
+
+        assertThat(connections("test", "available")).isEqualTo(1);
+        assertThat(connections("test", "leased")).isEqualTo(0);
+    }
+
+    @Test
+    void closingAPoolRemovesItsMetrics() {
+        RestTemplate restTemplate = factory.create("closed", new HttpClientProperties.Pool());
+        factory.create("open", new HttpClientProperties.Pool());
+
+        factory.close(restTemplate);
+        // Closing a pool twice has no effect
+        factory.close(restTemplate);
+
+        assertThat(meterRegistry.find(CONNECTIONS_METRIC).tag("httpclient", "closed").meters()).isEmpty();
+        assertThat(meterRegistry.find(CONNECTIONS_METRIC).tag("httpclient", "open").meters()).isNotEmpty();
+    }
+
+    private double connections(String name, String state) {
+        return meterRegistry.get(CONNECTIONS_METRIC).tag("httpclient", name).tag("state", state).gauge().value();
+    }
+}
@@ -0,0 +1,46 @@
+package de.unistuttgart.iaas.faas.quantumservice.api;
+
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.IBMQProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.IBMQJobFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class IBMQClientTest {
+
+    @Test
+    void encodesTheFilterOfTheJobsList() {
+        IBMQProperties properties = new IBMQProperties();
+        properties.setApiHost("https://api.example.com/v2");
+        properties.setAccessToken("a+b");
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        IBMQClient client = new IBMQClient(properties, restTemplate);
+        IBMQJobFilter filter = new IBMQJobFilter();
+        filter.setIds(List.of("job"));
+        filter.setCreatedAfter(ZonedDateTime.of(2021, 5, 1, 12, 0, 0, 0, ZoneOffset.ofHours(2)));
+
+        server.expect(request -> {
+            URI requestUri = request.getURI();
+            assertThat(requestUri.getRawQuery()).doesNotContain("+");
+            String query = URLDecoder.decode(requestUri.getRawQuery(), StandardCharsets.UTF_8);
+            assertThat(UriComponentsBuilder.fromUri(requestUri).build().getQueryParams().getFirst("access_token")).isEqualTo("a%2Bb");
+            assertThat(query).contains("\"gt\":\"2021-05-01T10:00:00Z\"").contains("\"inq\":[\"job\"]");
+        }).andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        assertThat(client.getJobs("hub", "group", "project", filter)).isEmpty();
+        server.verify();
+    }
+}
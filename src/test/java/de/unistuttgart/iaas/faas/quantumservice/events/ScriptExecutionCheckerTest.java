@@ -0,0 +1,153 @@
+package de.unistuttgart.iaas.faas.quantumservice.events;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import de.unistuttgart.iaas.faas.quantumservice.api.OpenWhiskClient;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.CallbackProperties;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.ScriptExecutionCheckerProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.openwhiskservice.OpenWhiskService;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution.ScriptExecution;
+import de.unistuttgart.iaas.faas.quantumservice.model.openwhisk.OpenWhiskActivation;
+import de.unistuttgart.iaas.faas.quantumservice.service.LeaseService;
+import de.unistuttgart.iaas.faas.quantumservice.service.ScriptExecutionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ScriptExecutionCheckerTest {
+
+    private final OpenWhiskClient openWhiskClient = mock(OpenWhiskClient.class);
+    private final ScriptExecutionService scriptExecutionService = mock(ScriptExecutionService.class);
+    private final LeaseService leaseService = mock(LeaseService.class);
+    private final ScriptExecutionCheckerProperties properties = new ScriptExecutionCheckerProperties();
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private ScriptExecutionChecker checker;
+
+    @BeforeEach
+    void setUp() {
+        executor.initialize();
+        checker = new ScriptExecutionChecker(openWhiskClient, scriptExecutionService, leaseService, executor, properties,
+                new SimpleMeterRegistry(), mock(CallbackProperties.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void completesFinishedAndDefersUnfinishedScriptExecutions() {
+        ScriptExecution finished = scriptExecution(service("first"), "finished");
+        ScriptExecution unfinished = scriptExecution(service("second"), "unfinished");
+        claim(finished, unfinished);
+        OpenWhiskActivation activation = new OpenWhiskActivation();
+        when(openWhiskClient.getActivation(any(), any())).thenReturn(null);
+        when(openWhiskClient.getActivation(finished.getOpenWhiskService(), "finished")).thenReturn(activation);
+
+        checker.checkRunningActivations();
+
+        verify(scriptExecutionService).completeScriptExecution(finished, activation);
+        verify(leaseService).deferScriptExecutions(List.of(unfinished.getId()), Duration.ofMillis(properties.getPollInterval()));
+    }
+
+    @Test
+    void scriptExecutionsThatCouldNotBePolledAreLeftToTheirLease() {
+        ScriptExecution scriptExecution = scriptExecution(service("service"), "activation");
+        claim(scriptExecution);
+        when(openWhiskClient.getActivation(any(), any())).thenThrow(new IllegalStateException("unavailable"));
+
+        checker.checkRunningActivations();
+
+        verify(scriptExecutionService, never()).completeScriptExecution(any(), any());
+        verify(leaseService).deferScriptExecutions(List.of(), Duration.ofMillis(properties.getPollInterval()));
+    }
+
+    @Test
+    void synchronizesBusyServicesFromTheActivationsList() {
+        OpenWhiskService openWhiskService = service("service");
+        ScriptExecution listed = scriptExecution(openWhiskService, "listed");
+        ScriptExecution recent = scriptExecution(openWhiskService, "recent");
+        ScriptExecution stale = scriptExecution(openWhiskService, "stale");
+        recent.setTriggerFiredAt(ZonedDateTime.now());
+        stale.setTriggerFiredAt(ZonedDateTime.now().minusHours(1));
+        claim(listed, recent, stale);
+        OpenWhiskActivation listedActivation = activation("listed");
+        OpenWhiskActivation staleActivation = activation("stale");
+        when(openWhiskClient.listActivations(eq(openWhiskService), anyLong(), anyInt(), eq(0)))
+                .thenReturn(List.of(listedActivation, activation("other")));
+        when(openWhiskClient.getActivation(openWhiskService, "stale")).thenReturn(staleActivation);
+
+        checker.checkRunningActivations();
+
+        verify(scriptExecutionService).completeScriptExecution(listed, listedActivation);
+        verify(scriptExecutionService).completeScriptExecution(stale, staleActivation);
+        verify(openWhiskClient, never()).getActivation(openWhiskService, "recent");
+        verify(leaseService).deferScriptExecutions(List.of(recent.getId()), Duration.ofMillis(properties.getPollInterval()));
+    }
+
+    @Test
+    void pollsActivationsOneByOneIfTheyCanNotBeListed() {
+        OpenWhiskService openWhiskService = service("service");
+        ScriptExecution first = scriptExecution(openWhiskService, "first");
+        ScriptExecution second = scriptExecution(openWhiskService, "second");
+        claim(first, second);
+        OpenWhiskActivation activation = activation("first");
+        when(openWhiskClient.listActivations(any(), anyLong(), anyInt(), anyInt())).thenThrow(new IllegalStateException("unavailable"));
+        when(openWhiskClient.getActivation(openWhiskService, "first")).thenReturn(activation);
+
+        checker.checkRunningActivations();
+
+        verify(scriptExecutionService).completeScriptExecution(first, activation);
+        verify(leaseService).deferScriptExecutions(List.of(second.getId()), Duration.ofMillis(properties.getPollInterval()));
+    }
+
+    @Test
+    void onlyTheLeaderExpiresScriptExecutions() {
+        checker.expireScriptExecutions();
+        verify(scriptExecutionService, never()).expireScriptExecutions(any());
+
+        when(leaseService.acquireLeadership(anyString(), any())).thenReturn(true);
+        checker.expireScriptExecutions();
+        verify(scriptExecutionService).expireScriptExecutions(Duration.ofMillis(properties.getExecutionTimeout()));
+    }
+
+    private void claim(ScriptExecution... scriptExecutions) {
+        when(leaseService.claimRunningScriptExecutions(anyInt(), any(), any())).thenReturn(List.of(scriptExecutions));
+    }
+
+    private static OpenWhiskActivation activation(String activationId) {
+        OpenWhiskActivation activation = new OpenWhiskActivation();
+        activation.setActivationId(activationId);
+        return activation;
+    }
+
+    private static ScriptExecution scriptExecution(OpenWhiskService openWhiskService, String activationId) {
+        ScriptExecution scriptExecution = new ScriptExecution();
+        scriptExecution.setId(UUID.randomUUID());
+        scriptExecution.setOpenWhiskService(openWhiskService);
+        scriptExecution.setActivationId(activationId);
+        return scriptExecution;
+    }
+
+    private static OpenWhiskService service(String name) {
+        OpenWhiskService openWhiskService = new OpenWhiskService();
+        openWhiskService.setId(UUID.randomUUID());
+        openWhiskService.setName(name);
+        return openWhiskService;
+    }
+}
@@ -0,0 +1,162 @@
+package de.unistuttgart.iaas.faas.quantumservice.events;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+import de.unistuttgart.iaas.faas.quantumservice.api.OpenWhiskClient;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.TriggerActivationProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.openwhiskservice.OpenWhiskService;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.triggeractivation.PendingTriggerActivation;
+import de.unistuttgart.iaas.faas.quantumservice.model.openwhisk.OpenWhiskActivation;
+import de.unistuttgart.iaas.faas.quantumservice.model.openwhisk.Response;
+import de.unistuttgart.iaas.faas.quantumservice.service.ScriptExecutionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TriggerActivationResolverTest {
+
+    private final OpenWhiskClient openWhiskClient = mock(OpenWhiskClient.class);
+    private final ScriptExecutionService scriptExecutionService = mock(ScriptExecutionService.class);
+    private final TriggerActivationProperties properties = new TriggerActivationProperties();
+    private final OpenWhiskService openWhiskService = new OpenWhiskService();
+    private TriggerActivationResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        properties.setPoolSize(1);
+        properties.setQueueCapacity(1);
+        properties.setInitialRetryDelay(10);
+        properties.setMaxRetryDelay(10);
+        properties.setShutdownTimeout(1000);
+        openWhiskService.setId(UUID.randomUUID());
+        resolver = new TriggerActivationResolver(openWhiskClient, scriptExecutionService, properties, new SimpleMeterRegistry());
+        resolver.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        resolver.shutdown();
+    }
+
+    @Test
+    void rejectsReservationsAtCapacity() {
+        resolver.reserve();
+
+        assertThatThrownBy(resolver::reserve).isInstanceOf(RejectedExecutionException.class);
+        resolver.release();
+        resolver.reserve();
+    }
+
+    @Test
+    void retriesUntilTheActivationIsAvailableAndReleasesThePermit() {
+        when(openWhiskClient.getActivation(openWhiskService, "activation")).thenReturn(null, activation());
+
+        resolver.reserve();
+        resolver.resolve(openWhiskService, "activation", "hash");
+
+        verify(scriptExecutionService, timeout(5000)).createScriptExecutionsFromLogs(any(), any(), eq(1L), eq("hash"));
+        verify(openWhiskClient, timeout(5000).times(2)).getActivation(openWhiskService, "activation");
+        awaitCapacity();
+    }
+
+    @Test
+    void storesUnresolvedActivationsOnShutdown() {
+        properties.setInitialRetryDelay(60000);
+        resolver.reserve();
+        resolver.resolve(openWhiskService, "activation", "hash");
+
+        resolver.shutdown();
+
+        verify(scriptExecutionService).savePendingTriggerActivations(argThat(pendingTriggerActivations -> pendingTriggerActivations.size() == 1
+                && pendingTriggerActivations.get(0).getActivationId().equals("activation")
+                && pendingTriggerActivations.get(0).getOpenWhiskService() == openWhiskService));
+    }
+
+    @Test
+    void doesNotStoreResolvedActivations() {
+        when(openWhiskClient.getActivation(openWhiskService, "activation")).thenReturn(activation());
+        resolver.reserve();
+        resolver.resolve(openWhiskService, "activation", "hash");
+        verify(scriptExecutionService, timeout(5000)).createScriptExecutionsFromLogs(any(), any(), any(), any());
+
+        resolver.shutdown();
+
+        verify(scriptExecutionService, never()).savePendingTriggerActivations(anyList());
+    }
+
+    @Test
+    void recoversStoredActivationsWithinItsCapacity() {
+        PendingTriggerActivation pendingTriggerActivation = new PendingTriggerActivation();
+        pendingTriggerActivation.setOpenWhiskService(openWhiskService);
+        pendingTriggerActivation.setActivationId("activation");
+        pendingTriggerActivation.setAttempts(3);
+        when(scriptExecutionService.claimPendingTriggerActivations(anyInt())).thenReturn(List.of(pendingTriggerActivation));
+        when(openWhiskClient.getActivation(openWhiskService, "activation")).thenReturn(activation());
+
+        resolver.recoverTriggerActivations();
+
+        verify(scriptExecutionService).claimPendingTriggerActivations(1);
+        verify(scriptExecutionService, timeout(5000)).createScriptExecutionsFromLogs(any(), any(), any(), any());
+    }
+
+    @Test
+    void doesNotRecoverActivationsAtCapacity() {
+        resolver.reserve();
+
+        resolver.recoverTriggerActivations();
+
+        verify(scriptExecutionService, never()).claimPendingTriggerActivations(anyInt());
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        properties.setMaxAttempts(2);
+
+        resolver.reserve();
+        resolver.resolve(openWhiskService, "activation", null);
+
+        verify(openWhiskClient, timeout(5000).times(2)).getActivation(openWhiskService, "activation");
+        // The permit is released once the activation was given up
+        awaitCapacity();
+        verify(scriptExecutionService, never()).createScriptExecutionsFromLogs(any(), any(), any(), any());
+    }
+
+    private void awaitCapacity() {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            try {
+                resolver.reserve();
+                return;
+            } catch (RejectedExecutionException e) {
+                assertThat(System.currentTimeMillis()).isLessThan(deadline);
+                Thread.yield();
+            }
+        }
+    }
+
+    private static OpenWhiskActivation activation() {
+        Response response = new Response();
+        response.setResult(Map.of("device", "device"));
+        OpenWhiskActivation activation = new OpenWhiskActivation();
+        activation.setResponse(response);
+        activation.setStart(1L);
+        return activation;
+    }
+}
@@ -0,0 +1,38 @@
+package de.unistuttgart.iaas.faas.quantumservice.messaging;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchingMessageListenerContainerTest {
+
+    @Test
+    void pausedConsumersReceiveNoMessagesUntilTheyAreResumed() throws JMSException {
+        AtomicBoolean hasCapacity = new AtomicBoolean();
+        BatchingMessageListenerContainer container = new BatchingMessageListenerContainer();
+        container.setResumeCondition(hasCapacity::get);
+        container.setResumeInterval(1);
+        MessageConsumer consumer = mock(MessageConsumer.class);
+        Message message = mock(Message.class);
+        when(consumer.receive(anyLong())).thenReturn(message);
+
+        container.pause();
+        assertThat(container.receiveMessage(consumer)).isNull();
+        verify(consumer, never()).receive(anyLong());
+
+        hasCapacity.set(true);
+        assertThat(container.receiveMessage(consumer)).isSameAs(message);
+        assertThat(container.isPaused()).isFalse();
+    }
+}
@@ -0,0 +1,82 @@
+package de.unistuttgart.iaas.faas.quantumservice.messaging;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jms.JMSException;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.MessagingProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.exception.JournalFullException;
+import de.unistuttgart.iaas.faas.quantumservice.service.EventTriggerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventReceiverTest {
+
+    private final EventTriggerService eventTriggerService = mock(EventTriggerService.class);
+    private final Session session = mock(Session.class);
+    private final AtomicInteger journalFull = new AtomicInteger();
+    private EventReceiver receiver;
+
+    @BeforeEach
+    void setUp() {
+        receiver = new EventReceiver(eventTriggerService, new MessageCodec(new ObjectMapper()), new MessagingProperties(),
+                new IdempotencyCache(100), new SimpleMeterRegistry(), journalFull::incrementAndGet);
+    }
+
+    @Test
+    void dropsCommittedMessagesThatAreDeliveredAgain() throws JMSException {
+        receiver.onMessage(message("first"), session);
+        receiver.commitKeys(session);
+
+        receiver.onMessage(message("first"), session);
+
+        verify(eventTriggerService).acceptEvent(any());
+    }
+
+    @Test
+    void processesRolledBackMessagesAgain() throws JMSException {
+        receiver.onMessage(message("first"), session);
+        receiver.discardKeys(session);
+
+        receiver.onMessage(message("first"), session);
+
+        verify(eventTriggerService, times(2)).acceptEvent(any());
+    }
+
+    @Test
+    void doesNotStoreEventsTwiceIfTheJournalIsFull() throws JMSException {
+        doNothing().doThrow(new JournalFullException("full")).doNothing().when(eventTriggerService).acceptEvent(any());
+
+        receiver.onMessage(message("first"), session);
+        assertThatThrownBy(() -> receiver.onMessage(message("second"), session)).isInstanceOf(JournalFullException.class);
+        assertThat(journalFull.get()).isEqualTo(1);
+
+        // The container rolls the batch back and both messages are delivered again
+        receiver.discardKeys(session);
+        receiver.onMessage(message("first"), session);
+        receiver.onMessage(message("second"), session);
+
+        verify(eventTriggerService, times(3)).acceptEvent(any());
+    }
+
+    private static TextMessage message(String id) throws JMSException {
+        TextMessage message = mock(TextMessage.class);
+        when(message.getJMSMessageID()).thenReturn(id);
+        when(message.getText()).thenReturn("{\"eventType\":\"QUEUE_SIZE\",\"eventPayloadProperties\":{\"id\":\"" + id + "\"}}");
+        return message;
+    }
+}
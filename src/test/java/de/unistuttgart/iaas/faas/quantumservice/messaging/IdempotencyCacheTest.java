@@ -0,0 +1,42 @@
+package de.unistuttgart.iaas.faas.quantumservice.messaging;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyCacheTest {
+
+    @Test
+    void containsAddedKeys() {
+        IdempotencyCache cache = new IdempotencyCache(2);
+        cache.add("a");
+
+        assertThat(cache.contains("a")).isTrue();
+        assertThat(cache.contains("b")).isFalse();
+    }
+
+    @Test
+    void evictsOldestKeyIfFull() {
+        IdempotencyCache cache = new IdempotencyCache(2);
+        cache.add("a");
+        cache.add("b");
+        cache.add("c");
+
+        assertThat(cache.contains("a")).isFalse();
+        assertThat(cache.contains("b")).isTrue();
+        assertThat(cache.contains("c")).isTrue();
+    }
+
+    @Test
+    void addingKeyAgainKeepsItLonger() {
+        IdempotencyCache cache = new IdempotencyCache(2);
+        cache.add("a");
+        cache.add("b");
+        cache.add("a");
+        cache.add("c");
+
+        assertThat(cache.contains("a")).isTrue();
+        assertThat(cache.contains("b")).isFalse();
+        assertThat(cache.contains("c")).isTrue();
+    }
+}
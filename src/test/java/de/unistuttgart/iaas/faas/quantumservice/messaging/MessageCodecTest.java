@@ -0,0 +1,110 @@
+package de.unistuttgart.iaas.faas.quantumservice.messaging;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MessageCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MessageCodec codec = new MessageCodec(objectMapper);
+    private final Session session = mock(Session.class);
+
+    private ObjectNode content;
+
+    @BeforeEach
+    void setUp() {
+        content = objectMapper.createObjectNode();
+        content.put("eventType", "EXECUTION_RESULT");
+        content.put("queueSize", 42);
+        content.putArray("counts").add(0.25).add(0.75);
+    }
+
+    @Test
+    void jsonRoundTrip() throws JMSException, IOException {
+        TextMessage textMessage = mock(TextMessage.class);
+        when(session.createTextMessage(anyString())).thenReturn(textMessage);
+
+        assertThat(codec.encode(session, content, null)).isSameAs(textMessage);
+
+        ArgumentCaptor<String> text = ArgumentCaptor.forClass(String.class);
+        verify(session).createTextMessage(text.capture());
+        verify(textMessage).setStringProperty(MessageCodec.CONTENT_TYPE_PROPERTY, MessageCodec.JSON);
+        when(textMessage.getText()).thenReturn(text.getValue());
+
+        byte[] body = codec.readBody(textMessage);
+        assertThat(codec.decode(textMessage, body, JsonNode.class)).isEqualTo(content);
+    }
+
+    @Test
+    void cborRoundTrip() throws JMSException, IOException {
+        BytesMessage bytesMessage = mock(BytesMessage.class);
+        when(session.createBytesMessage()).thenReturn(bytesMessage);
+
+        assertThat(codec.encode(session, content, MessageCodec.CBOR)).isSameAs(bytesMessage);
+
+        ArgumentCaptor<byte[]> bytes = ArgumentCaptor.forClass(byte[].class);
+        verify(bytesMessage).writeBytes(bytes.capture());
+        verify(bytesMessage).setStringProperty(MessageCodec.CONTENT_TYPE_PROPERTY, MessageCodec.CBOR);
+        BytesMessage receivedMessage = bytesMessage(bytes.getValue(), MessageCodec.CBOR);
+
+        byte[] body = codec.readBody(receivedMessage);
+        assertThat(body).isEqualTo(bytes.getValue());
+        assertThat(codec.decode(receivedMessage, body, JsonNode.class)).isEqualTo(content);
+    }
+
+    @Test
+    void bytesMessageWithoutContentTypeIsReadAsJson() throws JMSException, IOException {
+        byte[] body = objectMapper.writeValueAsBytes(content);
+
+        assertThat(codec.decode(bytesMessage(body, null), body, JsonNode.class)).isEqualTo(content);
+    }
+
+    @Test
+    void unsupportedContentTypeIsRejected() throws JMSException {
+        byte[] body = "<event/>".getBytes(StandardCharsets.UTF_8);
+        BytesMessage message = bytesMessage(body, "application/xml");
+
+        assertThat(codec.isSupported("application/xml")).isFalse();
+        assertThatThrownBy(() -> codec.decode(message, body, JsonNode.class)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void otherMessageTypesHaveNoBody() throws JMSException {
+        assertThat(codec.readBody(mock(Message.class))).isNull();
+    }
+
+    private BytesMessage bytesMessage(byte[] body, String contentType) throws JMSException {
+        BytesMessage message = mock(BytesMessage.class);
+        when(message.getBodyLength()).thenReturn((long) body.length);
+        doAnswer(invocation -> {
+            byte[] target = invocation.getArgument(0);
+            System.arraycopy(body, 0, target, 0, body.length);
+            return body.length;
+        }).when(message).readBytes(any(byte[].class));
+        when(message.propertyExists(MessageCodec.CONTENT_TYPE_PROPERTY)).thenReturn(contentType != null);
+        when(message.getStringProperty(MessageCodec.CONTENT_TYPE_PROPERTY)).thenReturn(contentType);
+        return message;
+    }
+}
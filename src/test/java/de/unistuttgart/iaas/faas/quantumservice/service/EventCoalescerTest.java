@@ -0,0 +1,142 @@
+package de.unistuttgart.iaas.faas.quantumservice.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.EventCoalescerProperties;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.StorageProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventPayload;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventTrigger;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventCoalescerTest {
+
+    @TempDir
+    Path directory;
+
+    private final EventCoalescerProperties properties = new EventCoalescerProperties();
+    private EventTrigger trigger;
+
+    @BeforeEach
+    void setUp() {
+        trigger = new EventTrigger();
+        trigger.setName("trigger");
+        trigger.setEventType(EventType.BASIC);
+    }
+
+    @Test
+    void returnsCollectedEventsOnceMaxCountIsReached() throws IOException {
+        EventCoalescer coalescer = openCoalescer();
+        trigger.setCoalesceMaxCount(2);
+
+        assertThat(coalescer.add(trigger, event(1))).isEmpty();
+        Optional<CoalescedEvent> coalescedEvent = coalescer.add(trigger, event(2));
+
+        assertThat(coalescedEvent).isPresent();
+        EventPayload payload = coalescedEvent.get().toEventPayload();
+        assertThat(payload.getEventPayloadProperties()).containsEntry("value", 2).containsEntry("eventCount", 2);
+        assertThat(coalescer.add(trigger, event(3))).isEmpty();
+    }
+
+    @Test
+    void drainsEventsOnceTheirWindowPassed() throws IOException {
+        EventCoalescer coalescer = openCoalescer();
+        trigger.setCoalesceWindow(60000L);
+        coalescer.add(trigger, event(1));
+
+        assertThat(coalescer.drainExpired()).isEmpty();
+
+        EventTrigger otherTrigger = new EventTrigger();
+        otherTrigger.setName("other");
+        otherTrigger.setCoalesceMaxCount(10);
+        coalescer.add(otherTrigger, event(2));
+
+        assertThat(coalescer.drainExpired()).extracting(CoalescedEvent::getTriggerName).containsExactly("other");
+    }
+
+    @Test
+    void failedEventsAreRetriedAfterTheDelayAndMerged() throws IOException, InterruptedException {
+        properties.setRetryDelay(50);
+        EventCoalescer coalescer = openCoalescer();
+        trigger.setCoalesceMaxCount(1);
+        CoalescedEvent coalescedEvent = coalescer.add(trigger, event(1)).orElseThrow();
+
+        coalescer.retry(coalescedEvent);
+        // New events are collected, but the trigger is not fired before the retry delay passed
+        assertThat(coalescer.add(trigger, event(2))).isEmpty();
+        assertThat(coalescer.drainExpired()).isEmpty();
+
+        Thread.sleep(100);
+        List<CoalescedEvent> retried = coalescer.drainExpired();
+        assertThat(retried).hasSize(1);
+        assertThat(retried.get(0).getAttempts()).isEqualTo(1);
+        assertThat(retried.get(0).getEvents()).extracting(event -> event.get("value")).containsExactly(1, 2);
+    }
+
+    @Test
+    void dropsEventsAfterMaxAttempts() throws IOException {
+        properties.setMaxAttempts(1);
+        EventCoalescer coalescer = openCoalescer();
+        trigger.setCoalesceMaxCount(1);
+
+        coalescer.retry(coalescer.add(trigger, event(1)).orElseThrow());
+
+        trigger.setCoalesceMaxCount(2);
+        assertThat(coalescer.add(trigger, event(2))).isEmpty();
+        assertThat(coalescer.add(trigger, event(3)).orElseThrow().getEvents()).hasSize(2);
+    }
+
+    @Test
+    void restoresPersistedEvents() throws IOException {
+        EventCoalescer coalescer = openCoalescer();
+        trigger.setCoalesceWindow(60000L);
+        coalescer.add(trigger, event(1));
+        EventTrigger firingTrigger = new EventTrigger();
+        firingTrigger.setName("firing");
+        firingTrigger.setCoalesceMaxCount(1);
+        coalescer.add(firingTrigger, event(2));
+        coalescer.persist();
+
+        EventCoalescer restoredCoalescer = openCoalescer();
+        List<CoalescedEvent> restored = restoredCoalescer.drainExpired();
+
+        // Events whose trigger was being fired are restored, the events of the open window are kept
+        assertThat(restored).extracting(CoalescedEvent::getTriggerName).containsExactly("firing");
+        assertThat(restored.get(0).getEvents()).extracting(event -> event.get("value")).containsExactly(2);
+        trigger.setCoalesceMaxCount(2);
+        assertThat(restoredCoalescer.add(trigger, event(3))).isPresent();
+    }
+
+    @Test
+    void completedEventsAreNotRestored() throws IOException {
+        EventCoalescer coalescer = openCoalescer();
+        trigger.setCoalesceMaxCount(1);
+        coalescer.complete(coalescer.add(trigger, event(1)).orElseThrow());
+        coalescer.persist();
+
+        assertThat(openCoalescer().drainExpired()).isEmpty();
+    }
+
+    private EventCoalescer openCoalescer() throws IOException {
+        StorageProperties storageProperties = new StorageProperties();
+        storageProperties.setDirectory(directory.toString());
+        EventCoalescer coalescer = new EventCoalescer(storageProperties, properties, new ObjectMapper());
+        coalescer.load();
+        return coalescer;
+    }
+
+    private static EventPayload event(int value) {
+        EventPayload payload = new EventPayload();
+        payload.setEventType(EventType.BASIC);
+        payload.addEventPayloadProperties("value", value);
+        return payload;
+    }
+}
@@ -0,0 +1,182 @@
+package de.unistuttgart.iaas.faas.quantumservice.service;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventPayload;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventTrigger;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventTriggerRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventType;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.ExecutionResultEventTrigger;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.QueueSizeEventTrigger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventTriggerIndexTest {
+
+    private final EventTriggerRepository repository = mock(EventTriggerRepository.class);
+    private final EventTriggerIndex index = new EventTriggerIndex(repository);
+    private QueueSizeEventTrigger trigger;
+
+    @BeforeEach
+    void setUp() {
+        trigger = new QueueSizeEventTrigger();
+        trigger.setName("trigger");
+        trigger.setEventType(EventType.QUEUE_SIZE);
+        trigger.setSizeThreshold(10);
+        trigger.setTriggerDelay(5L);
+        trigger.setDisabledUntil(ZonedDateTime.now().minusMinutes(1));
+        trigger.setTrackedDevices(List.of("device"));
+        when(repository.findAll()).thenReturn(Set.of(trigger));
+        index.refresh();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void findsTriggersUpToTheirThreshold() {
+        assertThat(index.find(queueSizeEvent("device", 10))).containsExactly(trigger);
+        assertThat(index.find(queueSizeEvent("device", 11))).isEmpty();
+        assertThat(index.find(queueSizeEvent("other", 1))).isEmpty();
+    }
+
+    @Test
+    void findsExecutionResultAndBasicTriggersByTheirKey() {
+        ExecutionResultEventTrigger executionResultTrigger = new ExecutionResultEventTrigger();
+        executionResultTrigger.setName("execution-result");
+        executionResultTrigger.setEventType(EventType.EXECUTION_RESULT);
+        executionResultTrigger.setExecutedApplicationName("application");
+        EventTrigger basicTrigger = new EventTrigger();
+        basicTrigger.setName("basic");
+        basicTrigger.setEventType(EventType.BASIC);
+        when(repository.findAll()).thenReturn(Set.of(trigger, executionResultTrigger, basicTrigger));
+        index.refresh();
+
+        assertThat(index.find(event(EventType.EXECUTION_RESULT, "quantumApplicationName", "application"))).containsExactly(executionResultTrigger);
+        assertThat(index.find(event(EventType.EXECUTION_RESULT, "quantumApplicationName", "other"))).isEmpty();
+        assertThat(index.find(event(EventType.BASIC, "triggerName", "basic"))).containsExactly(basicTrigger);
+        assertThat(index.find(event(EventType.BASIC, "triggerName", "trigger"))).isEmpty();
+    }
+
+    @Test
+    void reindexRemovesDeletedTriggers() {
+        when(repository.findByName("trigger")).thenReturn(Optional.empty());
+
+        index.reindex("trigger");
+
+        assertThat(index.find(queueSizeEvent("device", 1))).isEmpty();
+    }
+
+    @Test
+    void claimedTriggerDoesNotMatchUntilReleased() {
+        assertThat(index.claimCooldown(trigger)).isTrue();
+
+        assertThat(index.claimCooldown(trigger)).isFalse();
+        assertThat(index.find(queueSizeEvent("device", 1))).isEmpty();
+
+        index.releaseCooldown("trigger");
+
+        assertThat(index.find(queueSizeEvent("device", 1))).containsExactly(trigger);
+        assertThat(index.claimCooldown(trigger)).isTrue();
+    }
+
+    @Test
+    void triggerWithoutDelayStaysDisabled() {
+        trigger.setTriggerDelay(null);
+
+        assertThat(index.claimCooldown(trigger)).isTrue();
+        index.expireCooldowns();
+
+        assertThat(index.find(queueSizeEvent("device", 1))).isEmpty();
+    }
+
+    @Test
+    void storedCooldownIsRestored() {
+        trigger.setDisabledUntil(ZonedDateTime.now().plusMinutes(1));
+        index.refresh();
+
+        assertThat(index.find(queueSizeEvent("device", 1))).isEmpty();
+        assertThat(index.claimCooldown(trigger)).isFalse();
+    }
+
+    @Test
+    void unpersistedCooldownIsNotOverwrittenByRefresh() {
+        trigger.setTriggerDelay(null);
+        index.claimCooldown(trigger);
+
+        index.refresh();
+
+        assertThat(index.find(queueSizeEvent("device", 1))).isEmpty();
+    }
+
+    @Test
+    void cooldownsArePersistedInTheBackground() {
+        index.claimCooldown(trigger);
+        verify(repository, never()).updateDisabledUntil(any(), any());
+
+        index.persistCooldowns();
+        verify(repository).updateDisabledUntil(eq("trigger"), any(ZonedDateTime.class));
+        commit();
+
+        reset(repository);
+        index.persistCooldowns();
+        verify(repository, never()).updateDisabledUntil(any(), any());
+    }
+
+    @Test
+    void cooldownsAreRetriedIfNotCommitted() {
+        trigger.setTriggerDelay(null);
+        index.claimCooldown(trigger);
+
+        index.persistCooldowns();
+        // The transaction is rolled back, so no synchronization is run
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+
+        reset(repository);
+        index.persistCooldowns();
+        verify(repository).updateDisabledUntil(eq("trigger"), isNull());
+    }
+
+    private void commit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    private static EventPayload event(EventType eventType, String key, String value) {
+        EventPayload payload = new EventPayload();
+        payload.setEventType(eventType);
+        payload.addAdditionalProperty(key, value);
+        return payload;
+    }
+
+    private static EventPayload queueSizeEvent(String device, int queueSize) {
+        EventPayload payload = new EventPayload();
+        payload.setEventType(EventType.QUEUE_SIZE);
+        payload.addEventPayloadProperties("device", device);
+        payload.addAdditionalProperty("queueSize", queueSize);
+        return payload;
+    }
+}
@@ -0,0 +1,216 @@
+package de.unistuttgart.iaas.faas.quantumservice.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.iaas.faas.quantumservice.api.OpenWhiskClient;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.CallbackProperties;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.IBMQProperties;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.OpenWhiskProperties;
+import de.unistuttgart.iaas.faas.quantumservice.events.TriggerActivationResolver;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventPayload;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventTriggerRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.EventType;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.eventtrigger.QueueSizeEventTrigger;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.openwhiskservice.OpenWhiskService;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.quantumapplication.QuantumApplicationRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.exception.OpenWhiskException;
+import de.unistuttgart.iaas.faas.quantumservice.model.exception.TriggerFiringException;
+import de.unistuttgart.iaas.faas.quantumservice.model.openwhisk.ActivationResult;
+import de.unistuttgart.iaas.faas.quantumservice.storage.EventJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventTriggerServiceTest {
+
+    private final OpenWhiskClient openWhiskClient = mock(OpenWhiskClient.class);
+    private final OpenWhiskBulkheads openWhiskBulkheads = mock(OpenWhiskBulkheads.class);
+    private final EventTriggerIndex eventTriggerIndex = mock(EventTriggerIndex.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final EventCoalescer eventCoalescer = mock(EventCoalescer.class);
+    private final TriggerActivationResolver triggerActivationResolver = mock(TriggerActivationResolver.class);
+    private final CallbackProperties callbackProperties = mock(CallbackProperties.class);
+    private final OpenWhiskProperties openWhiskProperties = new OpenWhiskProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private EventTriggerService service;
+    private QueueSizeEventTrigger trigger;
+
+    @BeforeEach
+    void setUp() {
+        service = new EventTriggerService(mock(EventTriggerRepository.class), mock(QuantumApplicationRepository.class),
+                mock(OpenWhiskServiceService.class), openWhiskClient, triggerActivationResolver, openWhiskBulkheads,
+                openWhiskProperties, meterRegistry, mock(EventJournal.class), new ObjectMapper(), eventCoalescer,
+                mock(IBMQProperties.class), callbackProperties, eventTriggerIndex, mock(ApplicationEventPublisher.class),
+                transactionTemplate);
+
+        OpenWhiskService openWhiskService = new OpenWhiskService();
+        openWhiskService.setId(UUID.randomUUID());
+        openWhiskService.setName("service");
+        trigger = new QueueSizeEventTrigger();
+        trigger.setName("trigger");
+        trigger.setEventType(EventType.QUEUE_SIZE);
+        trigger.setTriggerDelay(5L);
+        trigger.setOpenWhiskService(openWhiskService);
+        when(eventTriggerIndex.find(any())).thenReturn(Set.of(trigger));
+        when(eventTriggerIndex.claimCooldown(trigger)).thenReturn(true);
+        when(openWhiskClient.fireTrigger(any(), any())).thenReturn(new ActivationResult());
+        // The bulkhead runs the firing right away
+        when(openWhiskBulkheads.submit(any(), any())).thenAnswer(invocation -> {
+            FutureTask<?> task = new FutureTask<>(invocation.getArgument(1), null);
+            task.run();
+            return task;
+        });
+    }
+
+    @Test
+    void firesMatchingTriggers() {
+        service.emitEvent(queueSizeEvent());
+
+        verify(openWhiskClient).fireTrigger(any(), any());
+        verify(eventTriggerIndex, never()).releaseCooldown(anyString());
+        assertThat(count("success")).isEqualTo(1);
+    }
+
+    @Test
+    void passesTheCallbackSecretSeparatelyFromTheCallbackUrl() {
+        when(callbackProperties.getCallbackUrl()).thenReturn("http://service/script-executions/callback");
+
+        service.emitEvent(queueSizeEvent());
+
+        verify(openWhiskClient).fireTrigger(any(), argThat(payload -> ((Map<?, ?>) payload).get("callbackUrl").equals("http://service/script-executions/callback")
+                && ((Map<?, ?>) payload).get("callbackToken") instanceof String));
+        verify(triggerActivationResolver).resolve(any(), any(), argThat(hash -> hash != null));
+    }
+
+    @Test
+    void skipsTriggersThatAreCoolingDown() {
+        when(eventTriggerIndex.claimCooldown(trigger)).thenReturn(false);
+
+        service.emitEvent(queueSizeEvent());
+
+        verify(openWhiskBulkheads, never()).submit(any(), any());
+        assertThat(count("cooldown")).isEqualTo(1);
+    }
+
+    @Test
+    void reportsRejectedTriggersAndReleasesTheirCooldown() {
+        doThrow(new RejectedExecutionException("full")).when(openWhiskBulkheads).submit(any(), any());
+
+        assertThatThrownBy(() -> service.emitEvent(queueSizeEvent()))
+                .isInstanceOfSatisfying(TriggerFiringException.class, e -> assertThat(e.getFailedTriggerNames()).containsExactly("trigger"));
+        verify(eventTriggerIndex).releaseCooldown("trigger");
+        assertThat(count("rejected")).isEqualTo(1);
+    }
+
+    @Test
+    void reportsFailedTriggersAndReleasesTheirCooldown() {
+        when(openWhiskClient.fireTrigger(any(), any())).thenThrow(new OpenWhiskException("unavailable"));
+
+        assertThatThrownBy(() -> service.emitEvent(queueSizeEvent()))
+                .isInstanceOfSatisfying(TriggerFiringException.class, e -> assertThat(e.getFailedTriggerNames()).containsExactly("trigger"));
+        verify(eventTriggerIndex).releaseCooldown("trigger");
+        assertThat(count("failure")).isEqualTo(1);
+        verify(triggerActivationResolver).release();
+    }
+
+    @Test
+    void doesNotFireTriggersIfTheirActivationCannotBeResolved() {
+        doThrow(new RejectedExecutionException("at capacity")).when(triggerActivationResolver).reserve();
+
+        assertThatThrownBy(() -> service.emitEvent(queueSizeEvent()))
+                .isInstanceOfSatisfying(TriggerFiringException.class, e -> assertThat(e.getFailedTriggerNames()).containsExactly("trigger"));
+        verify(openWhiskClient, never()).fireTrigger(any(), any());
+        verify(eventTriggerIndex).releaseCooldown("trigger");
+    }
+
+    @Test
+    void handlesTimedOutTriggersAsFired() {
+        openWhiskProperties.setFireTimeout(10);
+        doReturn(new CompletableFuture<>()).when(openWhiskBulkheads).submit(any(), any());
+
+        service.emitEvent(queueSizeEvent());
+
+        verify(eventTriggerIndex, never()).releaseCooldown(anyString());
+        assertThat(count("timeout")).isEqualTo(1);
+    }
+
+    @Test
+    void deletesOneTimeTriggersInTheirOwnTransaction() {
+        trigger.setTriggerDelay(null);
+
+        service.emitEvent(queueSizeEvent());
+
+        verify(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void doesNotDeleteOneTimeTriggersThatFailed() {
+        trigger.setTriggerDelay(null);
+        when(openWhiskClient.fireTrigger(any(), any())).thenThrow(new OpenWhiskException("unavailable"));
+
+        assertThatThrownBy(() -> service.emitEvent(queueSizeEvent())).isInstanceOf(TriggerFiringException.class);
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+
+    @Test
+    void coalescedEventsAreRetriedByTheCoalescerInsteadOfBeingReported() {
+        CoalescedEvent coalescedEvent = new CoalescedEvent(trigger, System.currentTimeMillis());
+        coalescedEvent.add(queueSizeEvent());
+        trigger.setCoalesceMaxCount(1);
+        when(eventCoalescer.add(any(), any())).thenReturn(Optional.of(coalescedEvent));
+        when(openWhiskClient.fireTrigger(any(), any())).thenThrow(new OpenWhiskException("unavailable"));
+
+        service.emitEvent(queueSizeEvent());
+
+        verify(eventCoalescer).retry(coalescedEvent);
+        verify(eventCoalescer, never()).complete(any());
+    }
+
+    @Test
+    void flushFiresExpiredCoalescedEvents() {
+        CoalescedEvent coalescedEvent = new CoalescedEvent(trigger, System.currentTimeMillis());
+        coalescedEvent.add(queueSizeEvent());
+        when(eventCoalescer.drainExpired()).thenReturn(List.of(coalescedEvent));
+        when(eventTriggerIndex.get("trigger")).thenReturn(Optional.of(trigger));
+
+        service.flushCoalescedEvents();
+
+        verify(openWhiskClient).fireTrigger(any(), argThat(payload -> ((Map<?, ?>) payload).containsKey("apiToken") && ((Map<?, ?>) payload).get("eventCount").equals(1)));
+        verify(eventCoalescer).complete(coalescedEvent);
+        verify(eventCoalescer).persist();
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.counter("quantumservice.openwhisk.fire", "service", "service", "outcome", outcome).count();
+    }
+
+    private static EventPayload queueSizeEvent() {
+        EventPayload payload = new EventPayload();
+        payload.setEventType(EventType.QUEUE_SIZE);
+        payload.addEventPayloadProperties("device", "device");
+        payload.addAdditionalProperty("queueSize", 1);
+        return payload;
+    }
+}
@@ -0,0 +1,75 @@
+package de.unistuttgart.iaas.faas.quantumservice.service;
+
+import java.util.List;
+import java.util.Map;
+
+import de.unistuttgart.iaas.faas.quantumservice.api.IBMQClient;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.IBMQProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.Device;
+import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.DeviceLocation;
+import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.Group;
+import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.Hub;
+import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.Project;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IBMQServiceTest {
+
+    private final IBMQClient ibmqClient = mock(IBMQClient.class);
+    private final IBMQProperties properties = new IBMQProperties();
+    private final IBMQService service = new IBMQService(ibmqClient, properties);
+
+    @Test
+    void cachesTheNetworkTopology() {
+        properties.setTopologyCacheTtl(60000);
+        when(ibmqClient.getNetworks()).thenReturn(List.of(hub("device")));
+
+        List<DeviceLocation> deviceLocations = service.getDeviceLocations();
+        service.getDeviceLocations();
+
+        assertThat(deviceLocations).containsExactly(new DeviceLocation("hub", "group", "project", "device"));
+        assertThat(service.getAvailableIbmqDevices()).containsExactly("device");
+        verify(ibmqClient, times(1)).getNetworks();
+    }
+
+    @Test
+    void usesTheOutdatedTopologyIfTheRefreshFails() {
+        properties.setTopologyCacheTtl(0);
+        properties.setTopologyRetryDelay(60000);
+        when(ibmqClient.getNetworks()).thenReturn(List.of(hub("device"))).thenThrow(new IllegalStateException("unavailable"));
+        service.getDeviceLocations();
+
+        assertThat(service.getDeviceLocations()).extracting(DeviceLocation::getDevice).containsExactly("device");
+        // The refresh is not retried before the retry delay passed
+        service.getDeviceLocations();
+        verify(ibmqClient, times(2)).getNetworks();
+    }
+
+    @Test
+    void failsIfNoTopologyWasLoadedYet() {
+        when(ibmqClient.getNetworks()).thenThrow(new IllegalStateException("unavailable"));
+
+        assertThatThrownBy(service::getDeviceLocations).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static Hub hub(String deviceName) {
+        Device device = new Device();
+        device.setName(deviceName);
+        Project project = new Project();
+        project.setName("project");
+        project.setDevices(Map.of(deviceName, device));
+        Group group = new Group();
+        group.setName("group");
+        group.setProjects(Map.of("project", project));
+        Hub hub = new Hub();
+        hub.setName("hub");
+        hub.setGroups(Map.of("group", group));
+        return hub;
+    }
+}
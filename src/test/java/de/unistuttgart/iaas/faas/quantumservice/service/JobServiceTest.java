@@ -0,0 +1,93 @@
+package de.unistuttgart.iaas.faas.quantumservice.service;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.JobCheckerProperties;
+import de.unistuttgart.iaas.faas.quantumservice.messaging.JobStatusChangedSender;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.Job;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobStatus;
+import de.unistuttgart.iaas.faas.quantumservice.model.ibmq.IBMQJob;
+import de.unistuttgart.iaas.faas.quantumservice.storage.BlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JobServiceTest {
+
+    private final JobRepository repository = mock(JobRepository.class);
+    private final JobCheckerProperties properties = new JobCheckerProperties();
+    private final JobService service = new JobService(repository, mock(JobStatusChangedSender.class), properties, mock(BlobStore.class));
+    private Job job;
+
+    @BeforeEach
+    void setUp() {
+        properties.setInitialPollInterval(10000);
+        properties.setMaxPollInterval(40000);
+        properties.setBackoffMultiplier(2.0);
+        properties.setRunningPollInterval(2000);
+        job = new Job();
+        job.setId(UUID.randomUUID());
+        job.setStatus(JobStatus.QUEUED);
+        when(repository.findById(job.getId())).thenReturn(Optional.of(job));
+    }
+
+    @Test
+    void backsOffWhileTheStatusDoesNotChange() {
+        job.setPollInterval(10000L);
+
+        service.updateJob(job.getId(), ibmqJob(JobStatus.QUEUED), null);
+        assertThat(job.getPollInterval()).isEqualTo(20000);
+
+        service.updateJob(job.getId(), ibmqJob(JobStatus.QUEUED), null);
+        service.updateJob(job.getId(), ibmqJob(JobStatus.QUEUED), null);
+        assertThat(job.getPollInterval()).isEqualTo(40000);
+        assertThat(job.getNextPollAt()).isCloseTo(ZonedDateTime.now().plusSeconds(40), within(5, ChronoUnit.SECONDS));
+    }
+
+    @Test
+    void resetsTheIntervalIfTheStatusChanged() {
+        job.setStatus(JobStatus.VALIDATING);
+        job.setPollInterval(40000L);
+
+        service.updateJob(job.getId(), ibmqJob(JobStatus.QUEUED), null);
+
+        assertThat(job.getPollInterval()).isEqualTo(10000);
+    }
+
+    @Test
+    void pollsRunningJobsWithTheShortInterval() {
+        job.setPollInterval(40000L);
+
+        service.updateJob(job.getId(), ibmqJob(JobStatus.RUNNING), null);
+
+        assertThat(job.getPollInterval()).isEqualTo(2000);
+    }
+
+    @Test
+    void doesNotPollFailedJobsAgain() {
+        job.setPollInterval(10000L);
+        job.setNextPollAt(ZonedDateTime.now());
+
+        service.updateJob(job.getId(), ibmqJob(JobStatus.FAILED), null);
+
+        assertThat(job.getPollInterval()).isNull();
+        assertThat(job.getNextPollAt()).isNull();
+    }
+
+    private static IBMQJob ibmqJob(JobStatus status) {
+        IBMQJob ibmqJob = new IBMQJob();
+        ibmqJob.setStatus(status.name());
+        ibmqJob.setTimePerStep(Map.of());
+        ibmqJob.setCreationDate(ZonedDateTime.now());
+        return ibmqJob;
+    }
+}
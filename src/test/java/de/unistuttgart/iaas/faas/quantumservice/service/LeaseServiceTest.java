@@ -0,0 +1,62 @@
+package de.unistuttgart.iaas.faas.quantumservice.service;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.Job;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.lease.LeaderLeaseRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox.OutboxMessageRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution.ScriptExecutionRepository;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LeaseServiceTest {
+
+    private final JobRepository jobRepository = mock(JobRepository.class);
+    private final LeaderLeaseRepository leaderLeaseRepository = mock(LeaderLeaseRepository.class);
+    private final LeaseService service = new LeaseService(jobRepository, mock(ScriptExecutionRepository.class), leaderLeaseRepository,
+            mock(OutboxMessageRepository.class));
+
+    @Test
+    void claimedJobsAreLeasedToThisInstance() {
+        Job job = new Job();
+        when(jobRepository.lockJobsDueForPoll(any(), anyInt())).thenReturn(List.of(job));
+
+        assertThat(service.claimJobsDueForPoll(10, Duration.ofMinutes(1))).containsExactly(job);
+
+        assertThat(job.getLeaseOwner()).isEqualTo(service.getInstanceId());
+        assertThat(job.getLeaseExpiresAt()).isCloseTo(ZonedDateTime.now().plusMinutes(1), within(5, ChronoUnit.SECONDS));
+    }
+
+    @Test
+    void renewsTheLeaderLeaseWithoutCreatingIt() {
+        when(leaderLeaseRepository.renewOrTakeOver(eq("task"), eq(service.getInstanceId()), any(), any())).thenReturn(1);
+
+        assertThat(service.acquireLeadership("task", Duration.ofMinutes(1))).isTrue();
+        verify(leaderLeaseRepository, never()).insertIfAbsent(any(), any(), any());
+    }
+
+    @Test
+    void createsTheLeaderLeaseIfItDoesNotExist() {
+        when(leaderLeaseRepository.insertIfAbsent(eq("task"), eq(service.getInstanceId()), any())).thenReturn(1);
+
+        assertThat(service.acquireLeadership("task", Duration.ofMinutes(1))).isTrue();
+    }
+
+    @Test
+    void doesNotBecomeLeaderIfAnotherInstanceHoldsTheLease() {
+        assertThat(service.acquireLeadership("task", Duration.ofMinutes(1))).isFalse();
+    }
+}
@@ -0,0 +1,89 @@
+package de.unistuttgart.iaas.faas.quantumservice.service;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.OpenWhiskProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.openwhiskservice.OpenWhiskService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OpenWhiskBulkheadsTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private OpenWhiskBulkheads bulkheads;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        bulkheads.shutdown();
+    }
+
+    @Test
+    void rejectsTasksIfFull() throws Exception {
+        bulkheads = new OpenWhiskBulkheads(properties(1, 1));
+        OpenWhiskService service = service("service");
+        CountDownLatch started = new CountDownLatch(1);
+
+        bulkheads.submit(service, () -> {
+            started.countDown();
+            await();
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        bulkheads.submit(service, this::await);
+
+        assertThatThrownBy(() -> bulkheads.submit(service, this::await)).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void fullBulkheadDoesNotAffectOtherServices() throws Exception {
+        bulkheads = new OpenWhiskBulkheads(properties(1, 1));
+        OpenWhiskService slowService = service("slow");
+        bulkheads.submit(slowService, this::await);
+        bulkheads.submit(slowService, this::await);
+
+        assertThat(bulkheads.submit(service("fast"), () -> { }).get(5, TimeUnit.SECONDS)).isNull();
+        assertThatThrownBy(() -> bulkheads.submit(slowService, this::await)).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void rejectsTasksOfRemovedServices() throws Exception {
+        bulkheads = new OpenWhiskBulkheads(properties(1, 1));
+        OpenWhiskService service = service("service");
+        bulkheads.submit(service, () -> { }).get(5, TimeUnit.SECONDS);
+
+        bulkheads.remove(service);
+
+        assertThatThrownBy(() -> bulkheads.submit(service, () -> { }))
+                .isInstanceOf(RejectedExecutionException.class)
+                .hasMessageContaining("deleted");
+    }
+
+    private void await() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static OpenWhiskProperties properties(int poolSize, int queueCapacity) {
+        OpenWhiskProperties properties = new OpenWhiskProperties();
+        properties.setBulkheadPoolSize(poolSize);
+        properties.setBulkheadQueueCapacity(queueCapacity);
+        properties.setFireTimeout(1000);
+        return properties;
+    }
+
+    private static OpenWhiskService service(String name) {
+        OpenWhiskService service = new OpenWhiskService();
+        service.setId(UUID.randomUUID());
+        service.setName(name);
+        return service;
+    }
+}
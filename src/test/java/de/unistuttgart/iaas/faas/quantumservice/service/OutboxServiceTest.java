@@ -0,0 +1,79 @@
+package de.unistuttgart.iaas.faas.quantumservice.service;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.OutboxProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox.OutboxMessage;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox.OutboxMessageRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.outbox.OutboxMessageStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class OutboxServiceTest {
+
+    private final OutboxMessageRepository repository = mock(OutboxMessageRepository.class);
+    private final OutboxProperties properties = new OutboxProperties();
+    private final OutboxService service = new OutboxService(repository, properties);
+
+    @BeforeEach
+    void setUp() {
+        properties.setInitialRetryDelay(1000);
+        properties.setMaxRetryDelay(3000);
+        properties.setBackoffMultiplier(2.0);
+        properties.setMaxAttempts(5);
+    }
+
+    @Test
+    void deletesDeliveredMessages() {
+        OutboxMessage delivered = outboxMessage(0);
+
+        service.completeDispatch(List.of(delivered), List.of());
+
+        verify(repository).deleteByIds(List.of(delivered.getId()));
+    }
+
+    @Test
+    void retriesFailedMessagesWithABackoff() {
+        OutboxMessage first = outboxMessage(0);
+        OutboxMessage third = outboxMessage(2);
+        first.setLeaseOwner("instance");
+
+        service.completeDispatch(List.of(), List.of(first, third));
+
+        verify(repository, never()).deleteByIds(any());
+        verify(repository).saveAll(List.of(first, third));
+        assertThat(first.getAttempts()).isEqualTo(1);
+        assertThat(first.getLeaseOwner()).isNull();
+        assertThat(first.getStatus()).isEqualTo(OutboxMessageStatus.PENDING);
+        assertThat(first.getNextAttemptAt()).isCloseTo(ZonedDateTime.now().plusSeconds(1), within(500, ChronoUnit.MILLIS));
+        // The retry delay is limited to the maximum delay
+        assertThat(third.getNextAttemptAt()).isCloseTo(ZonedDateTime.now().plusSeconds(3), within(500, ChronoUnit.MILLIS));
+    }
+
+    @Test
+    void givesUpMessagesAfterMaxAttempts() {
+        OutboxMessage outboxMessage = outboxMessage(4);
+
+        service.completeDispatch(List.of(), List.of(outboxMessage));
+
+        assertThat(outboxMessage.getStatus()).isEqualTo(OutboxMessageStatus.FAILED);
+        assertThat(outboxMessage.getNextAttemptAt()).isNull();
+    }
+
+    private static OutboxMessage outboxMessage(int attempts) {
+        OutboxMessage outboxMessage = new OutboxMessage();
+        outboxMessage.setId(UUID.randomUUID());
+        outboxMessage.setAttempts(attempts);
+        return outboxMessage;
+    }
+}
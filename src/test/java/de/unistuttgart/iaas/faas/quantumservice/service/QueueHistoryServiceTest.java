@@ -0,0 +1,41 @@
+package de.unistuttgart.iaas.faas.quantumservice.service;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.QueueHistoryProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.queuehistory.QueueSizeAggregateRepository;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class QueueHistoryServiceTest {
+
+    private final QueueSizeAggregateRepository repository = mock(QueueSizeAggregateRepository.class);
+    private final QueueHistoryProperties properties = new QueueHistoryProperties();
+    private final QueueHistoryService service = new QueueHistoryService(repository, mock(IBMQService.class), properties);
+
+    @Test
+    void storesTheOpenWindowOnFlush() {
+        service.record("device", 3);
+        service.record("device", 5);
+        verify(repository, never()).upsert(any());
+
+        service.flushOpenWindows();
+
+        verify(repository).upsert(argThat(aggregate -> aggregate.getDevice().equals("device") && aggregate.getSampleCount() == 2
+                && aggregate.getMaximum() == 5 && aggregate.getId() != null));
+    }
+
+    @Test
+    void storesFinishedWindows() throws InterruptedException {
+        properties.setAggregationWindow(20);
+        service.record("device", 3);
+        Thread.sleep(50);
+
+        service.record("device", 5);
+
+        verify(repository).upsert(argThat(aggregate -> aggregate.getSampleCount() == 1 && aggregate.getMaximum() == 3));
+    }
+}
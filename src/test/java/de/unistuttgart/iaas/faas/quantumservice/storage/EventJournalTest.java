@@ -0,0 +1,134 @@
+package de.unistuttgart.iaas.faas.quantumservice.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.EventJournalProperties;
+import de.unistuttgart.iaas.faas.quantumservice.configuration.StorageProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.exception.JournalFullException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsEntriesAgainUntilTheyAreCommitted() throws IOException {
+        EventJournal journal = openJournal(64, 4);
+        journal.append(bytes("first"));
+        journal.append(bytes("second"));
+
+        List<JournalEntry> entries = journal.read(10);
+        assertThat(payloads(entries)).containsExactly("first", "second");
+        assertThat(payloads(journal.read(10))).containsExactly("first", "second");
+
+        journal.commit(entries.get(0).getNext());
+        assertThat(payloads(journal.read(10))).containsExactly("second");
+        assertThat(journal.getBacklog()).isEqualTo(8 + "second".length());
+        journal.close();
+    }
+
+    @Test
+    void recoversUncommittedEntriesAfterReopening() throws IOException {
+        EventJournal journal = openJournal(64, 4);
+        journal.append(bytes("first"));
+        journal.append(bytes("second"));
+        journal.commit(journal.read(1).get(0).getNext());
+        journal.close();
+
+        EventJournal reopenedJournal = openJournal(64, 4);
+        assertThat(payloads(reopenedJournal.read(10))).containsExactly("second");
+
+        reopenedJournal.append(bytes("third"));
+        assertThat(payloads(reopenedJournal.read(10))).containsExactly("second", "third");
+        reopenedJournal.close();
+    }
+
+    @Test
+    void startsNewSegmentAndDeletesProcessedSegments() throws IOException {
+        // Every segment only fits a single entry of 18 bytes
+        EventJournal journal = openJournal(32, 4);
+        journal.append(bytes("0123456789"));
+        journal.append(bytes("abcdefghij"));
+        assertThat(segmentFiles()).hasSize(2);
+
+        List<JournalEntry> entries = journal.read(10);
+        assertThat(payloads(entries)).containsExactly("0123456789", "abcdefghij");
+        assertThat(entries.get(1).getNext()).isEqualTo(new JournalPosition(1, 18));
+
+        journal.commit(entries.get(1).getNext());
+        assertThat(segmentFiles()).hasSize(1);
+        assertThat(journal.read(10)).isEmpty();
+        assertThat(journal.getBacklog()).isZero();
+        journal.close();
+    }
+
+    @Test
+    void rejectsEntriesIfAllSegmentsAreUsed() throws IOException {
+        EventJournal journal = openJournal(32, 2);
+        journal.append(bytes("0123456789"));
+        journal.append(bytes("abcdefghij"));
+
+        assertThatThrownBy(() -> journal.append(bytes("klmnopqrst"))).isInstanceOf(JournalFullException.class);
+        assertThatThrownBy(() -> journal.append(new byte[0])).isInstanceOf(IllegalArgumentException.class);
+        journal.close();
+    }
+
+    @Test
+    void discardsCorruptedEntryWhenRecovering() throws IOException {
+        EventJournal journal = openJournal(64, 4);
+        journal.append(bytes("0123456789"));
+        journal.append(bytes("abcdefghij"));
+        journal.close();
+
+        // Change the payload of the second entry, which starts behind the first entry of 18 bytes
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes("X")), 18 + 8);
+        }
+
+        EventJournal reopenedJournal = openJournal(64, 4);
+        assertThat(payloads(reopenedJournal.read(10))).containsExactly("0123456789");
+
+        reopenedJournal.append(bytes("klmnopqrst"));
+        assertThat(payloads(reopenedJournal.read(10))).containsExactly("0123456789", "klmnopqrst");
+        reopenedJournal.close();
+    }
+
+    private EventJournal openJournal(int segmentSize, int maxSegments) throws IOException {
+        StorageProperties storageProperties = new StorageProperties();
+        storageProperties.setDirectory(directory.toString());
+        EventJournalProperties properties = new EventJournalProperties();
+        properties.setSegmentSize(segmentSize);
+        properties.setMaxSegments(maxSegments);
+        EventJournal journal = new EventJournal(storageProperties, properties);
+        journal.open();
+        return journal;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve("journal"))) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".segment")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> payloads(List<JournalEntry> entries) {
+        return entries.stream().map(entry -> new String(entry.getPayload(), StandardCharsets.UTF_8)).collect(Collectors.toList());
+    }
+}
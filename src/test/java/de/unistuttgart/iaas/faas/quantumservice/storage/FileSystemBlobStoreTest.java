@@ -0,0 +1,73 @@
+package de.unistuttgart.iaas.faas.quantumservice.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.StorageProperties;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileSystemBlobStoreTest {
+
+    private static final String CONTENT = "{\"results\": [{\"counts\": {\"0x0\": 512, \"0x3\": 512}}]}";
+
+    @TempDir
+    Path directory;
+
+    private FileSystemBlobStore blobStore;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.setDirectory(directory.toString());
+        properties.setBufferSize(16);
+        blobStore = new FileSystemBlobStore(properties);
+    }
+
+    @Test
+    void storesContentUnderItsHash() throws IOException {
+        BlobReference reference = put(CONTENT);
+
+        String checksum = DigestUtils.sha256Hex(CONTENT);
+        assertThat(reference.getChecksum()).isEqualTo(checksum);
+        assertThat(reference.getKey()).isEqualTo(checksum.substring(0, 2) + "/" + checksum);
+        assertThat(reference.getSize()).isEqualTo(CONTENT.length());
+        assertThat(blobStore.getAsString(reference.getKey())).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void storingSameContentAgainReusesBlob() throws IOException {
+        BlobReference first = put(CONTENT);
+        BlobReference second = put(CONTENT);
+
+        assertThat(second.getKey()).isEqualTo(first.getKey());
+        assertThat(blobStore.listKeys(Instant.now().plus(Duration.ofMinutes(1)))).containsExactly(first.getKey());
+    }
+
+    @Test
+    void deletesOnlyBlobsStoredBeforeGivenTime() throws IOException {
+        BlobReference reference = put(CONTENT);
+
+        assertThat(blobStore.listKeys(Instant.EPOCH)).isEmpty();
+        assertThat(blobStore.delete(reference.getKey(), Instant.EPOCH)).isFalse();
+
+        Instant later = Instant.now().plus(Duration.ofMinutes(1));
+        assertThat(blobStore.delete(reference.getKey(), later)).isTrue();
+        assertThat(blobStore.listKeys(later)).isEmpty();
+        assertThat(blobStore.delete(reference.getKey(), later)).isFalse();
+        assertThatThrownBy(() -> blobStore.get(reference.getKey())).isInstanceOf(IOException.class);
+    }
+
+    private BlobReference put(String content) throws IOException {
+        return blobStore.put(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,90 @@
+package de.unistuttgart.iaas.faas.quantumservice.storage;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.StorageProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.job.JobRepository;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.scriptexecution.ScriptExecutionRepository;
+import de.unistuttgart.iaas.faas.quantumservice.service.LeaseService;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LegacyContentMigrationTest {
+
+    private final BlobStore blobStore = mock(BlobStore.class);
+    private final JobRepository jobRepository = mock(JobRepository.class);
+    private final ScriptExecutionRepository scriptExecutionRepository = mock(ScriptExecutionRepository.class);
+    private final LeaseService leaseService = mock(LeaseService.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final StorageProperties properties = new StorageProperties();
+    private final List<String> storedContents = new ArrayList<>();
+    private LegacyContentMigration migration;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        migration = new LegacyContentMigration(blobStore, jobRepository, scriptExecutionRepository, leaseService, properties, transactionTemplate);
+        when(leaseService.acquireLeadership(anyString(), any())).thenReturn(true);
+        when(blobStore.put(any())).thenAnswer(invocation -> {
+            storedContents.add(IOUtils.toString(invocation.<InputStream>getArgument(0), StandardCharsets.UTF_8));
+            return new BlobReference("key", 1, "checksum");
+        });
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void movesLegacyJobResultsIntoTheBlobStore() {
+        byte[] id = new byte[16];
+        when(jobRepository.countLegacyResultColumns()).thenReturn(1L);
+        when(jobRepository.findLegacyResults(anyInt())).thenReturn(Collections.singletonList(new Object[]{id, "{\"results\": []}"}));
+
+        migration.migrateLegacyContents();
+
+        assertThat(storedContents).containsExactly("{\"results\": []}");
+        verify(jobRepository).moveLegacyResult(id, "key", 1, "checksum");
+    }
+
+    @Test
+    void movesLegacyLogsIntoTheBlobStoreAndDeletesThem() {
+        byte[] id = new byte[16];
+        when(scriptExecutionRepository.countLegacyLogsTables()).thenReturn(1L);
+        when(scriptExecutionRepository.findLegacyLogsIds(anyInt())).thenReturn(List.of(id));
+        when(scriptExecutionRepository.findLegacyLogs(id)).thenReturn(List.of("first", "second"));
+
+        migration.migrateLegacyContents();
+
+        assertThat(storedContents).containsExactly("first\nsecond");
+        verify(scriptExecutionRepository).updateLogsReference(id, "key", 1, "checksum");
+        verify(scriptExecutionRepository).deleteLegacyLogs(id);
+    }
+
+    @Test
+    void doesNotCheckTheDatabaseAgainOnceEverythingWasMoved() {
+        migration.migrateLegacyContents();
+        migration.migrateLegacyContents();
+
+        verify(jobRepository).countLegacyResultColumns();
+        verify(scriptExecutionRepository).countLegacyLogsTables();
+        verify(jobRepository, never()).findLegacyResults(anyInt());
+    }
+}
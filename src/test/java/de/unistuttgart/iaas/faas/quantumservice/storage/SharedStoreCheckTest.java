@@ -0,0 +1,73 @@
+package de.unistuttgart.iaas.faas.quantumservice.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import de.unistuttgart.iaas.faas.quantumservice.configuration.StorageProperties;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.storage.StoreRegistration;
+import de.unistuttgart.iaas.faas.quantumservice.model.entity.storage.StoreRegistrationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SharedStoreCheckTest {
+
+    @TempDir
+    Path directory;
+
+    private final StoreRegistrationRepository repository = mock(StoreRegistrationRepository.class);
+    private final Map<String, String> registrations = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        // The repository behaves like the table, the first registration wins
+        when(repository.insertIfAbsent(anyString(), anyString())).thenAnswer(invocation ->
+                registrations.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null ? 1 : 0);
+        when(repository.findById(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(registrations.get(invocation.<String>getArgument(0))).map(storeId -> new StoreRegistration(invocation.getArgument(0), storeId)));
+    }
+
+    @Test
+    void instancesSharingTheStoreStart() {
+        assertThatCode(() -> check(directory.resolve("shared")).verifySharedStore()).doesNotThrowAnyException();
+        assertThatCode(() -> check(directory.resolve("shared")).verifySharedStore()).doesNotThrowAnyException();
+    }
+
+    @Test
+    void instanceWithAnotherStoreFailsToStart() throws IOException {
+        check(directory.resolve("first")).verifySharedStore();
+
+        assertThatThrownBy(() -> check(directory.resolve("second")).verifySharedStore())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("not shared");
+    }
+
+    @Test
+    void checkCanBeDisabled() throws IOException {
+        check(directory.resolve("first")).verifySharedStore();
+        StorageProperties properties = properties(directory.resolve("second"));
+        properties.setRequireSharedStore(false);
+
+        assertThatCode(() -> new SharedStoreCheck(repository, properties).verifySharedStore()).doesNotThrowAnyException();
+    }
+
+    private SharedStoreCheck check(Path blobDirectory) {
+        return new SharedStoreCheck(repository, properties(blobDirectory));
+    }
+
+    private StorageProperties properties(Path blobDirectory) {
+        StorageProperties properties = new StorageProperties();
+        properties.setDirectory(directory.toString());
+        properties.setBlobDirectory(blobDirectory.toString());
+        return properties;
+    }
+}
@@ -0,0 +1,73 @@
+package de.unistuttgart.iaas.faas.quantumservice.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashedTimerWheelTest {
+
+    @Test
+    void expiresKeysAtTheFirstTickAfterTheirDeadline() {
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(100, 8, 0);
+        wheel.schedule("a", 250);
+        wheel.schedule("b", 400);
+
+        assertThat(wheel.advance(250)).isEmpty();
+        assertThat(wheel.advance(300)).containsExactly("a");
+        assertThat(wheel.getDeadline("a")).isNull();
+        assertThat(wheel.getDeadline("b")).isEqualTo(400);
+        assertThat(wheel.advance(400)).containsExactly("b");
+    }
+
+    @Test
+    void reschedulingMovesTheDeadline() {
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(100, 8, 0);
+        wheel.schedule("a", 250);
+        wheel.schedule("a", 650);
+
+        assertThat(wheel.advance(300)).isEmpty();
+        assertThat(wheel.getDeadline("a")).isEqualTo(650);
+        assertThat(wheel.advance(700)).containsExactly("a");
+    }
+
+    @Test
+    void cancelledKeysDoNotExpire() {
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(100, 8, 0);
+        wheel.schedule("a", 250);
+        wheel.cancel("a");
+
+        assertThat(wheel.getDeadline("a")).isNull();
+        assertThat(wheel.advance(1000)).isEmpty();
+    }
+
+    @Test
+    void deadlinesInThePastExpireDuringTheNextAdvance() {
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(100, 8, 0);
+        wheel.advance(500);
+        wheel.schedule("a", 50);
+
+        assertThat(wheel.advance(500)).containsExactly("a");
+    }
+
+    @Test
+    void keysMoreThanOneRevolutionAwayStayScheduled() {
+        // A revolution of the wheel takes 400 milliseconds
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(100, 4, 0);
+        wheel.schedule("a", 1050);
+
+        assertThat(wheel.advance(350)).isEmpty();
+        assertThat(wheel.advance(1000)).isEmpty();
+        assertThat(wheel.advance(1100)).containsExactly("a");
+    }
+
+    @Test
+    void advancingByMoreThanOneRevolutionExpiresAllPassedKeys() {
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(100, 4, 0);
+        wheel.schedule("a", 150);
+        wheel.schedule("b", 350);
+        wheel.schedule("c", 20000);
+
+        assertThat(wheel.advance(10000)).containsExactlyInAnyOrder("a", "b");
+        assertThat(wheel.getDeadline("c")).isEqualTo(20000);
+    }
+}
@@ -0,0 +1,90 @@
+package de.unistuttgart.iaas.faas.quantumservice.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class QueueSizeRingBufferTest {
+
+    @Test
+    void rangeReturnsSamplesInOrderAndExcludesEnd() {
+        QueueSizeRingBuffer buffer = new QueueSizeRingBuffer(10);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(1000L * i, i);
+        }
+
+        QueueSizeRingBuffer.Samples samples = buffer.range(1000, 4000);
+
+        assertThat(samples.size()).isEqualTo(3);
+        assertThat(samples.timestamp(0)).isEqualTo(1000);
+        assertThat(samples.timestamp(2)).isEqualTo(3000);
+        assertThat(samples.queueSize(1)).isEqualTo(2);
+    }
+
+    @Test
+    void fullBufferOverwritesOldestSamples() {
+        QueueSizeRingBuffer buffer = new QueueSizeRingBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(1000L * i, i);
+        }
+
+        QueueSizeRingBuffer.Samples samples = buffer.range(0, Long.MAX_VALUE);
+
+        assertThat(samples.size()).isEqualTo(3);
+        assertThat(samples.timestamp(0)).isEqualTo(2000);
+        assertThat(samples.timestamp(2)).isEqualTo(4000);
+    }
+
+    @Test
+    void percentileUsesNearestRank() {
+        QueueSizeRingBuffer buffer = new QueueSizeRingBuffer(10);
+        int[] queueSizes = {15, 20, 35, 40, 50};
+        for (int i = 0; i < queueSizes.length; i++) {
+            // Samples are added unsorted, the percentile sorts the queue sizes
+            buffer.add(i, queueSizes[queueSizes.length - 1 - i]);
+        }
+
+        QueueSizeRingBuffer.Samples samples = buffer.range(0, Long.MAX_VALUE);
+
+        assertThat(samples.percentile(0)).isEqualTo(15);
+        assertThat(samples.percentile(5)).isEqualTo(15);
+        assertThat(samples.percentile(30)).isEqualTo(20);
+        assertThat(samples.percentile(40)).isEqualTo(20);
+        assertThat(samples.percentile(50)).isEqualTo(35);
+        assertThat(samples.percentile(100)).isEqualTo(50);
+    }
+
+    @Test
+    void aggregatesOfSamples() {
+        QueueSizeRingBuffer buffer = new QueueSizeRingBuffer(10);
+        buffer.add(0, 4);
+        buffer.add(1, 1);
+        buffer.add(2, 7);
+
+        QueueSizeRingBuffer.Samples samples = buffer.range(0, Long.MAX_VALUE);
+
+        assertThat(samples.min()).isEqualTo(1);
+        assertThat(samples.max()).isEqualTo(7);
+        assertThat(samples.average()).isEqualTo(4.0);
+    }
+
+    @Test
+    void trendIsSlopePerHour() {
+        QueueSizeRingBuffer buffer = new QueueSizeRingBuffer(10);
+        // The queue grows by 5 jobs every 30 minutes
+        buffer.add(0, 10);
+        buffer.add(1800000, 15);
+        buffer.add(3600000, 20);
+
+        assertThat(buffer.range(0, Long.MAX_VALUE).trendPerHour()).isCloseTo(10.0, within(1e-9));
+    }
+
+    @Test
+    void trendOfSingleSampleIsZero() {
+        QueueSizeRingBuffer buffer = new QueueSizeRingBuffer(10);
+        buffer.add(0, 10);
+
+        assertThat(buffer.range(0, Long.MAX_VALUE).trendPerHour()).isZero();
+    }
+}